@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.benchmark;
+
+import de.hsesslingen.keim.efs.middleware.utils.Cache;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Cache} under contention of concurrent readers and writers. The key
+ * space is larger than the maximum size, so evictions happen continuously.
+ *
+ * @author keim
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({"1000", "100000"})
+    private int maxSize;
+
+    private Cache<Integer, String> cache;
+    private int keySpace;
+
+    @Setup
+    public void setup() {
+        cache = new Cache<>(Duration.ofMinutes(5), maxSize);
+        keySpace = maxSize * 2;
+
+        for (int i = 0; i < maxSize; i++) {
+            cache.set(i, "value-" + i);
+        }
+    }
+
+    private int randomKey() {
+        return ThreadLocalRandom.current().nextInt(keySpace);
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(7)
+    public Optional<String> readHeavyGet() {
+        return cache.get(randomKey());
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(1)
+    public void readHeavySet() {
+        int key = randomKey();
+        cache.set(key, "value-" + key);
+    }
+
+    @Benchmark
+    @Group("computeIfAbsent")
+    @GroupThreads(8)
+    public String computeIfAbsent() {
+        return cache.computeIfAbsent(randomKey(), key -> "value-" + key);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.benchmark;
+
+import de.hsesslingen.keim.efs.middleware.model.Coordinates;
+import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
+import de.hsesslingen.keim.efs.middleware.utils.DistanceUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of lat,lon strings and distance calculations.
+ *
+ * @author keim
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoordinatesBenchmark {
+
+    private static final int COUNT = 10_000;
+
+    private String position;
+    private Coordinates a;
+    private Coordinates b;
+    private List<Coordinates> many;
+    private double[] manyLatLon;
+    private double[] distances;
+
+    @Setup
+    public void setup() {
+        position = "48.7397245,9.3110281";
+        a = new Coordinates(48.7397245, 9.3110281);
+        b = new Coordinates(48.7758459, 9.1829321);
+
+        var random = new Random(42);
+        many = new ArrayList<>(COUNT);
+
+        for (int i = 0; i < COUNT; i++) {
+            many.add(new Coordinates(48.5 + random.nextDouble(), 9.0 + random.nextDouble()));
+        }
+
+        manyLatLon = DistanceUtils.toLatLonArray(many);
+        distances = new double[COUNT];
+    }
+
+    @Benchmark
+    public ICoordinates parse() {
+        return ICoordinates.parse(position);
+    }
+
+    @Benchmark
+    public boolean parseAndValidate() {
+        return ICoordinates.parseAndValidate(position, (lat, lon) -> true, () -> false);
+    }
+
+    @Benchmark
+    public double distanceBoxed() {
+        return ICoordinates.distanceKmBetween(a, b);
+    }
+
+    @Benchmark
+    public double distancePrimitive() {
+        return ICoordinates.distanceKmBetween(48.7397245, 9.3110281, 48.7758459, 9.1829321);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double distancesFromPointBoxed() {
+        double sum = 0;
+
+        for (var c : many) {
+            sum += ICoordinates.distanceKmBetween(a, c);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double[] distancesFromPointKernel() {
+        return DistanceUtils.distancesKm(48.7397245, 9.3110281, manyLatLon, distances);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Coordinates> sortByDistance() {
+        return DistanceUtils.sortByDistance(48.7397245, 9.3110281, many);
+    }
+}
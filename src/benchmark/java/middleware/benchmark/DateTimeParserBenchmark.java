@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.benchmark;
+
+import de.hsesslingen.keim.efs.middleware.utils.FlexibleZonedDateTimeParser;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the date-time formats accepted by
+ * {@link FlexibleZonedDateTimeParser}.
+ *
+ * @author keim
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateTimeParserBenchmark {
+
+    @Param({
+        "1600000000000",
+        "2020-03-11T15:00:00+01:00",
+        "2020-03-11T15:00:00Z",
+        "2020-03-11T15:00:00+01:00[Europe/Berlin]",
+        "2020-03-11T15:00",
+        "2020-03-11",
+        "15:00"
+    })
+    private String value;
+
+    @Param({"0", "1000"})
+    private int cacheSize;
+
+    @Setup
+    public void setup() {
+        FlexibleZonedDateTimeParser.setCacheSize(cacheSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlexibleZonedDateTimeParser.setCacheSize(0);
+    }
+
+    @Benchmark
+    public ZonedDateTime parse() {
+        return FlexibleZonedDateTimeParser.tryParseZonedDateTime(value);
+    }
+}
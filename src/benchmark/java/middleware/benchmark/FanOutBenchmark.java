@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.benchmark;
+
+import de.hsesslingen.keim.efs.middleware.consumer.MiddlewareService;
+import de.hsesslingen.keim.efs.middleware.model.Coordinates;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * A complete options fan-out of {@link MiddlewareService} against local stub
+ * providers with injected latency. Measures the overhead of the consumer side
+ * on top of the slowest provider.
+ *
+ * @author keim
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FanOutBenchmark {
+
+    private static final Function<String, String> NO_TOKENS = serviceId -> null;
+
+    @Param({"4", "32"})
+    private int providers;
+
+    @Param({"10", "100"})
+    private long latencyMillis;
+
+    @Param({"10"})
+    private int optionsPerProvider;
+
+    private StubProviderServer stub;
+    private ConfigurableApplicationContext context;
+    private MiddlewareService middlewareService;
+    private Coordinates from;
+    private Coordinates to;
+
+    @SpringBootApplication
+    public static class FanOutBenchmarkApplication {
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        stub = new StubProviderServer(providers, optionsPerProvider, latencyMillis);
+
+        context = new SpringApplicationBuilder(FanOutBenchmarkApplication.class)
+                .properties(
+                        "server.port=0",
+                        "middleware.consumer.api.enabled=true",
+                        "middleware.service-directory-url=" + stub.getServiceDirectoryUrl()
+                )
+                .run();
+
+        middlewareService = context.getBean(MiddlewareService.class);
+        from = new Coordinates(48.74, 9.31);
+        to = new Coordinates(48.78, 9.18);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SpringApplication.exit(context);
+        stub.close();
+    }
+
+    @Benchmark
+    public long getOptions() {
+        return middlewareService.getOptions(from, to, null, null, null, null, null, null, false, NO_TOKENS).count();
+    }
+}
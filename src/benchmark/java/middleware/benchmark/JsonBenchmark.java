@@ -0,0 +1,180 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import de.hsesslingen.keim.efs.middleware.model.Asset;
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.middleware.model.Coordinates;
+import de.hsesslingen.keim.efs.middleware.model.GeoPathEncoding;
+import de.hsesslingen.keim.efs.middleware.model.Leg;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Jackson serialization and deserialization of the model classes, configured
+ * the same way as Spring Boot configures the {@link ObjectMapper}.
+ *
+ * @author keim
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    /**
+     * The number of points in the geo path of each leg. Zero means no path.
+     */
+    @Param({"0", "1000"})
+    private int geoPathPoints;
+
+    @Param({"coordinates", "polyline"})
+    private GeoPathEncoding encoding;
+
+    private ObjectWriter optionsWriter;
+    private ObjectReader optionsReader;
+    private ObjectMapper mapper;
+
+    private List<Option> options;
+    private Booking booking;
+    private Asset asset;
+
+    private byte[] optionsJson;
+    private byte[] bookingJson;
+    private byte[] assetJson;
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        optionsWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Option.class));
+        optionsReader = mapper.readerFor(mapper.getTypeFactory().constructCollectionType(List.class, Option.class));
+
+        options = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            var leg = createLeg(i);
+
+            if (encoding == GeoPathEncoding.polyline) {
+                leg.encodeGeoPath();
+            }
+
+            options.add(new Option("service-" + i, leg, true).setValidUntil(ZonedDateTime.now().plusMinutes(5)));
+        }
+
+        asset = new Asset()
+                .setServiceId("service-0")
+                .setId("asset-0")
+                .setName("Asset 0")
+                .setMode(Mode.CAR)
+                .setPlace(Place.fromCoordinates(48.74, 9.31).setName("Esslingen"))
+                .setStateOfCharge(80)
+                .setNumberOfPersonsAllowed(5)
+                .setBrandName("Brand")
+                .setModelName("Model");
+
+        booking = new Booking();
+        booking.setServiceId("service-0");
+        booking.setId("booking-0");
+        booking.setState(BookingState.BOOKED);
+        booking.setLeg(createLeg(0).setAsset(asset));
+
+        if (encoding == GeoPathEncoding.polyline) {
+            booking.getLeg().encodeGeoPath();
+        }
+
+        optionsJson = optionsWriter.writeValueAsBytes(options);
+        bookingJson = mapper.writeValueAsBytes(booking);
+        assetJson = mapper.writeValueAsBytes(asset);
+    }
+
+    private Leg createLeg(int i) {
+        var leg = new Leg(Place.fromCoordinates(48.74 + i * 0.001, 9.31), ZonedDateTime.now().plusMinutes(i), Mode.CAR)
+                .setTo(Place.fromCoordinates(48.78, 9.18))
+                .setEndTime(ZonedDateTime.now().plusMinutes(i + 20))
+                .setDistanceMeter(12_000);
+
+        if (geoPathPoints > 0) {
+            var path = new ArrayList<Coordinates>(geoPathPoints);
+
+            for (int p = 0; p < geoPathPoints; p++) {
+                path.add(new Coordinates(48.74 + p * 0.00004, 9.31 - p * 0.00013));
+            }
+
+            leg.setGeoPath(path);
+        }
+
+        return leg;
+    }
+
+    @Benchmark
+    public byte[] serializeOptions() throws Exception {
+        return optionsWriter.writeValueAsBytes(options);
+    }
+
+    @Benchmark
+    public List<Option> deserializeOptions() throws Exception {
+        return optionsReader.readValue(optionsJson);
+    }
+
+    @Benchmark
+    public byte[] serializeBooking() throws Exception {
+        return mapper.writeValueAsBytes(booking);
+    }
+
+    @Benchmark
+    public Booking deserializeBooking() throws Exception {
+        return mapper.readValue(bookingJson, Booking.class);
+    }
+
+    @Benchmark
+    public byte[] serializeAsset() throws Exception {
+        return mapper.writeValueAsBytes(asset);
+    }
+
+    @Benchmark
+    public Asset deserializeAsset() throws Exception {
+        return mapper.readValue(assetJson, Asset.class);
+    }
+}
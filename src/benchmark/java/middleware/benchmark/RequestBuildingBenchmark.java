@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.benchmark;
+
+import de.hsesslingen.keim.efs.middleware.model.Coordinates;
+import de.hsesslingen.keim.efs.middleware.provider.IOptionsApi;
+import de.hsesslingen.keim.efs.mobility.requests.DefaultRequestTemplate;
+import de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequestTemplate;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Assembling a get-options request including its URL, as done for every
+ * provider in a fan-out.
+ *
+ * @author keim
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBuildingBenchmark {
+
+    private MiddlewareRequestTemplate template;
+    private Coordinates from;
+    private Coordinates to;
+    private ZonedDateTime startTime;
+    private Set<Mode> modes;
+
+    @Setup
+    public void setup() {
+        template = new DefaultRequestTemplate(new RestTemplate());
+        from = new Coordinates(48.7397245, 9.3110281);
+        to = new Coordinates(48.7758459, 9.1829321);
+        startTime = ZonedDateTime.now().plusHours(1);
+        modes = Set.of(Mode.CAR, Mode.BICYCLE);
+    }
+
+    @Benchmark
+    public URI buildGetOptionsRequest() {
+        var request = IOptionsApi.buildGetOptionsRequest(
+                "http://localhost:8080/api", from, to, startTime, null,
+                500, true, modes, 10, false, "token", template
+        );
+
+        return request.uriBuilder().build().encode().toUri();
+    }
+}
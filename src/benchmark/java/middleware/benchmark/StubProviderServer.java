@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.hsesslingen.keim.efs.middleware.model.Leg;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.mobility.service.MobilityService;
+import de.hsesslingen.keim.efs.mobility.service.MobilityService.API;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * A local HTTP server that acts as service directory and as a number of
+ * providers at the same time. Each provider answers get-options requests with
+ * a fixed list of options after a configurable delay.
+ *
+ * @author keim
+ */
+public class StubProviderServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final byte[] servicesJson;
+    private final byte[] optionsJson;
+    private final long latencyMillis;
+
+    public StubProviderServer(int providers, int optionsPerProvider, long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "stub-provider");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+
+        var services = new ArrayList<MobilityService>(providers);
+        for (int i = 0; i < providers; i++) {
+            var service = new MobilityService()
+                    .setId("stub-" + i)
+                    .setProviderName("Stub Provider " + i)
+                    .setServiceName("Stub Service " + i)
+                    .setServiceUrl(getBaseUrl() + "/stub-" + i + "/api");
+            service.setModes(Set.of(Mode.CAR));
+            service.setApis(Set.of(API.OPTIONS_API));
+            services.add(service);
+        }
+
+        var options = new ArrayList<Option>(optionsPerProvider);
+        for (int i = 0; i < optionsPerProvider; i++) {
+            var leg = new Leg(Place.fromCoordinates(48.74, 9.31), ZonedDateTime.now().plusMinutes(i), Mode.CAR)
+                    .setTo(Place.fromCoordinates(48.78, 9.18));
+            options.add(new Option("stub", leg, true));
+        }
+
+        servicesJson = mapper.writeValueAsBytes(services);
+        optionsJson = mapper.writeValueAsBytes(options);
+
+        server.createContext("/api/search", exchange -> respond(exchange, servicesJson, 0));
+        server.createContext("/", exchange -> respond(exchange, optionsJson, this.latencyMillis));
+        server.start();
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body, long delayMillis) throws IOException {
+        try {
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * The url to use as {@code middleware.service-directory-url}.
+     *
+     * @return
+     */
+    public String getServiceDirectoryUrl() {
+        return getBaseUrl() + "/api";
+    }
+
+    private String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of the pooled HTTP client that backs the
+ * {@link de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequestTemplate}
+ * created in {@link RequestConfiguration}.
+ *
+ * @author keim
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "middleware.http-client")
+public class HttpClientProperties {
+
+    /**
+     * Maximum number of connections in the pool, over all hosts.
+     */
+    private int maxTotal = 200;
+
+    /**
+     * Maximum number of connections to a single host, if not overridden in
+     * {@link #maxPerHost}.
+     */
+    private int defaultMaxPerRoute = 20;
+
+    /**
+     * Maximum number of connections per host, e.g.
+     * {@code http://provider-a:8080: 50}. Useful for providers that are queried
+     * by a lot of consumers concurrently. The port may be omitted for HTTP and
+     * HTTPS hosts.
+     */
+    private Map<String, Integer> maxPerHost = new HashMap<>();
+
+    /**
+     * Timeout for establishing a connection.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Timeout for waiting for data on an established connection.
+     */
+    private Duration socketTimeout = Duration.ofSeconds(15);
+
+    /**
+     * Timeout for leasing a connection from the pool.
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+
+    /**
+     * How long connections are kept alive if the server does not send a
+     * {@code Keep-Alive} header.
+     */
+    private Duration defaultKeepAlive = Duration.ofSeconds(30);
+
+    /**
+     * Connections idle for longer than this are closed by a background thread.
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(60);
+
+    /**
+     * Pooled connections that have been idle for longer than this are
+     * validated before they are leased again.
+     */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+}
@@ -25,9 +25,23 @@ package de.hsesslingen.keim.efs.middleware.config;
 
 import de.hsesslingen.keim.efs.mobility.requests.DefaultRequestTemplate;
 import de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequestTemplate;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.ResponseErrorHandler;
@@ -39,17 +53,131 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RequestConfiguration {
 
+    private static final Logger logger = getLogger(RequestConfiguration.class);
+
     @Bean
     @ConditionalOnMissingBean
     public ResponseErrorHandler responseErrorHandler() {
         return new DefaultResponseErrorHandler();
     }
 
+    /**
+     * The connection pool of the HTTP client used for requests to other
+     * services. Exposed as bean to allow monitoring its statistics.
+     *
+     * @param props
+     * @return
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public PoolingHttpClientConnectionManager httpClientConnectionManager(HttpClientProperties props) {
+        var manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(props.getMaxTotal());
+        manager.setDefaultMaxPerRoute(props.getDefaultMaxPerRoute());
+        manager.setValidateAfterInactivity((int) props.getValidateAfterInactivity().toMillis());
+
+        props.getMaxPerHost().forEach((host, max) -> {
+            try {
+                manager.setMaxPerRoute(routeOf(host), max);
+            } catch (IllegalArgumentException ex) {
+                logger.warn("Ignoring invalid host \"{}\" in middleware.http-client.max-per-host.", host);
+            }
+        });
+
+        return manager;
+    }
+
+    /**
+     * Creates the route to the given host as it is planned by the HTTP client
+     * for requests to that host, i.e. with the default port of the scheme if
+     * no port is given and marked as secure for HTTPS. Otherwise the route
+     * would not match the routes of the pool.
+     *
+     * @param host A host like {@code https://provider-a} or
+     * {@code http://provider-b:8080}.
+     * @return
+     * @throws IllegalArgumentException If the host is invalid or has no port
+     * and an unknown scheme.
+     */
+    public static HttpRoute routeOf(String host) {
+        var target = HttpHost.create(host);
+        var scheme = target.getSchemeName();
+        boolean secure = "https".equalsIgnoreCase(scheme);
+
+        if (target.getPort() < 0) {
+            if (!secure && !"http".equalsIgnoreCase(scheme)) {
+                throw new IllegalArgumentException("No port given for host with unknown scheme: " + host);
+            }
+            target = new HttpHost(target.getHostName(), secure ? 443 : 80, scheme);
+        }
+
+        return new HttpRoute(target, null, secure);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public CloseableHttpClient httpClient(
+            PoolingHttpClientConnectionManager connectionManager,
+            HttpClientProperties props
+    ) {
+        var requestConfig = createRequestConfig(props);
+
+        long defaultKeepAlive = props.getDefaultKeepAlive().toMillis();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                // Use the Keep-Alive header of the server if there is one, otherwise our default.
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? keepAlive : defaultKeepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(props.getMaxIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Creates the default config of requests sent by the HTTP client.
+     *
+     * @param props
+     * @return
+     */
+    public static RequestConfig createRequestConfig(HttpClientProperties props) {
+        return RequestConfig.custom()
+                .setConnectTimeout((int) props.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) props.getSocketTimeout().toMillis())
+                .setConnectionRequestTimeout((int) props.getConnectionRequestTimeout().toMillis())
+                .build();
+    }
+
+    /**
+     * The request template used for requests to other services. Its requests
+     * respect the socket timeouts set using {@link RequestTimeouts}.
+     *
+     * @param httpClient
+     * @param props
+     * @return
+     */
     @Bean
     @ConditionalOnMissingBean
-    public MiddlewareRequestTemplate requestTemplate() {
+    public MiddlewareRequestTemplate requestTemplate(CloseableHttpClient httpClient, HttpClientProperties props) {
+        var requestConfig = createRequestConfig(props);
+
         var template = new RestTemplate();
-        template.setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+        template.setRequestFactory(new HttpComponentsClientHttpRequestFactory(httpClient) {
+            @Override
+            protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+                if (RequestTimeouts.getSocketTimeout() == null) {
+                    return null;
+                }
+
+                var context = HttpClientContext.create();
+                context.setRequestConfig(RequestTimeouts.apply(requestConfig));
+                return context;
+            }
+        });
+
         return new DefaultRequestTemplate(template);
     }
 
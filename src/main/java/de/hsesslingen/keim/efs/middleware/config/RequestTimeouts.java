@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.config;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.apache.http.client.config.RequestConfig;
+
+/**
+ * Allows overriding the socket timeout of the HTTP client for all requests
+ * sent by the current thread within a call, e.g. to apply the adaptive
+ * timeout of a provider. The override is picked up by the request factory of
+ * {@link RequestConfiguration#requestTemplate} and can be applied to other
+ * requests using {@link #apply(RequestConfig)}.
+ *
+ * @author keim
+ */
+public final class RequestTimeouts {
+
+    private static final ThreadLocal<Duration> SOCKET_TIMEOUT = new ThreadLocal<>();
+
+    private RequestTimeouts() {
+    }
+
+    /**
+     * Executes the given call with the given socket timeout applied to its
+     * requests.
+     *
+     * @param <R>
+     * @param timeout The timeout or {@code null} to use the configured one.
+     * @param call
+     * @return The result of the call.
+     */
+    public static <R> R withSocketTimeout(Duration timeout, Supplier<R> call) {
+        var outer = SOCKET_TIMEOUT.get();
+        SOCKET_TIMEOUT.set(timeout);
+
+        try {
+            return call.get();
+        } finally {
+            if (outer == null) {
+                SOCKET_TIMEOUT.remove();
+            } else {
+                SOCKET_TIMEOUT.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Gets the socket timeout set for the current thread, if any.
+     *
+     * @return The timeout or {@code null}.
+     */
+    public static Duration getSocketTimeout() {
+        return SOCKET_TIMEOUT.get();
+    }
+
+    /**
+     * Applies the socket timeout set for the current thread to the given
+     * config.
+     *
+     * @param config
+     * @return The adjusted config or {@link config} itself, if no timeout is
+     * set.
+     */
+    public static RequestConfig apply(RequestConfig config) {
+        var timeout = SOCKET_TIMEOUT.get();
+
+        if (timeout == null) {
+            return config;
+        }
+
+        return RequestConfig.copy(config).setSocketTimeout((int) timeout.toMillis()).build();
+    }
+}
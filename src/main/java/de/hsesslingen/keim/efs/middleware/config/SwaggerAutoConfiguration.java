@@ -24,6 +24,9 @@
 package de.hsesslingen.keim.efs.middleware.config;
 
 import de.hsesslingen.keim.efs.middleware.provider.AssetsApi;
+import de.hsesslingen.keim.efs.middleware.provider.AsyncBookingApi;
+import de.hsesslingen.keim.efs.middleware.provider.AsyncOptionsApi;
+import de.hsesslingen.keim.efs.middleware.provider.AsyncPlacesApi;
 import de.hsesslingen.keim.efs.middleware.provider.BookingApi;
 import de.hsesslingen.keim.efs.middleware.provider.TokensApi;
 import de.hsesslingen.keim.efs.middleware.provider.OptionsApi;
@@ -32,6 +35,7 @@ import de.hsesslingen.keim.efs.middleware.provider.ServiceInfoApi;
 import de.hsesslingen.keim.efs.middleware.provider.UsersApi;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -83,15 +87,24 @@ public class SwaggerAutoConfiguration {
     @Autowired(required = false)
     private PlacesApi placesApi;
 
+    @Autowired(required = false)
+    private AsyncPlacesApi asyncPlacesApi;
+
     @Autowired(required = false)
     private AssetsApi assetsApi;
 
     @Autowired(required = false)
     private OptionsApi optionsApi;
 
+    @Autowired(required = false)
+    private AsyncOptionsApi asyncOptionsApi;
+
     @Autowired(required = false)
     private BookingApi bookingApi;
 
+    @Autowired(required = false)
+    private AsyncBookingApi asyncBookingApi;
+
     @Autowired(required = false)
     private TokensApi credentialsApi;
 
@@ -112,7 +125,8 @@ public class SwaggerAutoConfiguration {
                         RequestHandlerSelectors.basePackage("de.hsesslingen.keim.efs.adapter")
                 ))
                 .paths(PathSelectors.any())
-                .build();
+                .build()
+                .genericModelSubstitutes(CompletableFuture.class);
 
         setTags(docket);
         docket.apiInfo(apiInfo());
@@ -123,7 +137,7 @@ public class SwaggerAutoConfiguration {
     private void setTags(Docket docket) {
         var tags = new ArrayList<Tag>(4);
 
-        if (placesApi != null) {
+        if (placesApi != null || asyncPlacesApi != null) {
             tags.add(new Tag(PLACES_API_TAG, "API for searching provider specific places, like bus stops...", 1));
         }
 
@@ -131,11 +145,11 @@ public class SwaggerAutoConfiguration {
             tags.add(new Tag(ASSETS_API_TAG, "API for getting information about assets of this provider.", 2));
         }
 
-        if (optionsApi != null) {
+        if (optionsApi != null || asyncOptionsApi != null) {
             tags.add(new Tag(OPTIONS_API_TAG, "API for searching mobility options.", 3));
         }
 
-        if (bookingApi != null) {
+        if (bookingApi != null || asyncBookingApi != null) {
             tags.add(new Tag(BOOKING_API_TAG, "Booking related API with CRUD functionality.", 4));
         }
 
@@ -0,0 +1,330 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hsesslingen.keim.efs.middleware.config.HttpClientProperties;
+import de.hsesslingen.keim.efs.middleware.model.BookingEvent;
+import de.hsesslingen.keim.efs.middleware.provider.IBookingApi;
+import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+/**
+ * Receives the booking events of providers, which are sent as server-sent
+ * events by the {@link IBookingApi#getBookingEvents(String)} endpoint, and
+ * passes them to listeners.
+ * <p>
+ * Each subscription keeps one connection open and is served by its own
+ * thread. The connections are taken from a pool of their own, so that
+ * subscriptions do not use up the connections of the HTTP client of
+ * {@link de.hsesslingen.keim.efs.middleware.config.RequestConfiguration},
+ * which is used for all other requests to providers. Its size is limited by
+ * {@code middleware.consumer.booking-events.max-connections} and
+ * {@code middleware.consumer.booking-events.max-connections-per-provider}.
+ * <p>
+ * Broken connections are reestablished with
+ * an exponential backoff between
+ * {@code middleware.consumer.booking-events.retry-initial-delay} and
+ * {@code middleware.consumer.booking-events.retry-max-delay}. If the provider
+ * rejects the subscription with a client error, e.g. because it does not
+ * support booking events or the token is invalid, the subscription is closed.
+ * <p>
+ * A connection is considered broken if no data, including the heartbeats of
+ * the provider, was received for
+ * {@code middleware.consumer.booking-events.read-timeout}.
+ *
+ * @author keim
+ */
+@Service
+@Lazy
+public class BookingEventReader {
+
+    private static final Logger logger = getLogger(BookingEventReader.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private HttpClientProperties httpClientProperties;
+
+    @Value("${middleware.consumer.booking-events.read-timeout:60s}")
+    private Duration readTimeout;
+
+    @Value("${middleware.consumer.booking-events.retry-initial-delay:1s}")
+    private Duration retryInitialDelay;
+
+    @Value("${middleware.consumer.booking-events.retry-max-delay:1m}")
+    private Duration retryMaxDelay;
+
+    @Value("${middleware.consumer.booking-events.max-connections:100}")
+    private int maxConnections;
+
+    @Value("${middleware.consumer.booking-events.max-connections-per-provider:100}")
+    private int maxConnectionsPerProvider;
+
+    private final Set<BookingEventSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService executor;
+    private CloseableHttpClient httpClient;
+
+    @PostConstruct
+    private void init() {
+        var threadNumber = new AtomicInteger();
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "efs-booking-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var config = RequestConfig.custom().setSocketTimeout((int) readTimeout.toMillis());
+
+        if (httpClientProperties != null) {
+            config.setConnectTimeout((int) httpClientProperties.getConnectTimeout().toMillis())
+                    .setConnectionRequestTimeout((int) httpClientProperties.getConnectionRequestTimeout().toMillis());
+        }
+
+        var connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerProvider);
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(config.build())
+                .build();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        subscriptions.forEach(BookingEventSubscription::close);
+        executor.shutdownNow();
+
+        try {
+            httpClient.close();
+        } catch (IOException ex) {
+            logger.debug("Could not close the HTTP client of booking events: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Subscribes to the booking events of the given provider. The events are
+     * passed to {@link listener} on the thread of the subscription, so the
+     * listener should return quickly. If the events do not contain the service
+     * id, it is set to the one of the provider.
+     *
+     * @param provider
+     * @param token A token that identifies and authenticates the user whose
+     * bookings are of interest.
+     * @param listener
+     * @return The subscription, which must be closed if no longer needed.
+     */
+    public BookingEventSubscription subscribe(ProviderProxy provider, String token, Consumer<BookingEvent> listener) {
+        var subscription = new BookingEventSubscription(provider.getServiceId());
+        subscriptions.add(subscription);
+
+        executor.execute(() -> {
+            try {
+                run(provider, token, listener, subscription);
+            } finally {
+                subscriptions.remove(subscription);
+            }
+        });
+
+        return subscription;
+    }
+
+    private void run(ProviderProxy provider, String token, Consumer<BookingEvent> listener, BookingEventSubscription subscription) {
+        var delay = retryInitialDelay;
+
+        while (!subscription.isClosed()) {
+            long start = System.nanoTime();
+            boolean received;
+
+            try {
+                received = read(provider, token, listener, subscription);
+            } catch (RejectedSubscriptionException ex) {
+                logger.warn("Service {} rejected the subscription to booking events with status {}.", provider.getServiceId(), ex.status);
+                subscription.close();
+                return;
+            } catch (IOException | RuntimeException ex) {
+                if (subscription.isClosed()) {
+                    return;
+                }
+                logger.debug("Booking events connection to service {} broke: {}", provider.getServiceId(), ex.getMessage());
+                received = false;
+            } finally {
+                subscription.setConnected(false);
+                subscription.setCurrentRequest(null);
+            }
+
+            if (received && System.nanoTime() - start > retryInitialDelay.toNanos()) {
+                // The connection worked for a while. Reconnect immediately, e.g. after the provider timed it out.
+                delay = retryInitialDelay;
+                continue;
+            }
+
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                subscription.close();
+                return;
+            }
+
+            delay = delay.multipliedBy(2);
+            if (delay.compareTo(retryMaxDelay) > 0) {
+                delay = retryMaxDelay;
+            }
+        }
+    }
+
+    /**
+     * Opens a connection to the provider and reads events until the stream
+     * ends.
+     *
+     * @return Whether the provider accepted the connection.
+     */
+    private boolean read(ProviderProxy provider, String token, Consumer<BookingEvent> listener, BookingEventSubscription subscription) throws IOException {
+        var get = new HttpGet(provider.getService().getServiceUrl() + IBookingApi.EVENTS_PATH);
+        get.setHeader(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+
+        if (token != null) {
+            get.setHeader(TOKEN_HEADER, token);
+        }
+
+        subscription.setCurrentRequest(get);
+
+        try (var response = httpClient.execute(get)) {
+            int code = response.getStatusLine().getStatusCode();
+
+            if (code >= 400 && code < 500) {
+                throw new RejectedSubscriptionException(code);
+            }
+            if (code >= 300 || response.getEntity() == null) {
+                return false;
+            }
+
+            subscription.setConnected(true);
+
+            try (var reader = new BufferedReader(new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8))) {
+                readEvents(reader, provider.getServiceId(), listener, subscription);
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Parses the server-sent events of the given reader and passes the booking
+     * events to {@link listener}. Comments and unknown events are skipped.
+     */
+    private void readEvents(BufferedReader reader, String serviceId, Consumer<BookingEvent> listener, BookingEventSubscription subscription) throws IOException {
+        String eventName = null;
+        var data = new StringBuilder();
+        String line;
+
+        while ((line = reader.readLine()) != null && !subscription.isClosed()) {
+            if (line.isEmpty()) {
+                if (data.length() > 0 && (eventName == null || IBookingApi.BOOKING_EVENT_NAME.equals(eventName))) {
+                    dispatch(data.toString(), serviceId, listener);
+                }
+                eventName = null;
+                data.setLength(0);
+            } else if (line.startsWith("event:")) {
+                eventName = fieldValue(line, 6);
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(fieldValue(line, 5));
+            }
+            // Comments (":"), ids and retry fields are not used.
+        }
+    }
+
+    private void dispatch(String data, String serviceId, Consumer<BookingEvent> listener) {
+        BookingEvent event;
+
+        try {
+            event = objectMapper.readValue(data, BookingEvent.class);
+        } catch (IOException ex) {
+            logger.warn("Skipping unreadable booking event of service {}: {}", serviceId, ex.getMessage());
+            return;
+        }
+
+        if (event.getServiceId() == null) {
+            event.setServiceId(serviceId);
+        }
+
+        try {
+            listener.accept(event);
+        } catch (RuntimeException ex) {
+            logger.warn("Booking event listener failed for booking {} of service {}.", event.getBookingId(), serviceId, ex);
+        }
+    }
+
+    private static String fieldValue(String line, int nameLength) {
+        // A single space after the colon is not part of the value.
+        int start = line.length() > nameLength && line.charAt(nameLength) == ' ' ? nameLength + 1 : nameLength;
+        return line.substring(start);
+    }
+
+    /**
+     * Thrown if the provider answered a subscription with a client error.
+     */
+    private static class RejectedSubscriptionException extends RuntimeException {
+
+        private final int status;
+
+        private RejectedSubscriptionException(int status) {
+            super("Subscription rejected with status " + status);
+            this.status = status;
+        }
+    }
+}
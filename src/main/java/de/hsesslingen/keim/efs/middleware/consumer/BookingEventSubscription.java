@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import org.apache.http.client.methods.HttpGet;
+
+/**
+ * A subscription to the booking events of a single provider, as returned by
+ * {@link BookingEventReader#subscribe(ProviderProxy, String, java.util.function.Consumer)}.
+ * The subscription reconnects automatically until it is closed or the
+ * provider rejects it.
+ *
+ * @author keim
+ */
+public class BookingEventSubscription implements AutoCloseable {
+
+    private final String serviceId;
+
+    private volatile boolean closed;
+    private volatile boolean connected;
+    private volatile HttpGet currentRequest;
+
+    BookingEventSubscription(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    /**
+     * Gets the service id of the provider this subscription belongs to.
+     *
+     * @return
+     */
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    /**
+     * Whether the subscription is currently connected to the provider.
+     *
+     * @return
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Whether the subscription was closed, either by calling {@link #close()}
+     * or because the provider rejected it.
+     *
+     * @return
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the subscription and its connection. No events are passed to the
+     * listener afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        var request = currentRequest;
+        if (request != null) {
+            request.abort();
+        }
+    }
+
+    void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
+    void setCurrentRequest(HttpGet request) {
+        this.currentRequest = request;
+
+        if (closed && request != null) {
+            // Closed while the request was being prepared.
+            request.abort();
+        }
+    }
+}
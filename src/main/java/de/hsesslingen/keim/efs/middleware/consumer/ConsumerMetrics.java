@@ -0,0 +1,207 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+/**
+ * Records metrics about the requests sent to providers. If a
+ * {@link MeterRegistry} bean is available (e.g. by using Spring Boot
+ * Actuator), meters are registered there. Otherwise the global registry of
+ * Micrometer is used.
+ * <p>
+ * The following meters are available:
+ * <ul>
+ * <li>{@code efs.consumer.requests}: Timer of requests, tagged by
+ * {@code provider}, {@code api}, {@code outcome} and {@code exception}.</li>
+ * <li>{@code efs.consumer.results}: Number of elements in list responses,
+ * tagged by {@code provider} and {@code api}.</li>
+ * <li>{@code efs.consumer.payload}: Size of response bodies in bytes, tagged by
+ * {@code provider} and {@code api}. Only recorded if the provider sends a
+ * {@code Content-Length} header.</li>
+ * <li>{@code efs.consumer.timeouts}: Requests that were abandoned because the
+ * provider timeout elapsed, tagged by {@code provider}.</li>
+ * <li>{@code efs.consumer.http-client.*}: Statistics of the connection pool of
+ * the HTTP client.</li>
+ * </ul>
+ * Further gauges are registered by {@link ProviderCache},
+ * {@link ProviderRequestExecutor} and {@link OptionsCache}.
+ *
+ * @author keim
+ */
+@Service
+@Lazy
+public class ConsumerMetrics {
+
+    public static final String REQUESTS = "efs.consumer.requests";
+    public static final String RESULTS = "efs.consumer.results";
+    public static final String PAYLOAD = "efs.consumer.payload";
+    public static final String TIMEOUTS = "efs.consumer.timeouts";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_CLIENT_ERROR = "client_error";
+    public static final String OUTCOME_SERVER_ERROR = "server_error";
+    public static final String OUTCOME_CIRCUIT_OPEN = "circuit_open";
+    public static final String OUTCOME_ERROR = "error";
+
+    @Autowired(required = false)
+    private MeterRegistry registry;
+
+    @Autowired(required = false)
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    @PostConstruct
+    private void init() {
+        if (registry == null) {
+            registry = Metrics.globalRegistry;
+        }
+
+        if (connectionManager != null) {
+            var pool = connectionManager;
+            Gauge.builder("efs.consumer.http-client.leased", pool, p -> p.getTotalStats().getLeased())
+                    .description("Connections currently in use.")
+                    .register(registry);
+            Gauge.builder("efs.consumer.http-client.available", pool, p -> p.getTotalStats().getAvailable())
+                    .description("Idle connections kept alive in the pool.")
+                    .register(registry);
+            Gauge.builder("efs.consumer.http-client.pending", pool, p -> p.getTotalStats().getPending())
+                    .description("Requests waiting for a connection.")
+                    .register(registry);
+            Gauge.builder("efs.consumer.http-client.max", pool, p -> p.getTotalStats().getMax())
+                    .description("Maximum number of connections in the pool.")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Gets the registry the meters are registered in.
+     *
+     * @return
+     */
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Records a finished request to a provider.
+     *
+     * @param serviceId
+     * @param api The API that was called, e.g. {@code options}.
+     * @param durationNanos
+     * @param error The exception the request failed with or {@code null} if it
+     * succeeded.
+     */
+    public void recordRequest(String serviceId, String api, long durationNanos, Throwable error) {
+        Timer.builder(REQUESTS)
+                .description("Requests sent to providers.")
+                .tags(Tags.of(
+                        "provider", serviceId,
+                        "api", api,
+                        "outcome", outcomeOf(error),
+                        "exception", error == null ? "none" : error.getClass().getSimpleName()
+                ))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the number of elements a provider returned.
+     *
+     * @param serviceId
+     * @param api
+     * @param count
+     */
+    public void recordResults(String serviceId, String api, int count) {
+        DistributionSummary.builder(RESULTS)
+                .description("Number of elements in list responses of providers.")
+                .tags("provider", serviceId, "api", api)
+                .register(registry)
+                .record(count);
+    }
+
+    /**
+     * Records the size of a response body. Negative sizes, i.e. unknown ones,
+     * are ignored.
+     *
+     * @param serviceId
+     * @param api
+     * @param bytes
+     */
+    public void recordPayload(String serviceId, String api, long bytes) {
+        if (bytes < 0) {
+            return;
+        }
+
+        DistributionSummary.builder(PAYLOAD)
+                .description("Size of response bodies of providers.")
+                .baseUnit("bytes")
+                .tags("provider", serviceId, "api", api)
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * Records a request that was abandoned because the timeout of the provider
+     * elapsed.
+     *
+     * @param serviceId
+     */
+    public void recordTimeout(String serviceId) {
+        Counter.builder(TIMEOUTS)
+                .description("Requests to providers abandoned due to the timeout.")
+                .tags("provider", serviceId)
+                .register(registry)
+                .increment();
+    }
+
+    private static String outcomeOf(Throwable error) {
+        if (error == null) {
+            return OUTCOME_SUCCESS;
+        }
+        if (error instanceof HttpClientErrorException) {
+            return OUTCOME_CLIENT_ERROR;
+        }
+        if (error instanceof HttpServerErrorException) {
+            return OUTCOME_SERVER_ERROR;
+        }
+        if (error instanceof CircuitOpenException) {
+            return OUTCOME_CIRCUIT_OPEN;
+        }
+        return OUTCOME_ERROR;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hsesslingen.keim.efs.middleware.config.HttpClientProperties;
+import de.hsesslingen.keim.efs.middleware.config.RequestConfiguration;
+import de.hsesslingen.keim.efs.middleware.config.RequestTimeouts;
+import de.hsesslingen.keim.efs.middleware.provider.IOptionsApi;
+import de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest;
+import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Predicate;
+import javax.annotation.PostConstruct;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+/**
+ * Sends GET requests whose response is a JSON array and parses the elements of
+ * the array one by one while the response is still being received, instead of
+ * buffering the whole response and materializing it to a list first.
+ * <p>
+ * The requests prefer newline delimited JSON (see
+ * {@link IOptionsApi#APPLICATION_NDJSON_VALUE}), which providers can write
+ * element by element as soon as each one is produced. Providers that do not
+ * support it respond with a plain JSON array, which is parsed the same way.
+ * <p>
+ * Each element is handed to a sink as soon as it is parsed. If the sink
+ * returns {@code false}, e.g. because enough elements were received, the
+ * request is aborted and the rest of the response is never read.
+ * <p>
+ * The request is sent using the pooled HTTP client of
+ * {@link de.hsesslingen.keim.efs.middleware.config.RequestConfiguration} and
+ * not through the {@link MiddlewareRequest} itself. Its URI and headers are
+ * used, so request adapters must already have been applied using
+ * {@link MiddlewareRequest#callRequestAdapters()}.
+ *
+ * @author keim
+ */
+@Service
+@Lazy
+public class JsonStreamReader {
+
+    private static final Logger logger = getLogger(JsonStreamReader.class);
+
+    private static final String ACCEPT_VALUE = IOptionsApi.APPLICATION_NDJSON_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.9";
+
+    @Autowired
+    private CloseableHttpClient httpClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private HttpClientProperties httpClientProperties;
+
+    private RequestConfig requestConfig;
+
+    @PostConstruct
+    private void init() {
+        requestConfig = httpClientProperties == null
+                ? RequestConfig.DEFAULT
+                : RequestConfiguration.createRequestConfig(httpClientProperties);
+    }
+
+    /**
+     * Sends the given request and streams the elements of the returned JSON
+     * array or newline delimited JSON to {@link sink}.
+     *
+     * @param <T>
+     * @param request The request, of which the URI and headers are used.
+     * @param token An optional token for the request.
+     * @param type The type of the array elements.
+     * @param sink Receives the parsed elements. Returns {@code false} to stop
+     * reading.
+     * @return The number of elements passed to {@link sink}.
+     * @throws HttpClientErrorException if the response has a 4xx status.
+     * @throws HttpServerErrorException if the response has a 5xx status.
+     * @throws UncheckedIOException if the request or parsing failed.
+     */
+    public <T> int readArray(
+            MiddlewareRequest<?> request,
+            String token,
+            Class<T> type,
+            Predicate<T> sink
+    ) {
+        var get = new HttpGet(request.uriBuilder().build().encode().toUri());
+
+        request.headers().forEach((name, values) -> values.forEach(value -> get.addHeader(name, value)));
+        get.setHeader(HttpHeaders.ACCEPT, ACCEPT_VALUE);
+
+        if (RequestTimeouts.getSocketTimeout() != null) {
+            get.setConfig(RequestTimeouts.apply(requestConfig));
+        }
+
+        if (token != null) {
+            get.setHeader(TOKEN_HEADER, token);
+        }
+
+        try (var response = httpClient.execute(get)) {
+            int code = response.getStatusLine().getStatusCode();
+
+            if (code >= 400) {
+                var status = HttpStatus.resolve(code);
+
+                if (code < 500) {
+                    throw new HttpClientErrorException(status == null ? HttpStatus.BAD_REQUEST : status);
+                }
+                throw new HttpServerErrorException(status == null ? HttpStatus.INTERNAL_SERVER_ERROR : status);
+            }
+
+            var entity = response.getEntity();
+            if (entity == null) {
+                return 0;
+            }
+
+            int count = 0;
+
+            try (var iterator = objectMapper.readerFor(type).<T>readValues(entity.getContent())) {
+                while (iterator.hasNextValue()) {
+                    count++;
+                    if (!sink.test(iterator.nextValue())) {
+                        logger.trace("Aborting streamed request to {} after {} elements.", get.getURI(), count);
+                        // Do not read the rest of the response. The connection is discarded instead of reused.
+                        get.abort();
+                        break;
+                    }
+                }
+            }
+
+            return count;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with logarithmic buckets, used to estimate
+ * percentiles of the response times of a single provider.
+ * <p>
+ * The histogram keeps two windows: the current one, into which values are
+ * recorded, and the previous one. Percentiles are computed over both, so that
+ * old measurements fade out after two window durations while there are always
+ * enough samples right after a window rotation.
+ *
+ * @author keim
+ */
+public class LatencyHistogram {
+
+    /**
+     * Each bucket is about 19 % wider than its predecessor, starting at 1 ms.
+     * With 64 buckets, the last one covers everything above roughly 60 s.
+     */
+    private static final int BUCKET_COUNT = 64;
+    private static final double GROWTH = 1.19;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+
+    private final long windowNanos;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKET_COUNT);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKET_COUNT);
+    private volatile long windowStart = System.nanoTime();
+
+    /**
+     * @param windowMillis The duration of a single window.
+     */
+    public LatencyHistogram(long windowMillis) {
+        this.windowNanos = windowMillis * 1_000_000L;
+    }
+
+    private static int bucketOf(long millis) {
+        if (millis <= 1) {
+            return 0;
+        }
+        int bucket = (int) (Math.log(millis) / LOG_GROWTH) + 1;
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Gets the upper bound in milliseconds of the given bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        return (long) Math.ceil(Math.pow(GROWTH, bucket));
+    }
+
+    private void rotateIfNecessary() {
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (now - windowStart < windowNanos) {
+                return;
+            }
+            previous = current;
+            current = new AtomicLongArray(BUCKET_COUNT);
+            windowStart = now;
+        }
+    }
+
+    /**
+     * Records the given latency.
+     *
+     * @param millis
+     */
+    public void record(long millis) {
+        rotateIfNecessary();
+        current.incrementAndGet(bucketOf(millis));
+    }
+
+    /**
+     * Gets the number of samples in the current and previous window.
+     *
+     * @return
+     */
+    public long getCount() {
+        rotateIfNecessary();
+        var cur = current;
+        var prev = previous;
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += cur.get(i) + prev.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Estimates the given percentile in milliseconds. The result is the upper
+     * bound of the bucket containing the percentile, i.e. it is rather
+     * overestimated than underestimated.
+     *
+     * @param percentile A value between 0 and 1, e.g. 0.99 for p99.
+     * @return The estimated value or -1 if there are no samples.
+     */
+    public long getPercentile(double percentile) {
+        rotateIfNecessary();
+        var cur = current;
+        var prev = previous;
+
+        var counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = cur.get(i) + prev.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0) {
+            return -1;
+        }
+
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+
+        return upperBoundOf(BUCKET_COUNT - 1);
+    }
+}
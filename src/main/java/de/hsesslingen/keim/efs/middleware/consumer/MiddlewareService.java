@@ -24,6 +24,9 @@
 package de.hsesslingen.keim.efs.middleware.consumer;
 
 import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.BookingEvent;
+import de.hsesslingen.keim.efs.middleware.model.BoundingBox;
+import de.hsesslingen.keim.efs.middleware.model.GeoPathEncoding;
 import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
 import de.hsesslingen.keim.efs.middleware.model.Option;
 import de.hsesslingen.keim.efs.middleware.model.Place;
@@ -35,19 +38,31 @@ import static de.hsesslingen.keim.efs.mobility.service.MobilityService.API.OPTIO
 import static de.hsesslingen.keim.efs.mobility.service.MobilityService.API.PLACES_API;
 import de.hsesslingen.keim.efs.mobility.service.Mode;
 import de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.Collection;
-import static java.util.Collections.disjoint;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import static org.slf4j.LoggerFactory.getLogger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -67,6 +82,31 @@ public class MiddlewareService {
     @Autowired
     private ProviderCache providerCache;
 
+    @Autowired
+    private ProviderRequestExecutor requestExecutor;
+
+    @Autowired
+    private OptionsCache optionsCache;
+
+    @Autowired
+    private JsonStreamReader streamReader;
+
+    @Autowired
+    private BookingEventReader bookingEventReader;
+
+    @Autowired
+    private ConsumerMetrics metrics;
+
+    /**
+     * The format in which geo paths are requested from providers. With
+     * {@code polyline}, legs contain {@link Leg#encodedGeoPath} instead of
+     * {@link Leg#geoPath}. Use {@link Leg#getCompactGeoPath()} to read the path
+     * independent of the format. Providers that do not support the param
+     * ignore it and respond with the default format.
+     */
+    @Value("${middleware.consumer.options.geo-path-encoding:coordinates}")
+    private GeoPathEncoding geoPathEncoding;
+
     /**
      * Gets a partiular {@link ProviderProxy} from {@link ProviderCache}.
      *
@@ -90,20 +130,24 @@ public class MiddlewareService {
     /**
      * Gets a stream of available providers matching the given
      * {@link serviceIds}. The stream is read from {@link ProviderCache}.
+     * Providers whose circuit breaker is open are skipped.
      *
      * @param serviceIds
      * @return
      */
     public Stream<ProviderProxy> getProviders(Set<String> serviceIds) {
+        var stream = getProviders().stream().filter(p -> p.isAvailable());
+
         if (serviceIds == null || serviceIds.isEmpty()) {
-            return getProviders().stream();
+            return stream;
         }
 
-        return getProviders().stream().filter(p -> serviceIds.contains(p.getServiceId()));
+        return stream.filter(p -> serviceIds.contains(p.getServiceId()));
     }
 
     /**
      * Gets a filtered list of {@link ProviderProxy} from {@link ProviderCache}.
+     * Providers whose circuit breaker is open are skipped.
      *
      * @param anyOfTheseModesSupported
      * @param allOfTheseApisSupported
@@ -113,31 +157,39 @@ public class MiddlewareService {
             Set<Mode> anyOfTheseModesSupported,
             Set<API> allOfTheseApisSupported
     ) {
-        var stream = getProviders().stream();
-
-        if (allOfTheseApisSupported != null && !allOfTheseApisSupported.isEmpty()) {
-            stream = stream.filter(s -> s.getService().getApis().containsAll(allOfTheseApisSupported));
-        }
+        return providerCache.getProviders(anyOfTheseModesSupported, allOfTheseApisSupported)
+                .filter(p -> p.isAvailable());
+    }
 
-        if (anyOfTheseModesSupported != null && !anyOfTheseModesSupported.isEmpty()) {
-            stream = stream.filter(s -> !disjoint(anyOfTheseModesSupported, s.getService().getModes()));
+    /**
+     * Creates a filter for providers whose service area intersects the given
+     * area. See {@link ServiceAreaIndex}.
+     *
+     * @param area The area of interest or {@code null} to not filter at all.
+     * @return
+     */
+    private Predicate<ProviderProxy> servesArea(BoundingBox area) {
+        if (area == null) {
+            return p -> true;
         }
 
-        return stream;
+        var serviceIds = providerCache.getServiceIdsInArea(area);
+        return p -> serviceIds.contains(p.getServiceId());
     }
 
     /**
-     * Sends the given request by calling {@code request.go()} and catching any
-     * exception thrown by this call. If an exception occurrs, {@code null} will
-     * be returned.
+     * Sends the given request using {@link sender}, which usually goes through
+     * the circuit breaker of the provider, and catches any exception thrown by
+     * this call. If an exception occurrs, {@code null} will be returned.
      *
      * @param <T>
      * @param request
+     * @param sender
      * @return
      */
-    private <T> ResponseEntity<T> sendRequestSafely(MiddlewareRequest<T> request) {
+    private <T> ResponseEntity<T> sendRequestSafely(MiddlewareRequest<T> request, Supplier<ResponseEntity<T>> sender) {
         try {
-            return request.go();
+            return sender.get();
         } catch (Exception ex) {
             logger.trace("Exception occured while calling {}. Content in next line...\n{}", request.uriBuilder().build().toUriString(), ex.getMessage());
             return null;
@@ -145,22 +197,185 @@ public class MiddlewareService {
     }
 
     /**
-     * Sends the given list of requests in parallel using a parllel stream and
-     * collecting the results in a common stream.
+     * Collects a stream of providers to a map of requests, keyed by the
+     * provider the request is addressed to. The map preserves the
+     * order of the stream.
+     *
+     * @param <T>
+     * @param requestCreator
+     * @return
+     */
+    private static <T> Collector<ProviderProxy, ?, Map<ProviderProxy, MiddlewareRequest<T>>> toRequestMap(
+            Function<ProviderProxy, MiddlewareRequest<T>> requestCreator
+    ) {
+        return toMap(p -> p, requestCreator, (a, b) -> a, LinkedHashMap::new);
+    }
+
+    /**
+     * Sends the given idempotent request to the given provider on the
+     * {@link ProviderRequestExecutor}. The returned future completes with the
+     * response body or with {@code null} if the request failed, was rejected
+     * or did not complete within the adaptive timeout of the provider (see
+     * {@link ProviderHealth#getTimeout()}).
+     *
+     * @param <T>
+     * @param provider
+     * @param request
+     * @return
+     */
+    private <T> CompletableFuture<T> submitRequest(ProviderProxy provider, MiddlewareRequest<T> request) {
+        return submitRequest(provider, request, () -> provider.sendIdempotent(request));
+    }
+
+    /**
+     * Like {@link #submitRequest(ProviderProxy, MiddlewareRequest)}, but lets
+     * concurrent identical requests share one upstream call. See
+     * {@link ProviderProxy#sendCoalesced(MiddlewareRequest, String)}.
+     *
+     * @param <T>
+     * @param provider
+     * @param request
+     * @param token
+     * @return
+     */
+    private <T> CompletableFuture<T> submitCoalescedRequest(ProviderProxy provider, MiddlewareRequest<T> request, String token) {
+        return submitRequest(provider, request, () -> provider.sendCoalesced(request, token));
+    }
+
+    private <T> CompletableFuture<T> submitRequest(ProviderProxy provider, MiddlewareRequest<T> request, Supplier<ResponseEntity<T>> sender) {
+        var timeout = provider.getHealth().getTimeout();
+
+        return requestExecutor.submit(provider.getServiceId(), () -> sendRequestSafely(request, sender), timeout)
+                .thenApply(response -> response == null ? null : response.getBody())
+                .exceptionally(ex -> {
+                    var cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+                    if (cause instanceof TimeoutException) {
+                        metrics.recordTimeout(provider.getServiceId());
+                    }
+
+                    logger.trace("Request to service {} could not be completed: {}", provider.getServiceId(), ex.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Submits all given requests on the {@link ProviderRequestExecutor}. The
+     * requests are keyed by the provider they are addressed to.
+     *
+     * @param <T>
+     * @param requests
+     * @return
+     */
+    private <T> List<CompletableFuture<List<T>>> submitRequests(Map<ProviderProxy, MiddlewareRequest<List<T>>> requests) {
+        return requests.entrySet().stream()
+                .map(e -> submitRequest(e.getKey(), e.getValue()))
+                .collect(toList());
+    }
+
+    /**
+     * Sends the given requests in parallel on the
+     * {@link ProviderRequestExecutor} and collects the results in a common
+     * stream. The requests are keyed by the provider they are addressed to.
      *
      * @param <T>
      * @param requests
      * @return
      */
-    private <T> Stream<T> sendRequestsInParallel(List<MiddlewareRequest<List<T>>> requests) {
-        return requests.parallelStream()
-                .map(request -> sendRequestSafely(request))
-                .filter(response -> response != null)
-                .map(response -> response.getBody())
+    private <T> Stream<T> sendRequestsInParallel(Map<ProviderProxy, MiddlewareRequest<List<T>>> requests) {
+        return collectInParallel(submitRequests(requests));
+    }
+
+    /**
+     * Collects the result lists of the given futures in a common stream.
+     * Futures that completed with {@code null} are skipped.
+     *
+     * @param <T>
+     * @param futures
+     * @return
+     */
+    private <T> Stream<T> collectInParallel(List<CompletableFuture<List<T>>> futures) {
+        return futures.stream()
+                .map(future -> future.join())
                 .filter(list -> list != null)
                 .flatMap(list -> list.stream());
     }
 
+    /**
+     * Sends the given requests asynchronously. See
+     * {@link #collectAsync(List, Duration, Consumer)} for details.
+     *
+     * @param <T>
+     * @param requests
+     * @param deadline
+     * @param onProviderResult
+     * @return
+     */
+    private <T> CompletableFuture<Void> sendRequestsAsync(
+            Map<ProviderProxy, MiddlewareRequest<List<T>>> requests,
+            Duration deadline,
+            Consumer<List<T>> onProviderResult
+    ) {
+        return collectAsync(submitRequests(requests), deadline, onProviderResult);
+    }
+
+    /**
+     * Passes the result list of each of the given futures to
+     * {@link onProviderResult} as soon as it completed. The calls of
+     * {@link onProviderResult} are serialized, so the consumer does not need to
+     * be thread safe.
+     * <p>
+     * If a {@link deadline} is given, all results that did not arrive until
+     * then are dropped. The returned future completes when either all results
+     * were handled or the deadline is reached, whatever happens first. It
+     * never completes exceptionally due to a failing provider.
+     *
+     * @param <T>
+     * @param futures
+     * @param deadline An optional maximum duration to wait for results.
+     * @param onProviderResult
+     * @return
+     */
+    private <T> CompletableFuture<Void> collectAsync(
+            List<CompletableFuture<List<T>>> futures,
+            Duration deadline,
+            Consumer<List<T>> onProviderResult
+    ) {
+        var closed = new AtomicBoolean(false);
+
+        var handled = futures.stream()
+                .map(future -> future
+                .thenAccept(list -> {
+                    if (list == null) {
+                        return;
+                    }
+
+                    synchronized (closed) {
+                        if (!closed.get()) {
+                            onProviderResult.accept(list);
+                        }
+                    }
+                })
+                // Exceptions thrown by the consumer should not affect the other providers.
+                .exceptionally(ex -> {
+                    logger.warn("Exception occured while handling a provider result.", ex);
+                    return null;
+                }))
+                .toArray(CompletableFuture[]::new);
+
+        var all = CompletableFuture.allOf(handled);
+
+        if (deadline != null) {
+            all = all.completeOnTimeout(null, deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        return all.whenComplete((v, ex) -> {
+            synchronized (closed) {
+                closed.set(true);
+            }
+        });
+    }
+
     /**
      * Searches all providers that support the {@link IPlaceApi} (Places-API)
      * for places, using the given search criteria.
@@ -194,16 +409,68 @@ public class MiddlewareService {
             Integer radiusMeter,
             Integer limitToPerProvider,
             Function<String, String> serviceTokenGetter
+    ) {
+        var requests = createSearchPlacesRequests(query, areaCenter, radiusMeter, limitToPerProvider, serviceTokenGetter);
+        return sendRequestsInParallel(requests);
+    }
+
+    /**
+     * Assembles the search-places requests for all providers that support the
+     * Places-API.
+     */
+    private Map<ProviderProxy, MiddlewareRequest<List<Place>>> createSearchPlacesRequests(
+            String query,
+            ICoordinates areaCenter,
+            Integer radiusMeter,
+            Integer limitToPerProvider,
+            Function<String, String> serviceTokenGetter
     ) {
         var tokenGetter = serviceTokenGetter == null ? DEFAULT_TOKEN_GETTER : serviceTokenGetter;
 
-        var requests = getProviders().stream()
-                .filter(p -> p.supportsApi(PLACES_API))
-                .map(p -> p.createSearchPlacesRequest(query, areaCenter, radiusMeter, limitToPerProvider, tokenGetter.apply(p.getServiceId())))
-                .peek(r -> r.callRequestAdapters())
-                .collect(toList());
+        var requests = getProviders(null, Set.of(PLACES_API))
+                .filter(servesArea(BoundingBox.around(radiusMeter == null ? 0 : radiusMeter, areaCenter)))
+                .collect(toRequestMap(p -> p.createSearchPlacesRequest(query, areaCenter, radiusMeter, limitToPerProvider, tokenGetter.apply(p.getServiceId()))));
 
-        return sendRequestsInParallel(requests);
+        requests.values().forEach(r -> r.callRequestAdapters());
+        return requests;
+    }
+
+    /**
+     * Searches all providers that support the {@link IPlaceApi} (Places-API)
+     * for places, using the given search criteria, without blocking the calling
+     * thread.
+     * <p>
+     * The places of each provider are passed to {@link onProviderResult} as
+     * soon as the response of that provider arrived. Responses arriving after
+     * the given {@link deadline} are dropped. This way, the overall duration
+     * of this search is no longer determined by the slowest provider.
+     *
+     * @param query
+     * @param areaCenter
+     * @param radiusMeter
+     * @param limitToPerProvider
+     * @param serviceTokenGetter A function that allows getting a ready-to-use
+     * token for a given service id. The argument of the function is the service
+     * id for which this function should return a token. The function can also
+     * simply return {@code null} if no token is required.
+     * @param deadline An optional maximum duration to wait for providers. If
+     * {@code null}, all providers are awaited.
+     * @param onProviderResult Receives the result list of each provider. Calls
+     * to this consumer are serialized.
+     * @return A future that completes when all providers responded or the
+     * deadline is reached.
+     */
+    public CompletableFuture<Void> searchPlacesAsync(
+            String query,
+            ICoordinates areaCenter,
+            Integer radiusMeter,
+            Integer limitToPerProvider,
+            Function<String, String> serviceTokenGetter,
+            Duration deadline,
+            Consumer<List<Place>> onProviderResult
+    ) {
+        var requests = createSearchPlacesRequests(query, areaCenter, radiusMeter, limitToPerProvider, serviceTokenGetter);
+        return sendRequestsAsync(requests, deadline, onProviderResult);
     }
 
     /**
@@ -288,15 +555,268 @@ public class MiddlewareService {
             Integer limitToPerProvider,
             Boolean includeGeoPaths,
             Function<String, String> serviceTokenGetter
+    ) {
+        var futures = fetchOptions(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitToPerProvider, includeGeoPaths, serviceTokenGetter);
+        return collectInParallel(futures);
+    }
+
+    /**
+     * Queries the options of all providers that support the Options-API and at
+     * least one of the allowed modes. If the {@link OptionsCache} is enabled,
+     * cached results are used where available and fresh results are stored in
+     * it.
+     *
+     * @return One future per provider, completing with its options or
+     * {@code null} on failure.
+     */
+    private List<CompletableFuture<List<Option>>> fetchOptions(
+            ICoordinates from,
+            ICoordinates to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitToPerProvider,
+            Boolean includeGeoPaths,
+            Function<String, String> serviceTokenGetter
     ) {
         var tokenGetter = serviceTokenGetter == null ? DEFAULT_TOKEN_GETTER : serviceTokenGetter;
 
-        var requests = getProviders(modesAllowed, Set.of(OPTIONS_API))
-                .map(p -> p.createGetOptionsRequest(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitToPerProvider, includeGeoPaths, tokenGetter.apply(p.getServiceId())))
-                .peek(r -> r.callRequestAdapters())
+        return getProviders(modesAllowed, Set.of(OPTIONS_API))
+                .filter(servesArea(BoundingBox.around(radiusMeter == null ? 0 : radiusMeter, from, to)))
+                .map(p -> {
+                    var token = tokenGetter.apply(p.getServiceId());
+
+                    if (!optionsCache.isEnabled()) {
+                        return submitCoalescedRequest(p, createGetOptionsRequest(p, from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitToPerProvider, includeGeoPaths, token), token);
+                    }
+
+                    var key = optionsCache.createKey(p.getServiceId(), from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitToPerProvider, includeGeoPaths, token);
+                    var cached = optionsCache.get(key);
+
+                    if (cached != null) {
+                        return CompletableFuture.completedFuture(cached);
+                    }
+
+                    return submitCoalescedRequest(p, createGetOptionsRequest(p, from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitToPerProvider, includeGeoPaths, token), token)
+                            .thenApply(options -> {
+                                optionsCache.put(p.getServiceId(), key, options);
+                                return options;
+                            });
+                })
                 .collect(toList());
+    }
 
-        return sendRequestsInParallel(requests);
+    /**
+     * Assembles a get-options request for the given provider and applies the
+     * request adapters to it.
+     */
+    private MiddlewareRequest<List<Option>> createGetOptionsRequest(
+            ProviderProxy provider,
+            ICoordinates from,
+            ICoordinates to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitToPerProvider,
+            Boolean includeGeoPaths,
+            String token
+    ) {
+        // The default format is omitted to support providers not knowing the param.
+        var encoding = Boolean.TRUE.equals(includeGeoPaths) && geoPathEncoding != GeoPathEncoding.coordinates ? geoPathEncoding : null;
+        var request = provider.createGetOptionsRequest(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitToPerProvider, includeGeoPaths, encoding, token);
+
+        request.callRequestAdapters();
+        return request;
+    }
+
+    /**
+     * Queries all providers that support the {@link IOptionsApi} (Options-API)
+     * for options, using the given criteria, without blocking the calling
+     * thread.
+     * <p>
+     * The options of each provider are passed to {@link onProviderResult} as
+     * soon as the response of that provider arrived. Responses arriving after
+     * the given {@link deadline} are dropped. This way, the overall duration
+     * of this query is no longer determined by the slowest provider.
+     *
+     * @param from
+     * @param to
+     * @param startTime
+     * @param endTime
+     * @param radiusMeter
+     * @param sharingAllowed
+     * @param modesAllowed
+     * @param limitToPerProvider
+     * @param includeGeoPaths
+     * @param serviceTokenGetter A function that allows getting a ready-to-use
+     * token for a given service id. The argument of the function is the service
+     * id for which this function should return a token. The function can also
+     * simply return {@code null} if no token is required.
+     * @param deadline An optional maximum duration to wait for providers. If
+     * {@code null}, all providers are awaited.
+     * @param onProviderResult Receives the result list of each provider. Calls
+     * to this consumer are serialized.
+     * @return A future that completes when all providers responded or the
+     * deadline is reached.
+     */
+    public CompletableFuture<Void> getOptionsAsync(
+            ICoordinates from,
+            ICoordinates to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitToPerProvider,
+            Boolean includeGeoPaths,
+            Function<String, String> serviceTokenGetter,
+            Duration deadline,
+            Consumer<List<Option>> onProviderResult
+    ) {
+        var futures = fetchOptions(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitToPerProvider, includeGeoPaths, serviceTokenGetter);
+        return collectAsync(futures, deadline, onProviderResult);
+    }
+
+    /**
+     * Queries all providers that support the {@link IOptionsApi} (Options-API)
+     * for options, using the given criteria, and streams the options to
+     * {@link onOption} one by one while the responses are still being
+     * received. Responses are never buffered completely, which keeps the heap
+     * usage low for large responses, e.g. with {@link includeGeoPaths}.
+     * Providers supporting newline delimited JSON send each option as soon as
+     * they produced it, so the first options arrive before a provider is done.
+     * <p>
+     * Reading the response of a provider stops as soon as
+     * {@link limitToPerProvider} options of it were received. Reading all
+     * responses stops as soon as {@link limitTotal} options were received
+     * overall or the {@link deadline} is reached. The calls of
+     * {@link onOption} are serialized, so the consumer does not need to be
+     * thread safe. A limit of 0 delivers no options at all.
+     * <p>
+     * Each provider is given its adaptive timeout (see
+     * {@link ProviderHealth#getTimeout()}), but no more than {@link deadline}.
+     * Options a provider sends after its timeout are dropped.
+     * <p>
+     * The {@link OptionsCache} is not used by this method.
+     *
+     * @param from
+     * @param to
+     * @param startTime
+     * @param endTime
+     * @param radiusMeter
+     * @param sharingAllowed
+     * @param modesAllowed
+     * @param limitToPerProvider
+     * @param includeGeoPaths
+     * @param serviceTokenGetter A function that allows getting a ready-to-use
+     * token for a given service id. The argument of the function is the service
+     * id for which this function should return a token. The function can also
+     * simply return {@code null} if no token is required.
+     * @param limitTotal An optional maximum number of options to receive over
+     * all providers.
+     * @param deadline An optional maximum duration to wait for providers. If
+     * {@code null}, all providers are awaited.
+     * @param onOption Receives the options.
+     * @return A future that completes when all providers responded, the total
+     * limit or the deadline is reached.
+     */
+    public CompletableFuture<Void> streamOptions(
+            ICoordinates from,
+            ICoordinates to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitToPerProvider,
+            Boolean includeGeoPaths,
+            Function<String, String> serviceTokenGetter,
+            Integer limitTotal,
+            Duration deadline,
+            Consumer<Option> onOption
+    ) {
+        if ((limitTotal != null && limitTotal <= 0) || (limitToPerProvider != null && limitToPerProvider <= 0)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        var tokenGetter = serviceTokenGetter == null ? DEFAULT_TOKEN_GETTER : serviceTokenGetter;
+        var result = new CompletableFuture<Void>();
+        var closed = new AtomicBoolean(false);
+        var remaining = new AtomicInteger(limitTotal == null ? Integer.MAX_VALUE : limitTotal);
+
+        Predicate<Option> sink = option -> {
+            synchronized (closed) {
+                if (closed.get() || remaining.get() <= 0) {
+                    return false;
+                }
+
+                try {
+                    onOption.accept(option);
+                } catch (RuntimeException ex) {
+                    // Must not be mistaken for a failure of the provider.
+                    logger.warn("Exception occured while handling a streamed option.", ex);
+                }
+
+                if (remaining.decrementAndGet() <= 0) {
+                    closed.set(true);
+                    result.complete(null);
+                    return false;
+                }
+
+                return true;
+            }
+        };
+
+        var futures = getProviders(modesAllowed, Set.of(OPTIONS_API))
+                .filter(servesArea(BoundingBox.around(radiusMeter == null ? 0 : radiusMeter, from, to)))
+                .map(p -> {
+                    var token = tokenGetter.apply(p.getServiceId());
+                    var request = createGetOptionsRequest(p, from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitToPerProvider, includeGeoPaths, token);
+                    var received = new AtomicInteger();
+                    // Set when the task was abandoned, which keeps running until it returns.
+                    var abandoned = new AtomicBoolean(false);
+
+                    Predicate<Option> providerSink = option -> !abandoned.get()
+                            && (limitToPerProvider == null || received.get() < limitToPerProvider)
+                            && sink.test(option)
+                            && (limitToPerProvider == null || received.incrementAndGet() < limitToPerProvider);
+
+                    var timeout = p.getHealth().getTimeout();
+
+                    if (deadline != null && deadline.compareTo(timeout) < 0) {
+                        timeout = deadline;
+                    }
+
+                    return requestExecutor.submit(p.getServiceId(), () -> p.sendStreaming(request, token, Option.class, providerSink, streamReader), timeout)
+                            .exceptionally(ex -> {
+                                abandoned.set(true);
+                                var cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+                                if (cause instanceof TimeoutException) {
+                                    metrics.recordTimeout(p.getServiceId());
+                                }
+
+                                logger.trace("Streaming options from service {} failed: {}", p.getServiceId(), ex.getMessage());
+                                return 0;
+                            });
+                })
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).whenComplete((v, ex) -> result.complete(null));
+
+        if (deadline != null) {
+            result.completeOnTimeout(null, deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        return result.whenComplete((v, ex) -> {
+            synchronized (closed) {
+                closed.set(true);
+            }
+        });
     }
 
     /**
@@ -374,16 +894,61 @@ public class MiddlewareService {
     public Stream<Booking> getBookings(
             Set<String> serviceIds,
             Function<String, String> serviceTokenGetter
+    ) {
+        return collectInParallel(fetchBookings(serviceIds, serviceTokenGetter));
+    }
+
+    /**
+     * Submits get-bookings requests to all providers with the given service
+     * ids that support the Booking-API. The requests are sent as conditional
+     * requests, see
+     * {@link ProviderProxy#sendConditional(MiddlewareRequest, String)}.
+     */
+    private List<CompletableFuture<List<Booking>>> fetchBookings(
+            Set<String> serviceIds,
+            Function<String, String> serviceTokenGetter
     ) {
         var tokenGetter = serviceTokenGetter == null ? DEFAULT_TOKEN_GETTER : serviceTokenGetter;
 
-        var requests = getProviders(serviceIds)
+        return getProviders(serviceIds)
                 .filter(p -> p.supportsApi(BOOKING_API))
-                .map(p -> p.createGetBookingsRequest(tokenGetter.apply(p.getServiceId())))
-                .peek(r -> r.callRequestAdapters())
+                .map(p -> {
+                    var token = tokenGetter.apply(p.getServiceId());
+                    var request = p.createGetBookingsRequest(token);
+                    request.callRequestAdapters();
+
+                    return submitRequest(p, request, () -> p.sendConditional(request, token));
+                })
                 .collect(toList());
+    }
 
-        return sendRequestsInParallel(requests);
+    /**
+     * Queries all providers that support the {@link IBookingApi} (Booking-API)
+     * for bookings, without blocking the calling thread.
+     * <p>
+     * The bookings of each provider are passed to {@link onProviderResult} as
+     * soon as the response of that provider arrived. Responses arriving after
+     * the given {@link deadline} are dropped.
+     *
+     * @param serviceIds
+     * @param serviceTokenGetter A function that allows getting a ready-to-use
+     * token for a given service id. The argument of the function is the service
+     * id for which this function should return a token. The function can also
+     * simply return {@code null} if no token is required.
+     * @param deadline An optional maximum duration to wait for providers. If
+     * {@code null}, all providers are awaited.
+     * @param onProviderResult Receives the result list of each provider. Calls
+     * to this consumer are serialized.
+     * @return A future that completes when all providers responded or the
+     * deadline is reached.
+     */
+    public CompletableFuture<Void> getBookingsAsync(
+            Set<String> serviceIds,
+            Function<String, String> serviceTokenGetter,
+            Duration deadline,
+            Consumer<List<Booking>> onProviderResult
+    ) {
+        return collectAsync(fetchBookings(serviceIds, serviceTokenGetter), deadline, onProviderResult);
     }
 
     /**
@@ -415,4 +980,71 @@ public class MiddlewareService {
         return getBookings(tokenMap.keySet(), tokenMap::get);
     }
 
+    /**
+     * Subscribes to the booking events of the provider with the given service
+     * id, which notify about state changes of the bookings of the user
+     * represented by {@link token}. This replaces polling the bookings for
+     * changes. See {@link BookingEventReader} for details.
+     * <p>
+     * Events published while the subscription reconnects are not received.
+     * Use {@link ProviderProxy#getBookings(String)} after
+     * {@link BookingEventSubscription#isConnected()} became {@code true} again
+     * if no change may be missed.
+     *
+     * @param serviceId
+     * @param token A token that identifies and authenticates the user whose
+     * bookings are of interest.
+     * @param listener Receives the events. Should return quickly.
+     * @return The subscription, which must be closed if no longer needed, or
+     * {@code null} if the provider is unknown or does not support the
+     * Booking-API.
+     */
+    public BookingEventSubscription subscribeBookingEvents(
+            String serviceId,
+            String token,
+            Consumer<BookingEvent> listener
+    ) {
+        var provider = getProvider(serviceId);
+
+        if (provider == null || !provider.supportsApi(BOOKING_API)) {
+            return null;
+        }
+
+        return bookingEventReader.subscribe(provider, token, listener);
+    }
+
+    /**
+     * Subscribes to the booking events of all providers with the given service
+     * ids that support the {@link IBookingApi} (Booking-API). See
+     * {@link #subscribeBookingEvents(String, String, Consumer)}.
+     *
+     * @param serviceIds
+     * @param serviceTokenGetter A function that allows getting a ready-to-use
+     * token for a given service id. The argument of the function is the service
+     * id for which this function should return a token. The function can also
+     * simply return {@code null} if no token is required.
+     * @param listener Receives the events of all providers. Calls to this
+     * consumer are serialized.
+     * @return The subscriptions, which must be closed if no longer needed.
+     */
+    public List<BookingEventSubscription> subscribeBookingEvents(
+            Set<String> serviceIds,
+            Function<String, String> serviceTokenGetter,
+            Consumer<BookingEvent> listener
+    ) {
+        var tokenGetter = serviceTokenGetter == null ? DEFAULT_TOKEN_GETTER : serviceTokenGetter;
+        var lock = new Object();
+
+        Consumer<BookingEvent> serialized = event -> {
+            synchronized (lock) {
+                listener.accept(event);
+            }
+        };
+
+        return getProviders(serviceIds)
+                .filter(p -> p.supportsApi(BOOKING_API))
+                .map(p -> bookingEventReader.subscribe(p, tokenGetter.apply(p.getServiceId()), serialized))
+                .collect(toList());
+    }
+
 }
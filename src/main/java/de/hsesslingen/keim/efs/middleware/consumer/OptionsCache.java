@@ -0,0 +1,253 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.middleware.utils.Cache;
+import static de.hsesslingen.keim.efs.middleware.utils.QuantizationUtils.quantize;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import static java.util.Collections.unmodifiableList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caches the options returned by single providers, so that repeated searches
+ * with (nearly) identical parameters do not hit the providers again.
+ * <p>
+ * The cache keys quantize the coordinates to a grid with an edge length of
+ * {@code middleware.consumer.options-cache.cell-meters} and the start and end
+ * time to buckets of {@code middleware.consumer.options-cache.time-bucket}.
+ * Entries expire after the TTL of their provider, which defaults to
+ * {@code middleware.consumer.options-cache.ttl} and can be overridden per
+ * provider using
+ * {@code middleware.consumer.options-cache.provider-ttl.<serviceId>}, or
+ * earlier, when the first of the cached options is no longer valid (see
+ * {@link Option#getValidUntil()}).
+ * <p>
+ * The number of entries is limited by
+ * {@code middleware.consumer.options-cache.max-size}. If exceeded, the least
+ * recently used entries are evicted.
+ * <p>
+ * The cache is disabled by default and can be enabled using
+ * {@code middleware.consumer.options-cache.enabled}.
+ *
+ * @author keim
+ */
+@Service
+@Lazy
+public class OptionsCache {
+
+    private static final String PROVIDER_TTL_PREFIX = "middleware.consumer.options-cache.provider-ttl.";
+
+    @Value("${middleware.consumer.options-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${middleware.consumer.options-cache.cell-meters:100}")
+    private double cellMeters;
+
+    @Value("${middleware.consumer.options-cache.time-bucket:1m}")
+    private Duration timeBucket;
+
+    @Value("${middleware.consumer.options-cache.ttl:30s}")
+    private Duration defaultTtl;
+
+    @Value("${middleware.consumer.options-cache.max-size:10000}")
+    private int maxSize;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ConsumerMetrics metrics;
+
+    private final Map<String, Duration> providerTtls = new ConcurrentHashMap<>();
+
+    private Cache<Object, List<Option>> cache;
+
+    @PostConstruct
+    private void init() {
+        cache = new Cache<>(defaultTtl, maxSize);
+
+        if (enabled) {
+            var registry = metrics.getRegistry();
+            Gauge.builder("efs.consumer.options-cache.size", this, OptionsCache::size)
+                    .register(registry);
+            FunctionCounter.builder("efs.consumer.options-cache.hits", this, OptionsCache::getHitCount)
+                    .register(registry);
+            FunctionCounter.builder("efs.consumer.options-cache.misses", this, OptionsCache::getMissCount)
+                    .register(registry);
+            FunctionCounter.builder("efs.consumer.options-cache.evictions", this, OptionsCache::getEvictionCount)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Whether the cache is enabled.
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Creates a cache key for an options request to the given provider.
+     * Parameters that are not quantized must match exactly. The token is part
+     * of the key, because options may depend on the user.
+     *
+     * @param serviceId
+     * @param from
+     * @param to
+     * @param startTime
+     * @param endTime
+     * @param radiusMeter
+     * @param sharingAllowed
+     * @param modesAllowed
+     * @param limitTo
+     * @param includeGeoPaths
+     * @param token
+     * @return
+     */
+    public Object createKey(
+            String serviceId,
+            ICoordinates from,
+            ICoordinates to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            String token
+    ) {
+        return Arrays.asList(
+                serviceId,
+                quantize(from, cellMeters),
+                quantize(to, cellMeters),
+                quantize(startTime, timeBucket),
+                quantize(endTime, timeBucket),
+                radiusMeter,
+                sharingAllowed,
+                modesAllowed == null ? null : new TreeSet<>(modesAllowed),
+                limitTo,
+                includeGeoPaths,
+                token
+        );
+    }
+
+    /**
+     * Gets the cached options for the given key. The returned list is
+     * unmodifiable and shared between all callers, so its elements must not be
+     * modified either.
+     *
+     * @param key
+     * @return The options or {@code null} if there are none or they expired.
+     */
+    public List<Option> get(Object key) {
+        return cache.get(key).orElse(null);
+    }
+
+    /**
+     * Stores the given options of the given provider under the given key.
+     * Nothing is stored if any of the options is already invalid.
+     *
+     * @param serviceId
+     * @param key
+     * @param options
+     */
+    public void put(String serviceId, Object key, List<Option> options) {
+        if (options == null) {
+            return;
+        }
+
+        long ttlMillis = getTtl(serviceId).toMillis();
+
+        var now = ZonedDateTime.now();
+        for (var option : options) {
+            if (option != null && option.getValidUntil() != null) {
+                ttlMillis = Math.min(ttlMillis, Duration.between(now, option.getValidUntil()).toMillis());
+            }
+        }
+
+        if (ttlMillis <= 0) {
+            return;
+        }
+
+        cache.set(key, unmodifiableList(new ArrayList<>(options)), Duration.ofMillis(ttlMillis));
+    }
+
+    /**
+     * Gets the TTL of entries of the given provider.
+     *
+     * @param serviceId
+     * @return
+     */
+    public Duration getTtl(String serviceId) {
+        return providerTtls.computeIfAbsent(serviceId, id -> Objects.requireNonNullElse(
+                environment.getProperty(PROVIDER_TTL_PREFIX + id, Duration.class),
+                defaultTtl
+        ));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+}
@@ -24,27 +24,66 @@
 package de.hsesslingen.keim.efs.middleware.consumer;
 
 import static de.hsesslingen.keim.efs.middleware.consumer.ServiceDirectoryProxy.buildGetAllRequest;
+import de.hsesslingen.keim.efs.middleware.model.BoundingBox;
 import de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequestTemplate;
 import de.hsesslingen.keim.efs.mobility.service.MobilityService;
+import de.hsesslingen.keim.efs.mobility.service.MobilityService.API;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import io.micrometer.core.instrument.Gauge;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import static java.util.Collections.unmodifiableCollection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import static java.util.stream.Collectors.toMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import static org.slf4j.LoggerFactory.getLogger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 /**
+ * Caches the providers registered at the service directory.
+ * <p>
+ * The providers are held in a concurrent map, which is synchronized with the
+ * service directory incrementally: Refreshes are conditional requests using
+ * the {@code ETag} of the last response, so an unchanged directory costs
+ * neither a transfer nor deserialization. If the directory changed, only added,
+ * changed and removed services are applied to the map, unchanged providers
+ * keep their {@link ProviderProxy}. This makes short refresh intervals
+ * ({@code middleware.refresh-provider-cache-rate}) cheap.
+ * <p>
+ * Readers are never blocked by a refresh and always see the last known-good
+ * state. If a refresh fails or the service directory returns no services at
+ * all, the previous state is kept and the refresh is retried with exponential
+ * backoff, starting at
+ * {@code middleware.consumer.provider-cache.retry-initial-delay} and limited
+ * by {@code middleware.consumer.provider-cache.retry-max-delay}.
+ * <p>
+ * Only the very first access waits for the initial snapshot, for at most
+ * {@code middleware.consumer.provider-cache.initial-wait-timeout}. If the
+ * timeout elapses, an empty provider list is served until the first refresh
+ * succeeds.
  *
  * @author keim
  */
@@ -53,22 +92,73 @@ import org.springframework.stereotype.Service;
 @EnableScheduling
 public class ProviderCache {
 
-    private static final Logger logger = getLogger(MiddlewareService.class);
+    private static final Logger logger = getLogger(ProviderCache.class);
+
+    /**
+     * Marker returned by {@link #fetchAvailableProviders()} if the services did
+     * not change.
+     */
+    private static final List<MobilityService> NOT_MODIFIED = new ArrayList<>(0);
 
     @Value("${middleware.service-directory-url}")
     private String baseUrl;
 
+    @Value("${middleware.consumer.provider-cache.initial-wait-timeout:10s}")
+    private Duration initialWaitTimeout;
+
+    @Value("${middleware.consumer.provider-cache.retry-initial-delay:5s}")
+    private Duration retryInitialDelay;
+
+    @Value("${middleware.consumer.provider-cache.retry-max-delay:5m}")
+    private Duration retryMaxDelay;
+
     @Autowired
     private MiddlewareRequestTemplate rt;
 
-    private CompletableFuture<Map<String, ProviderProxy>> providersFuture = new CompletableFuture<>();
+    @Autowired
+    private ProviderHealthRegistry healthRegistry;
+
+    @Autowired
+    private ConsumerMetrics metrics;
+
+    private final Map<String, ProviderProxy> providers = new ConcurrentHashMap<>();
+    private volatile ProviderIndex index = ProviderIndex.EMPTY;
+    private volatile ServiceAreaIndex areaIndex = ServiceAreaIndex.EMPTY;
+    private volatile boolean loaded = false;
+    private volatile boolean initialWaitTimedOut = false;
+    private volatile String etag;
+    private volatile Instant lastRefresh;
+    private final CompletableFuture<Void> firstSnapshot = new CompletableFuture<>();
 
-    private synchronized CompletableFuture<Map<String, ProviderProxy>> getProvidersFuture() {
-        return providersFuture;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final AtomicBoolean retryScheduled = new AtomicBoolean(false);
+    private volatile Duration nextRetryDelay;
+
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "efs-provider-cache-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    private void registerMetrics() {
+        Gauge.builder("efs.consumer.providers", providers, Map::size)
+                .description("Number of cached providers.")
+                .register(metrics.getRegistry());
+        Gauge.builder("efs.consumer.providers.refresh-age", this, ProviderCache::refreshAgeSeconds)
+                .description("Time since the last successful refresh of the provider cache.")
+                .baseUnit("seconds")
+                .register(metrics.getRegistry());
     }
 
-    private synchronized void setProvidersFuture(CompletableFuture<Map<String, ProviderProxy>> providersFuture) {
-        this.providersFuture = providersFuture;
+    private double refreshAgeSeconds() {
+        var last = lastRefresh;
+        return last == null ? Double.NaN : Duration.between(last, Instant.now()).toMillis() / 1000.0;
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        retryExecutor.shutdownNow();
     }
 
     /**
@@ -77,31 +167,48 @@ public class ProviderCache {
      * ServiceDirectoryProxy because that one does not mark requests to the
      * service directory as internal.
      *
-     * @return
+     * If the services did not change since the last fetch, i.e. the service
+     * directory answers with {@code 304 Not Modified}, {@link NOT_MODIFIED} is
+     * returned.
+     *
+     * @return The services or {@code null} if the request failed.
      */
     private List<MobilityService> fetchAvailableProviders() {
         ResponseEntity<List<MobilityService>> response;
 
         try {
-            response = buildGetAllRequest(baseUrl, rt)
-                    .toInternal()
-                    .go();
+            var request = buildGetAllRequest(baseUrl, rt).toInternal();
+            var currentEtag = etag;
+
+            if (currentEtag != null && loaded) {
+                request.header(HttpHeaders.IF_NONE_MATCH, currentEtag);
+            }
+
+            response = request.go();
         } catch (Exception ex) {
-            return List.of();
+            logger.warn("Fetching services from service-directory failed: {}", ex.getMessage());
+            return null;
         }
 
         if (response == null) {
             logger.warn("Services request returned \"null\" as response. This must be some kind of error.");
-            return List.of();
+            return null;
+        }
+
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            return NOT_MODIFIED;
         }
 
         var list = response.getBody();
 
         if (list == null) {
             logger.warn("The retunred services list from ServiceDirectory is \"null\".");
-            return List.of();
+            return null;
         }
 
+        // Remember the version only now, after the response was found usable.
+        etag = response.getHeaders().getETag();
+
         return list;
     }
 
@@ -123,45 +230,172 @@ public class ProviderCache {
 
     /**
      * Refreshes the cached providers by querying the service directory again.
+     * Concurrent calls are skipped while a refresh is running.
      */
     @Scheduled(
             initialDelayString = "${middleware.refresh-provider-cache-initial-delay:0}",
             fixedRateString = "${middleware.refresh-provider-cache-rate:86400000}"
     )
     public void refreshAvailableProviders() {
-        logger.info("Refreshing available services from service-directory.");
+        if (!refreshing.compareAndSet(false, true)) {
+            logger.debug("Refresh of available services is already running.");
+            return;
+        }
+
+        try {
+            logger.debug("Refreshing available services from service-directory.");
+
+            var all = fetchAvailableProviders();
+
+            if (all == NOT_MODIFIED) {
+                logger.debug("Available services did not change.");
+                lastRefresh = Instant.now();
+                nextRetryDelay = null;
+                return;
+            }
+
+            if (all == null || (all.isEmpty() && !providers.isEmpty())) {
+                logger.warn("Keeping the previous {} services. Refresh failed or returned no services.", providers.size());
+                // Make sure the next attempt transfers the full list again.
+                etag = null;
+                scheduleRetry();
+                return;
+            }
+
+            applyServices(all);
+            loaded = true;
+            lastRefresh = Instant.now();
+
+            if (all.isEmpty()) {
+                // Could be a glitch of the service directory, so check again soon.
+                scheduleRetry();
+            } else {
+                nextRetryDelay = null;
+            }
+
+            firstSnapshot.complete(null);
+            logger.debug("Done refreshing available services.");
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Applies the given complete list of services to the provider map in
+     * place. Providers of unchanged services are kept, changed services get a
+     * new {@link ProviderProxy} and services that are no longer listed are
+     * removed.
+     *
+     * @param services
+     */
+    private void applyServices(List<MobilityService> services) {
+        var ids = new HashSet<String>();
+        int added = 0, changed = 0;
+
+        for (var service : services) {
+            if (service == null || service.getId() == null) {
+                continue;
+            }
 
-        var all = fetchAvailableProviders();
-        var services = all.stream()
-                // Sanitize invalid services to prevent null pointers and other stuff.
-                .peek(this::sanitizeMobilityService)
-                .map(s -> new ProviderProxy(s, rt))
-                .collect(toMap(p -> p.getServiceId(), p -> p));
+            // Sanitize invalid services to prevent null pointers and other stuff.
+            sanitizeMobilityService(service);
+            ids.add(service.getId());
 
-        if (providersFuture.isDone()) {
-            setProvidersFuture(new CompletableFuture<>());
+            var existing = providers.get(service.getId());
+
+            if (existing != null && existing.getService().equals(service)) {
+                continue;
+            }
+
+            providers.put(service.getId(), new ProviderProxy(service, rt, healthRegistry.get(service.getId()), metrics));
+
+            if (existing == null) {
+                added++;
+            } else {
+                changed++;
+            }
+        }
+
+        int sizeBefore = providers.size();
+        providers.keySet().retainAll(ids);
+        int removed = sizeBefore - providers.size();
+
+        if (added + changed + removed > 0 || index == ProviderIndex.EMPTY) {
+            index = new ProviderIndex(providers.values());
+            areaIndex = new ServiceAreaIndex(providers.values());
         }
 
-        providersFuture.complete(services);
-        logger.debug("Done refreshing available services.");
+        logger.info("Applied service-directory changes: {} added, {} changed, {} removed.", added, changed, removed);
     }
 
     /**
-     * Retrieves the current provider map from the future. This function is
-     * private because the users of {@link ProviderCache} are not supposed to
-     * mutate the map collection.
+     * Schedules another refresh with exponential backoff, unless one is already
+     * scheduled.
+     */
+    private void scheduleRetry() {
+        if (!retryScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        var delay = nextRetryDelay == null ? retryInitialDelay : nextRetryDelay;
+        var doubled = delay.multipliedBy(2);
+        nextRetryDelay = doubled.compareTo(retryMaxDelay) > 0 ? retryMaxDelay : doubled;
+
+        logger.info("Retrying to refresh available services in {}.", delay);
+
+        retryExecutor.schedule(() -> {
+            retryScheduled.set(false);
+            refreshAvailableProviders();
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Retrieves the current provider map. This function is private because the
+     * users of {@link ProviderCache} are not supposed to mutate the map
+     * collection.
      *
      * @return
      */
     private Map<String, ProviderProxy> getProvidersMap() {
+        awaitInitialLoad();
+        return providers;
+    }
+
+    /**
+     * Waits until the providers were loaded for the first time, for at most the
+     * configured initial wait timeout. Returns immediately afterwards, also if
+     * the first wait timed out, so that callers are not blocked repeatedly while
+     * the service directory is unavailable.
+     */
+    private void awaitInitialLoad() {
+        if (loaded || initialWaitTimedOut) {
+            return;
+        }
+
         try {
-            return getProvidersFuture().get();
-        } catch (InterruptedException | ExecutionException ex) {
+            firstSnapshot.get(initialWaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
             logger.warn("Thread got interrupted while waiting for services to be retrieved.");
-            return getProvidersMap();
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException ex) {
+            if (!initialWaitTimedOut) {
+                initialWaitTimedOut = true;
+                logger.warn("Services could not be retrieved within {}. Serving no services for now.", initialWaitTimeout);
+            }
+        } catch (ExecutionException ex) {
+            // Never completed exceptionally.
         }
     }
 
+    /**
+     * Gets the point in time of the last successful refresh.
+     *
+     * @return The point in time or {@code null} if there was none yet.
+     */
+    public Instant getLastRefresh() {
+        return lastRefresh;
+    }
+
     /**
      * Gets a particular {@link ProviderProxy} by its service id.
      *
@@ -181,4 +415,34 @@ public class ProviderCache {
         return unmodifiableCollection(getProvidersMap().values());
     }
 
+    /**
+     * Gets the cached providers that support any of the given modes and all of
+     * the given APIs, using a precomputed {@link ProviderIndex}. A {@code null}
+     * or empty set does not constrain the result.
+     *
+     * @param anyOfTheseModesSupported
+     * @param allOfTheseApisSupported
+     * @return
+     */
+    public Stream<ProviderProxy> getProviders(
+            Set<Mode> anyOfTheseModesSupported,
+            Set<API> allOfTheseApisSupported
+    ) {
+        awaitInitialLoad();
+        return index.find(anyOfTheseModesSupported, allOfTheseApisSupported);
+    }
+
+    /**
+     * Gets the service ids of the cached providers whose service area
+     * intersects the given area. Providers that do not declare a service area
+     * are always included. See {@link ServiceAreaIndex}.
+     *
+     * @param area
+     * @return
+     */
+    public Set<String> getServiceIdsInArea(BoundingBox area) {
+        awaitInitialLoad();
+        return areaIndex.find(area);
+    }
+
 }
@@ -0,0 +1,272 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Tracks the health of a single provider. Combines a circuit breaker with a
+ * {@link LatencyHistogram}, from which an adaptive timeout for requests to the
+ * provider is derived.
+ * <p>
+ * The circuit breaker has three states:
+ * <ul>
+ * <li>{@link State#CLOSED}: Requests are sent. After a configured number of
+ * consecutive failures, the circuit opens.</li>
+ * <li>{@link State#OPEN}: No requests are sent until the open duration has
+ * elapsed.</li>
+ * <li>{@link State#HALF_OPEN}: A single probe request is let through. If it
+ * succeeds, the circuit closes, otherwise it opens again.</li>
+ * </ul>
+ * <p>
+ * Each request is identified by the permit returned by {@link #tryAcquire()}.
+ * Completions of requests that were permitted before the circuit opened or
+ * before the current probe was let through are only recorded as latency
+ * samples, but do not change the state of the circuit. This way, a late
+ * response to an old request can neither close an open circuit nor free the
+ * probe slot while the probe is still running.
+ *
+ * @author keim
+ */
+public class ProviderHealth {
+
+    private static final Logger logger = getLogger(ProviderHealth.class);
+
+    /**
+     * Returned by {@link #tryAcquire()} if no request may be sent.
+     */
+    public static final long NOT_PERMITTED = -1;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String serviceId;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final double timeoutFactor;
+    private final Duration minTimeout;
+    private final Duration maxTimeout;
+    private final long minSamples;
+
+    private final LatencyHistogram histogram;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    /**
+     * Incremented whenever the circuit opens and whenever a probe is let
+     * through. Permits of older generations are stale. Only modified while
+     * holding the lock of this object.
+     */
+    private volatile long generation;
+
+    /**
+     * The permit of the running probe or {@link #NOT_PERMITTED}. Guarded by
+     * {@code this}.
+     */
+    private long probe = NOT_PERMITTED;
+
+    public ProviderHealth(
+            String serviceId,
+            int failureThreshold,
+            Duration openDuration,
+            double timeoutFactor,
+            Duration minTimeout,
+            Duration maxTimeout,
+            long minSamples,
+            Duration histogramWindow
+    ) {
+        this.serviceId = serviceId;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.timeoutFactor = timeoutFactor;
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+        this.minSamples = minSamples;
+        this.histogram = new LatencyHistogram(histogramWindow.toMillis());
+    }
+
+    /**
+     * Creates a health with the same default settings as used by
+     * {@link ProviderHealthRegistry} if nothing is configured.
+     *
+     * @param serviceId
+     * @return
+     */
+    public static ProviderHealth withDefaults(String serviceId) {
+        return new ProviderHealth(serviceId,
+                5, Duration.ofSeconds(30), 2.0, Duration.ofMillis(500),
+                Duration.ofSeconds(10), 20, Duration.ofMinutes(5)
+        );
+    }
+
+    /**
+     * Gets the current state of the circuit breaker. An open circuit whose open
+     * duration has elapsed is reported as {@link State#HALF_OPEN}.
+     *
+     * @return
+     */
+    public State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Checks whether requests may currently be sent to this provider. In
+     * contrast to {@link #tryAcquire()} this does not claim the probe request
+     * of a half-open circuit.
+     *
+     * @return
+     */
+    public boolean isCallPermitted() {
+        var current = getState();
+        if (current == State.CLOSED) {
+            return true;
+        }
+
+        synchronized (this) {
+            return current == State.HALF_OPEN && probe == NOT_PERMITTED;
+        }
+    }
+
+    /**
+     * Claims the permission to send a request. If a permit is returned, it
+     * must be passed to either {@link #onSuccess(long, long)} or
+     * {@link #onFailure(long, long)} when the request completed.
+     *
+     * @return The permit or {@link #NOT_PERMITTED}.
+     */
+    public long tryAcquire() {
+        switch (getState()) {
+            case CLOSED:
+                return generation;
+            case HALF_OPEN:
+                synchronized (this) {
+                    if (probe == NOT_PERMITTED && getState() == State.HALF_OPEN) {
+                        probe = ++generation;
+                        state = State.HALF_OPEN;
+                        return probe;
+                    }
+                }
+                return NOT_PERMITTED;
+            default:
+                return NOT_PERMITTED;
+        }
+    }
+
+    /**
+     * Records a successful request with the given duration.
+     *
+     * @param permit The permit the request was sent with.
+     * @param millis
+     */
+    public void onSuccess(long permit, long millis) {
+        histogram.record(millis);
+
+        if (permit != generation) {
+            // Sent before the circuit opened, says nothing about its current state.
+            return;
+        }
+
+        if (state == State.CLOSED) {
+            consecutiveFailures.set(0);
+            return;
+        }
+
+        synchronized (this) {
+            if (permit == probe) {
+                logger.info("Circuit breaker of service {} is closed again.", serviceId);
+                consecutiveFailures.set(0);
+                probe = NOT_PERMITTED;
+                state = State.CLOSED;
+            }
+        }
+    }
+
+    /**
+     * Records a failed request with the given duration.
+     *
+     * @param permit The permit the request was sent with.
+     * @param millis
+     */
+    public void onFailure(long permit, long millis) {
+        histogram.record(millis);
+
+        if (permit != generation) {
+            // Sent before the circuit opened, says nothing about its current state.
+            return;
+        }
+
+        synchronized (this) {
+            if (permit != generation) {
+                return;
+            }
+
+            if (permit == probe || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                if (state != State.OPEN) {
+                    logger.warn("Opening circuit breaker of service {} after {} consecutive failures.", serviceId, consecutiveFailures.get());
+                }
+                openedAt = System.nanoTime();
+                generation++;
+                probe = NOT_PERMITTED;
+                state = State.OPEN;
+            }
+        }
+    }
+
+    /**
+     * Gets the timeout that should be applied to requests to this provider. It
+     * is the p99 latency of this provider multiplied with the configured factor,
+     * limited by the configured minimum and maximum. As long as there are not
+     * enough samples, the maximum is used.
+     *
+     * @return
+     */
+    public Duration getTimeout() {
+        if (histogram.getCount() < minSamples) {
+            return maxTimeout;
+        }
+
+        long millis = (long) (histogram.getPercentile(0.99) * timeoutFactor);
+        millis = Math.max(millis, minTimeout.toMillis());
+        millis = Math.min(millis, maxTimeout.toMillis());
+
+        return Duration.ofMillis(millis);
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+/**
+ * Holds one {@link ProviderHealth} per service id. Because the health is kept
+ * here and not in the {@link ProviderProxy} itself, it survives refreshes of
+ * the {@link ProviderCache}.
+ *
+ * @author keim
+ */
+@Service
+@Lazy
+public class ProviderHealthRegistry {
+
+    @Value("${middleware.consumer.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${middleware.consumer.circuit-breaker.open-duration:30s}")
+    private Duration openDuration;
+
+    @Value("${middleware.consumer.circuit-breaker.timeout-factor:2.0}")
+    private double timeoutFactor;
+
+    @Value("${middleware.consumer.circuit-breaker.min-timeout:500ms}")
+    private Duration minTimeout;
+
+    @Value("${middleware.consumer.circuit-breaker.max-timeout:10s}")
+    private Duration maxTimeout;
+
+    @Value("${middleware.consumer.circuit-breaker.min-samples:20}")
+    private long minSamples;
+
+    @Value("${middleware.consumer.circuit-breaker.histogram-window:5m}")
+    private Duration histogramWindow;
+
+    private final Map<String, ProviderHealth> healths = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the health of the provider with the given service id, creating it
+     * if necessary.
+     *
+     * @param serviceId
+     * @return
+     */
+    public ProviderHealth get(String serviceId) {
+        return healths.computeIfAbsent(serviceId, id -> new ProviderHealth(
+                id, failureThreshold, openDuration, timeoutFactor,
+                minTimeout, maxTimeout, minSamples, histogramWindow
+        ));
+    }
+
+    /**
+     * Gets the health of all providers known so far.
+     *
+     * @return
+     */
+    public Map<String, ProviderHealth> getAll() {
+        return Map.copyOf(healths);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import de.hsesslingen.keim.efs.mobility.service.MobilityService.API;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * An immutable index of providers by their supported {@link Mode}s and
+ * {@link API}s. Each mode and API maps to a bit set of provider positions, so
+ * that finding the providers matching a query is an intersection of bit sets
+ * instead of a scan over all providers with set operations.
+ * <p>
+ * The index is rebuilt by {@link ProviderCache} whenever the providers change.
+ *
+ * @author keim
+ */
+public class ProviderIndex {
+
+    public static final ProviderIndex EMPTY = new ProviderIndex(Set.of());
+
+    private final ProviderProxy[] providers;
+    private final Map<Mode, BitSet> byMode = new EnumMap<>(Mode.class);
+    private final Map<API, BitSet> byApi = new EnumMap<>(API.class);
+
+    public ProviderIndex(Collection<ProviderProxy> providers) {
+        this.providers = providers.toArray(ProviderProxy[]::new);
+
+        for (int i = 0; i < this.providers.length; i++) {
+            var service = this.providers[i].getService();
+
+            for (var mode : service.getModes()) {
+                byMode.computeIfAbsent(mode, m -> new BitSet(this.providers.length)).set(i);
+            }
+            for (var api : service.getApis()) {
+                byApi.computeIfAbsent(api, a -> new BitSet(this.providers.length)).set(i);
+            }
+        }
+    }
+
+    /**
+     * Finds the providers that support any of the given modes and all of the
+     * given APIs. A {@code null} or empty set does not constrain the result.
+     *
+     * @param anyOfTheseModesSupported
+     * @param allOfTheseApisSupported
+     * @return
+     */
+    public Stream<ProviderProxy> find(
+            Set<Mode> anyOfTheseModesSupported,
+            Set<API> allOfTheseApisSupported
+    ) {
+        var result = new BitSet(providers.length);
+        result.set(0, providers.length);
+
+        if (allOfTheseApisSupported != null) {
+            for (var api : allOfTheseApisSupported) {
+                var matching = byApi.get(api);
+                if (matching == null) {
+                    return Stream.empty();
+                }
+                result.and(matching);
+            }
+        }
+
+        if (anyOfTheseModesSupported != null && !anyOfTheseModesSupported.isEmpty()) {
+            var anyMode = new BitSet(providers.length);
+            for (var mode : anyOfTheseModesSupported) {
+                var matching = byMode.get(mode);
+                if (matching != null) {
+                    anyMode.or(matching);
+                }
+            }
+            result.and(anyMode);
+        }
+
+        return result.stream().mapToObj(i -> providers[i]);
+    }
+
+    public int size() {
+        return providers.length;
+    }
+}
@@ -28,6 +28,7 @@ import de.hsesslingen.keim.efs.middleware.model.Booking;
 import de.hsesslingen.keim.efs.middleware.model.BookingAction;
 import de.hsesslingen.keim.efs.middleware.model.BookingState;
 import de.hsesslingen.keim.efs.middleware.model.Customer;
+import de.hsesslingen.keim.efs.middleware.model.GeoPathEncoding;
 import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
 import de.hsesslingen.keim.efs.middleware.model.Leg;
 import de.hsesslingen.keim.efs.middleware.model.NewBooking;
@@ -52,13 +53,26 @@ import de.hsesslingen.keim.efs.middleware.provider.IPlacesApi;
 import de.hsesslingen.keim.efs.middleware.provider.IUsersApi;
 import de.hsesslingen.keim.efs.middleware.provider.credentials.TokenCredentials;
 import de.hsesslingen.keim.efs.middleware.provider.credentials.UserDetails;
+import de.hsesslingen.keim.efs.middleware.config.RequestTimeouts;
+import de.hsesslingen.keim.efs.middleware.utils.Cache;
 import de.hsesslingen.keim.efs.middleware.utils.FlexibleZonedDateTimeParser;
 import de.hsesslingen.keim.efs.mobility.service.Mode;
 import de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequestTemplate;
+import java.io.Serializable;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import de.hsesslingen.keim.efs.middleware.provider.ITokensApi;
+import org.apache.commons.lang3.SerializationUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.util.UriComponentsBuilder;
 
 /**
  *
@@ -66,12 +80,61 @@ import de.hsesslingen.keim.efs.middleware.provider.ITokensApi;
  */
 public class ProviderProxy {
 
+    /**
+     * How long the last response to a conditional request is kept, see
+     * {@link #sendConditional(MiddlewareRequest, String)}.
+     */
+    private static final Duration LAST_RESPONSES_EXPIRY = Duration.ofMinutes(10);
+    private static final long LAST_RESPONSES_MAX_SIZE = 1000;
+
     private final MobilityService service;
     private final MiddlewareRequestTemplate requestTemplate;
+    private final ProviderHealth health;
+    private final ConsumerMetrics metrics;
+    private final int basePathSegments;
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final Cache<String, TaggedBody> lastResponses = new Cache<>(LAST_RESPONSES_EXPIRY, LAST_RESPONSES_MAX_SIZE);
+
+    /**
+     * The serialized body of a response together with its {@code ETag}. The
+     * body is kept serialized, so that every caller receives a fresh instance
+     * of it.
+     */
+    private static class TaggedBody {
+
+        private final String etag;
+        private final byte[] body;
+
+        private TaggedBody(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
 
     public ProviderProxy(MobilityService service, MiddlewareRequestTemplate requestTemplate) {
+        this(service, requestTemplate, ProviderHealth.withDefaults(service.getId()));
+    }
+
+    public ProviderProxy(MobilityService service, MiddlewareRequestTemplate requestTemplate, ProviderHealth health) {
+        this(service, requestTemplate, health, null);
+    }
+
+    /**
+     * Creates a proxy that records its requests in the given
+     * {@link ConsumerMetrics}.
+     *
+     * @param service
+     * @param requestTemplate
+     * @param health
+     * @param metrics May be {@code null}, which disables recording of
+     * metrics.
+     */
+    public ProviderProxy(MobilityService service, MiddlewareRequestTemplate requestTemplate, ProviderHealth health, ConsumerMetrics metrics) {
         this.service = service;
         this.requestTemplate = requestTemplate;
+        this.health = health;
+        this.metrics = metrics;
+        this.basePathSegments = metrics == null ? 0 : pathSegmentsOf(service.getServiceUrl()).size();
     }
 
     /**
@@ -95,6 +158,286 @@ public class ProviderProxy {
         return service;
     }
 
+    /**
+     * Get the health of this provider, which contains its circuit breaker and
+     * latency statistics.
+     *
+     * @return
+     */
+    public ProviderHealth getHealth() {
+        return health;
+    }
+
+    /**
+     * Checks whether requests to this provider are currently permitted, i.e.
+     * whether its circuit breaker is not open.
+     *
+     * @return
+     */
+    public boolean isAvailable() {
+        return health.isCallPermitted();
+    }
+
+    /**
+     * Sends the given request, which must be addressed to this provider,
+     * through the circuit breaker of this provider. The duration and outcome
+     * of the request are recorded in the {@link ProviderHealth}. Client errors
+     * (4xx) are not counted as failures, because they show that the provider
+     * is alive.
+     * <p>
+     * The request is sent with the socket timeout configured for the HTTP
+     * client, because it may change data at the provider: Giving up on a slow
+     * booking, which the provider completes anyway, would lose or duplicate
+     * it. Use {@link #sendIdempotent(MiddlewareRequest)} for requests that may
+     * safely be given up on.
+     *
+     * @param <T>
+     * @param request
+     * @return
+     * @throws CircuitOpenException if the circuit breaker of this provider is
+     * open.
+     */
+    public <T> ResponseEntity<T> send(MiddlewareRequest<T> request) {
+        return send(request, false);
+    }
+
+    /**
+     * Sends the given idempotent request, e.g. a GET request, like
+     * {@link #send(MiddlewareRequest)}, but applies the adaptive timeout of
+     * the provider (see {@link ProviderHealth#getTimeout()}) as socket timeout
+     * of the request. Responses that arrive later than that timeout are
+     * counted as failures, because callers waiting for the timeout already
+     * gave up.
+     *
+     * @param <T>
+     * @param request
+     * @return
+     * @throws CircuitOpenException if the circuit breaker of this provider is
+     * open.
+     */
+    public <T> ResponseEntity<T> sendIdempotent(MiddlewareRequest<T> request) {
+        return send(request, true);
+    }
+
+    private <T> ResponseEntity<T> send(MiddlewareRequest<T> request, boolean idempotent) {
+        if (metrics == null) {
+            return guarded(null, idempotent, idempotent, () -> request.go());
+        }
+
+        var api = apiOf(request);
+        var response = guarded(api, idempotent, idempotent, () -> request.go());
+
+        if (response != null) {
+            metrics.recordPayload(getServiceId(), api, response.getHeaders().getContentLength());
+
+            if (response.getBody() instanceof Collection) {
+                metrics.recordResults(getServiceId(), api, ((Collection<?>) response.getBody()).size());
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Sends the given request, whose response must be a JSON array, through
+     * the circuit breaker of this provider and streams the array elements to
+     * {@link sink} while they are received. See {@link JsonStreamReader}.
+     *
+     * @param <T>
+     * @param request
+     * @param token
+     * @param type The type of the array elements.
+     * @param sink Receives the parsed elements. Returns {@code false} to stop
+     * reading.
+     * @param reader
+     * @return The number of elements passed to {@link sink}.
+     * @throws CircuitOpenException if the circuit breaker of this provider is
+     * open.
+     */
+    public <T> int sendStreaming(
+            MiddlewareRequest<List<T>> request,
+            String token,
+            Class<T> type,
+            Predicate<T> sink,
+            JsonStreamReader reader
+    ) {
+        if (metrics == null) {
+            return guarded(null, true, false, () -> reader.readArray(request, token, type, sink));
+        }
+
+        var api = apiOf(request);
+        int count = guarded(api, true, false, () -> reader.readArray(request, token, type, sink));
+        metrics.recordResults(getServiceId(), api, count);
+
+        return count;
+    }
+
+    /**
+     * Executes the given call through the circuit breaker of this provider and
+     * records its duration and outcome in the {@link ProviderHealth} and, if
+     * available, in the {@link ConsumerMetrics}.
+     *
+     * @param adaptiveTimeout Whether the adaptive timeout of the provider is
+     * applied as socket timeout to the requests of the call. Only suitable for
+     * idempotent requests.
+     * @param lateIsFailure Whether a call that succeeded after the adaptive
+     * timeout is recorded as failure. Not suitable for streamed responses,
+     * whose duration depends on their size.
+     */
+    private <R> R guarded(String api, boolean adaptiveTimeout, boolean lateIsFailure, Supplier<R> call) {
+        long permit = health.tryAcquire();
+
+        if (permit == ProviderHealth.NOT_PERMITTED) {
+            var ex = new CircuitOpenException(getServiceId());
+            record(api, 0, ex);
+            throw ex;
+        }
+
+        var timeout = health.getTimeout();
+        long start = System.nanoTime();
+
+        try {
+            var result = adaptiveTimeout ? RequestTimeouts.withSocketTimeout(timeout, call) : call.get();
+            long millis = elapsedMillis(start);
+
+            if (lateIsFailure && millis > timeout.toMillis()) {
+                // The response came too late for callers waiting for the adaptive timeout.
+                health.onFailure(permit, millis);
+            } else {
+                health.onSuccess(permit, millis);
+            }
+
+            record(api, System.nanoTime() - start, null);
+            return result;
+        } catch (HttpClientErrorException ex) {
+            health.onSuccess(permit, elapsedMillis(start));
+            record(api, System.nanoTime() - start, ex);
+            throw ex;
+        } catch (RuntimeException ex) {
+            health.onFailure(permit, elapsedMillis(start));
+            record(api, System.nanoTime() - start, ex);
+            throw ex;
+        }
+    }
+
+    private void record(String api, long durationNanos, RuntimeException error) {
+        if (metrics != null) {
+            metrics.recordRequest(getServiceId(), api, durationNanos, error);
+        }
+    }
+
+    /**
+     * Determines the API a request is addressed to, which is the first path
+     * segment after the service url, e.g. {@code options} or
+     * {@code bookings}.
+     */
+    private String apiOf(MiddlewareRequest<?> request) {
+        var segments = request.uriBuilder().build().getPathSegments();
+        return segments.size() > basePathSegments ? segments.get(basePathSegments) : "unknown";
+    }
+
+    private static List<String> pathSegmentsOf(String url) {
+        if (url == null) {
+            return List.of();
+        }
+
+        try {
+            return UriComponentsBuilder.fromUriString(url).build().getPathSegments();
+        } catch (IllegalArgumentException ex) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Sends the given GET request like
+     * {@link #sendIdempotent(MiddlewareRequest)}, but lets concurrent identical requests share a single upstream call and its
+     * response. Requests are identical if their URI, including the query, and
+     * their token are equal. Each caller receives its own deep copy of the
+     * body, so callers may modify their results without affecting each other.
+     *
+     * @param <T>
+     * @param request
+     * @param token The token the request was built with. Part of the identity
+     * because responses may depend on the user.
+     * @return
+     */
+    public <T> ResponseEntity<T> sendCoalesced(MiddlewareRequest<T> request, String token) {
+        return withOwnBody(coalescer.execute(keyOf(request, token), () -> sendIdempotent(request)));
+    }
+
+    /**
+     * Sends the given GET request like
+     * {@link #sendIdempotent(MiddlewareRequest)}, but as conditional request if a previous response to an identical request had
+     * an {@code ETag}. If the provider answers with {@code 304 Not Modified},
+     * the body of that previous response is returned with status
+     * {@code 200 OK}. Requests are identical if their URI, including the
+     * query, and their token are equal.
+     * <p>
+     * The kept body is stored in serialized form and deserialized for every
+     * {@code 304} response, so each caller receives its own instance and may
+     * modify it. Bodies that are not serializable are not kept.
+     *
+     * @param <T>
+     * @param request
+     * @param token The token the request was built with. Part of the identity
+     * because responses may depend on the user.
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> sendConditional(MiddlewareRequest<T> request, String token) {
+        var key = keyOf(request, token);
+        var last = lastResponses.get(key).orElse(null);
+
+        if (last != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, last.etag);
+        }
+
+        var response = sendIdempotent(request);
+
+        if (response == null) {
+            return null;
+        }
+
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            return last == null ? response : ResponseEntity.ok().headers(response.getHeaders()).body((T) SerializationUtils.deserialize(last.body));
+        }
+
+        var etag = response.getHeaders().getETag();
+
+        if (etag != null && response.getStatusCode().is2xxSuccessful() && response.getBody() instanceof Serializable) {
+            lastResponses.set(key, new TaggedBody(etag, SerializationUtils.serialize((Serializable) response.getBody())));
+        } else if (last != null) {
+            lastResponses.remove(key);
+        }
+
+        return response;
+    }
+
+    /**
+     * Deep copies the bodies of responses that are shared between callers, so
+     * that a caller modifying its result, e.g. the legs of an option, does not
+     * affect the others. The model classes are serializable, so they are
+     * copied using serialization. Bodies that are not serializable are not
+     * copied.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ResponseEntity<T> withOwnBody(ResponseEntity<T> response) {
+        if (response == null || !(response.getBody() instanceof Serializable)) {
+            return response;
+        }
+
+        var copy = SerializationUtils.clone((Serializable) response.getBody());
+        return new ResponseEntity<>((T) copy, response.getHeaders(), response.getStatusCode());
+    }
+
+    private static String keyOf(MiddlewareRequest<?> request, String token) {
+        return request.uriBuilder().build().toUriString() + "\n" + (token == null ? "" : token);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
     /**
      * Checks whether the mobility service associated with this
      * {@link ProviderProxy} supports the given {@link API}.
@@ -175,9 +518,7 @@ public class ProviderProxy {
             Integer limitTo,
             String token
     ) {
-        return createSearchPlacesRequest(query, areaCenter, radiusMeter, limitTo, token)
-                .go()
-                .getBody();
+        return sendCoalesced(createSearchPlacesRequest(query, areaCenter, radiusMeter, limitTo, token), token).getBody();
     }
 
     /**
@@ -217,7 +558,8 @@ public class ProviderProxy {
             String assetId,
             String token
     ) {
-        return createGetAssetByIdRequest(assetId, token).go().getBody();
+        var request = createGetAssetByIdRequest(assetId, token);
+        return withOwnBody(coalescer.execute(keyOf(request, token), () -> sendConditional(request, token))).getBody();
     }
 
     /**
@@ -340,9 +682,8 @@ public class ProviderProxy {
             Boolean includeGeoPaths,
             String token
     ) {
-        return createGetOptionsRequest(from, fromPlaceId, to, toPlaceId, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, token)
-                .go()
-                .getBody();
+        var request = createGetOptionsRequest(from, fromPlaceId, to, toPlaceId, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, token);
+        return sendCoalesced(request, token).getBody();
     }
 
     /**
@@ -399,6 +740,34 @@ public class ProviderProxy {
         );
     }
 
+    /**
+     * Like
+     * {@link #createGetOptionsRequest(ICoordinates, ICoordinates, ZonedDateTime, ZonedDateTime, Integer, Boolean, Set, Integer, Boolean, String)},
+     * but additionally selects the format of the paths of legs.
+     *
+     * @see IOptionsApi#buildGetOptionsRequest(String, ICoordinates, String, ICoordinates, String, ZonedDateTime, ZonedDateTime, Integer, Boolean, Set, Integer, Boolean, GeoPathEncoding, String, MiddlewareRequestTemplate)
+     * @param geoPathEncoding The format in which the paths of legs should be
+     * transmitted. If {@code null}, the provider uses the default format.
+     */
+    public MiddlewareRequest<List<Option>> createGetOptionsRequest(
+            ICoordinates from,
+            ICoordinates to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            GeoPathEncoding geoPathEncoding,
+            String token
+    ) {
+        return buildGetOptionsRequest(service.getServiceUrl(),
+                from, null, to, null, startTime, endTime, radiusMeter, sharingAllowed,
+                modesAllowed, limitTo, includeGeoPaths, geoPathEncoding, token, requestTemplate
+        );
+    }
+
     /**
      * Sends a get-options request to this provider using the given
      * arguments.For more information see:
@@ -447,9 +816,8 @@ public class ProviderProxy {
             Boolean includeGeoPaths,
             String token
     ) {
-        return createGetOptionsRequest(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, token)
-                .go()
-                .getBody();
+        var request = createGetOptionsRequest(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, token);
+        return sendCoalesced(request, token).getBody();
     }
 
     /**
@@ -483,7 +851,7 @@ public class ProviderProxy {
     public List<Booking> getBookings(
             String token
     ) {
-        return createGetBookingsRequest(token).go().getBody();
+        return sendConditional(createGetBookingsRequest(token), token).getBody();
     }
 
     /**
@@ -521,7 +889,7 @@ public class ProviderProxy {
             BookingState state,
             String token
     ) {
-        return createGetBookingsRequest(state, token).go().getBody();
+        return sendConditional(createGetBookingsRequest(state, token), token).getBody();
     }
 
     /**
@@ -559,7 +927,7 @@ public class ProviderProxy {
             String id,
             String token
     ) {
-        return createGetBookingByIdRequest(id, token).go().getBody();
+        return sendConditional(createGetBookingByIdRequest(id, token), token).getBody();
     }
 
     /**
@@ -605,7 +973,7 @@ public class ProviderProxy {
             String optionReference,
             String token
     ) {
-        return createCreateBookingRequest(newBooking, optionReference, token).go().getBody();
+        return send(createCreateBookingRequest(newBooking, optionReference, token)).getBody();
     }
 
     /**
@@ -643,7 +1011,7 @@ public class ProviderProxy {
             Booking booking,
             String token
     ) {
-        return createModifyBookingRequest(booking, token).go().getBody();
+        return send(createModifyBookingRequest(booking, token)).getBody();
     }
 
     /**
@@ -688,7 +1056,7 @@ public class ProviderProxy {
             BookingAction action,
             String token
     ) {
-        return createPerformActionRequest(bookingId, action, token).go().getBody();
+        return send(createPerformActionRequest(bookingId, action, token)).getBody();
     }
 
     /**
@@ -739,7 +1107,7 @@ public class ProviderProxy {
             String secret,
             String token
     ) {
-        return createPerformActionRequest(bookingId, action, secret, token).go().getBody();
+        return send(createPerformActionRequest(bookingId, action, secret, token)).getBody();
     }
 
     /**
@@ -785,7 +1153,7 @@ public class ProviderProxy {
             String userId,
             String secret
     ) {
-        return createCreateTokenRequest(userId, secret).go().getBody();
+        return send(createCreateTokenRequest(userId, secret)).getBody();
     }
 
     /**
@@ -810,7 +1178,7 @@ public class ProviderProxy {
      * with a limited duration of validity.
      */
     public void deleteToken(String token) {
-        createDeleteTokenRequest(token).go();
+        send(createDeleteTokenRequest(token));
     }
 
     /**
@@ -836,7 +1204,7 @@ public class ProviderProxy {
      * @return true if valid, false if not.
      */
     public Boolean isTokenValid(String token) {
-        return createIsTokenValidRequest(token).go().getBody();
+        return sendIdempotent(createIsTokenValidRequest(token)).getBody();
     }
 
     /**
@@ -877,7 +1245,7 @@ public class ProviderProxy {
      * @return
      */
     public UserDetails registerUser(Customer customer, String userSecret, String superUserToken) {
-        return createRegisterUserRequest(customer, userSecret, superUserToken).go().getBody();
+        return send(createRegisterUserRequest(customer, userSecret, superUserToken)).getBody();
     }
 
 }
@@ -0,0 +1,392 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import io.micrometer.core.instrument.Gauge;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+/**
+ * Executes the requests of a provider fan-out on a dedicated executor instead
+ * of the common {@link java.util.concurrent.ForkJoinPool}. This way, the
+ * number of providers queried concurrently no longer depends on the number of
+ * CPU cores and the fan-out does not compete with other parallel streams.
+ * <p>
+ * Two modes are available, configured using
+ * {@code middleware.consumer.fan-out.mode}:
+ * <ul>
+ * <li>{@code virtual}: One virtual thread per request. Only available on JDK
+ * 21 or newer. On older runtimes this mode falls back to {@code platform}.</li>
+ * <li>{@code platform}: A bounded pool of platform threads with a bounded
+ * queue.</li>
+ * </ul>
+ * The default {@code auto} uses virtual threads when available.
+ * <p>
+ * Independent of the mode, the number of concurrent requests to a single
+ * provider is limited by
+ * {@code middleware.consumer.fan-out.max-concurrent-per-provider}. Requests
+ * exceeding that limit wait in a per-provider queue without occupying a
+ * thread. Each of these queues holds at most
+ * {@code middleware.consumer.fan-out.queue-capacity} requests, further
+ * requests are rejected.
+ *
+ * @author keim
+ */
+@Service
+@Lazy
+public class ProviderRequestExecutor {
+
+    private static final Logger logger = getLogger(ProviderRequestExecutor.class);
+
+    @Value("${middleware.consumer.fan-out.mode:auto}")
+    private String mode;
+
+    @Value("${middleware.consumer.fan-out.pool-size:32}")
+    private int poolSize;
+
+    @Value("${middleware.consumer.fan-out.queue-capacity:512}")
+    private int queueCapacity;
+
+    @Value("${middleware.consumer.fan-out.max-concurrent-per-provider:8}")
+    private int maxConcurrentPerProvider;
+
+    @Autowired
+    private ConsumerMetrics metrics;
+
+    private ExecutorService executor;
+    private ThreadPoolExecutor platformPool;
+    private boolean virtual;
+
+    private final Map<String, ProviderLane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    /**
+     * Holds the concurrency permits and waiting tasks of a single provider.
+     */
+    private class ProviderLane {
+
+        private final Semaphore permits = new Semaphore(maxConcurrentPerProvider);
+        private final Queue<PendingTask> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+
+        /**
+         * Adds the given task to the queue, unless the queue is full.
+         *
+         * @return Whether the task was added.
+         */
+        private boolean offer(PendingTask task) {
+            if (queued.incrementAndGet() > queueCapacity) {
+                queued.decrementAndGet();
+                return false;
+            }
+
+            pending.add(task);
+            return true;
+        }
+
+        /**
+         * Removes the given task from the queue if it did not start yet.
+         */
+        private void remove(PendingTask task) {
+            if (pending.remove(task)) {
+                queued.decrementAndGet();
+            }
+        }
+
+        /**
+         * Hands over pending tasks to the executor as long as permits are
+         * available.
+         */
+        private void drain() {
+            while (!pending.isEmpty() && permits.tryAcquire()) {
+                var task = pending.poll();
+
+                if (task == null) {
+                    // Another thread took the last task in the meantime.
+                    permits.release();
+                    continue;
+                }
+
+                queued.decrementAndGet();
+
+                if (task.future.isDone()) {
+                    // Timed out or cancelled while waiting.
+                    permits.release();
+                    continue;
+                }
+
+                try {
+                    executor.execute(() -> {
+                        activeCount.incrementAndGet();
+                        try {
+                            task.run.run();
+                        } finally {
+                            activeCount.decrementAndGet();
+                            permits.release();
+                            drain();
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    permits.release();
+                    task.reject.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * A task waiting for a per-provider slot, together with the action to take
+     * if the executor rejects it.
+     */
+    private static class PendingTask {
+
+        private final CompletableFuture<?> future;
+        private final Runnable run;
+        private final Runnable reject;
+
+        private PendingTask(CompletableFuture<?> future, Runnable run, Runnable reject) {
+            this.future = future;
+            this.run = run;
+            this.reject = reject;
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        if (maxConcurrentPerProvider < 1) {
+            maxConcurrentPerProvider = 1;
+        }
+
+        Gauge.builder("efs.consumer.fan-out.active", this, ProviderRequestExecutor::getActiveCount)
+                .description("Provider requests currently being executed.")
+                .register(metrics.getRegistry());
+        Gauge.builder("efs.consumer.fan-out.queued", this, ProviderRequestExecutor::getQueueDepth)
+                .description("Provider requests waiting for execution.")
+                .register(metrics.getRegistry());
+
+        if (!"platform".equalsIgnoreCase(mode)) {
+            executor = tryCreateVirtualThreadExecutor();
+        }
+
+        if (executor != null) {
+            virtual = true;
+            logger.info("Using virtual threads for provider fan-out.");
+            return;
+        }
+
+        if ("virtual".equalsIgnoreCase(mode)) {
+            logger.warn("Virtual threads are not available on this runtime. Falling back to platform threads for provider fan-out.");
+        }
+
+        var threadNumber = new AtomicInteger();
+
+        platformPool = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    var thread = new Thread(runnable, "efs-fan-out-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        platformPool.allowCoreThreadTimeOut(true);
+
+        executor = platformPool;
+        logger.info("Using a pool of {} platform threads for provider fan-out.", poolSize);
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor if the runtime supports it.
+     * Reflection is used because this library is still compiled for Java 11.
+     *
+     * @return The executor or {@code null} if not supported.
+     */
+    private static ExecutorService tryCreateVirtualThreadExecutor() {
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes the given task for the provider with the given service id,
+     * respecting the per-provider concurrency limit.
+     * <p>
+     * If the executor or the queue of the provider is saturated, the returned
+     * future completes exceptionally with a
+     * {@link RejectedExecutionException}.
+     *
+     * @param <T>
+     * @param serviceId The service id of the provider that is called by the
+     * task.
+     * @param task
+     * @return
+     */
+    public <T> CompletableFuture<T> submit(String serviceId, Supplier<T> task) {
+        return submit(serviceId, task, null);
+    }
+
+    /**
+     * Like {@link #submit(String, Supplier)}, but with a timeout. The timeout
+     * applies twice: A task that did not start within {@link timeout} is
+     * removed from the queue, and a started task is abandoned after running
+     * for {@link timeout}. In both cases, the returned future completes
+     * exceptionally with a {@link TimeoutException}.
+     * <p>
+     * An abandoned task keeps running until it returns, because requests can
+     * not be interrupted. The task should therefore bound its own duration,
+     * e.g. by a socket timeout.
+     *
+     * @param <T>
+     * @param serviceId The service id of the provider that is called by the
+     * task.
+     * @param task
+     * @param timeout The timeout or {@code null} for none.
+     * @return
+     */
+    public <T> CompletableFuture<T> submit(String serviceId, Supplier<T> task, Duration timeout) {
+        var future = new CompletableFuture<T>();
+        var lane = lanes.computeIfAbsent(serviceId, id -> new ProviderLane());
+        // Decides between starting the task and dropping it because of the timeout.
+        var claimed = new AtomicBoolean();
+
+        Runnable run = () -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            if (timeout != null) {
+                future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            try {
+                future.complete(task.get());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        };
+
+        Runnable reject = () -> {
+            logger.warn("Provider fan-out queue is full. Rejecting request to service {}.", serviceId);
+            future.completeExceptionally(new RejectedExecutionException("Provider fan-out queue is full."));
+        };
+
+        var pendingTask = new PendingTask(future, run, reject);
+
+        if (!lane.offer(pendingTask)) {
+            reject.run();
+            return future;
+        }
+
+        if (timeout != null) {
+            CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+                if (claimed.compareAndSet(false, true)) {
+                    lane.remove(pendingTask);
+                    future.completeExceptionally(new TimeoutException("Request to service " + serviceId + " did not start in time."));
+                }
+            });
+        }
+
+        lane.drain();
+
+        return future;
+    }
+
+    /**
+     * Whether requests are executed on virtual threads.
+     *
+     * @return
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Gets the number of requests currently being executed.
+     *
+     * @return
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Gets the number of requests that are waiting for execution, either
+     * because of the per-provider limit or because all pool threads are busy.
+     *
+     * @return
+     */
+    public int getQueueDepth() {
+        int depth = platformPool == null ? 0 : platformPool.getQueue().size();
+
+        for (var lane : lanes.values()) {
+            depth += lane.queued.get();
+        }
+
+        return depth;
+    }
+
+    /**
+     * Gets the number of requests to the given provider that are waiting for a
+     * free per-provider slot.
+     *
+     * @param serviceId
+     * @return
+     */
+    public int getQueueDepth(String serviceId) {
+        var lane = lanes.get(serviceId);
+        return lane == null ? 0 : lane.queued.get();
+    }
+}
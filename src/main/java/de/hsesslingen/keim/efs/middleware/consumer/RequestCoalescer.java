@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical calls share a single execution. The first caller
+ * for a key executes the call, all callers arriving with the same key while
+ * that call is in flight wait for it and receive the same result or
+ * exception. Results are not retained after the call completed, so this is no
+ * cache.
+ * <p>
+ * Only use this for idempotent calls, e.g. GET requests.
+ *
+ * @author keim
+ */
+public class RequestCoalescer {
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Executes {@link call} or joins an identical call that is already in
+     * flight.
+     *
+     * @param <T>
+     * @param key Identifies identical calls.
+     * @param call
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> call) {
+        var future = new CompletableFuture<Object>();
+        var running = inFlight.putIfAbsent(key, future);
+
+        if (running != null) {
+            try {
+                return (T) running.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+            }
+        }
+
+        try {
+            T result = call.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Gets the number of calls currently in flight.
+     *
+     * @return
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
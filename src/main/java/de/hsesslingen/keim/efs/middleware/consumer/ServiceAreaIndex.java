@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.consumer;
+
+import de.hsesslingen.keim.efs.middleware.model.BoundingBox;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * An immutable grid index of the service areas of providers. Service areas are
+ * declared by providers as bounding boxes (see {@link BoundingBox}). Providers
+ * that do not declare any are considered to operate everywhere.
+ * <p>
+ * The index is rebuilt by {@link ProviderCache} whenever the providers change.
+ *
+ * @author keim
+ */
+public class ServiceAreaIndex {
+
+    public static final ServiceAreaIndex EMPTY = new ServiceAreaIndex(List.of());
+
+    /**
+     * The edge length of a grid cell in degrees.
+     */
+    private static final double CELL_DEGREES = 1.0;
+
+    /**
+     * Boxes covering more cells than this are not put into the grid, their
+     * providers are treated as operating everywhere instead.
+     */
+    private static final int MAX_CELLS_PER_BOX = 2500;
+
+    private final Set<String> unbounded = new HashSet<>();
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+
+    private static class Entry {
+
+        private final String serviceId;
+        private final BoundingBox box;
+
+        private Entry(String serviceId, BoundingBox box) {
+            this.serviceId = serviceId;
+            this.box = box;
+        }
+    }
+
+    public ServiceAreaIndex(Collection<ProviderProxy> providers) {
+        for (var provider : providers) {
+            var boxes = BoundingBox.parseAll(provider.getService().getServiceArea());
+
+            if (boxes.isEmpty() || boxes.stream().anyMatch(b -> cellCount(b) > MAX_CELLS_PER_BOX)) {
+                unbounded.add(provider.getServiceId());
+                continue;
+            }
+
+            for (var box : boxes) {
+                var entry = new Entry(provider.getServiceId(), box);
+                forEachCell(box, cell -> cells.computeIfAbsent(cell, c -> new ArrayList<>()).add(entry));
+            }
+        }
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellCount(BoundingBox box) {
+        long count = 0;
+        for (var part : box.splitAtAntimeridian()) {
+            long lat = cellIndex(part.getMaxLat()) - cellIndex(part.getMinLat()) + 1L;
+            long lon = cellIndex(part.getMaxLon()) - cellIndex(part.getMinLon()) + 1L;
+            count += lat * lon;
+        }
+        return count;
+    }
+
+    /**
+     * Calls the given action with all cells covered by the given box. Boxes
+     * crossing the antimeridian cover the cells on both of its sides.
+     */
+    private static void forEachCell(BoundingBox box, LongConsumer action) {
+        for (var part : box.splitAtAntimeridian()) {
+            for (int lat = cellIndex(part.getMinLat()); lat <= cellIndex(part.getMaxLat()); lat++) {
+                for (int lon = cellIndex(part.getMinLon()); lon <= cellIndex(part.getMaxLon()); lon++) {
+                    action.accept(((long) lat << 32) ^ (lon & 0xFFFFFFFFL));
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the service ids of all providers whose service area intersects the
+     * given area, including all providers without declared service area.
+     *
+     * @param area
+     * @return
+     */
+    public Set<String> find(BoundingBox area) {
+        var result = new HashSet<>(unbounded);
+
+        if (cellCount(area) > MAX_CELLS_PER_BOX) {
+            // Query areas that large are rare. Checking every entry is cheaper then.
+            cells.values().forEach(entries -> entries.stream()
+                    .filter(e -> e.box.intersects(area))
+                    .forEach(e -> result.add(e.serviceId)));
+            return result;
+        }
+
+        forEachCell(area, cell -> {
+            var entries = cells.get(cell);
+            if (entries != null) {
+                for (var entry : entries) {
+                    if (!result.contains(entry.serviceId) && entry.box.intersects(area)) {
+                        result.add(entry.serviceId);
+                    }
+                }
+            }
+        });
+
+        return result;
+    }
+}
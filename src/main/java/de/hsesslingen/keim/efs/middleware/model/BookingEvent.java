@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * Notifies about a change of a {@link Booking}, usually a transition of its
+ * {@link BookingState}. Published by providers and received by consumers
+ * instead of polling bookings for changes.
+ *
+ * @author keim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+@ApiModel(description = "An event describing the change of a booking")
+public class BookingEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The ID of the mobility service, the booking is associated with.
+     */
+    private String serviceId;
+
+    /**
+     * The ID of the booking that changed.
+     */
+    @NotEmpty
+    @JsonProperty(required = true)
+    private String bookingId;
+
+    @ApiModelProperty("The state of the booking before the change, if known.")
+    private BookingState previousState;
+
+    @NotNull
+    @JsonProperty(required = true)
+    @ApiModelProperty(value = "The state of the booking after the change.", required = true)
+    private BookingState state;
+
+    /**
+     * When the change happened.
+     */
+    private ZonedDateTime timestamp;
+
+    /**
+     * The booking after the change. Optional, consumers can retrieve it using
+     * its id if needed.
+     */
+    private Booking booking;
+
+    /**
+     * Creates an event for the given booking, whose state changed from
+     * {@link previousState} to its current state.
+     *
+     * @param booking
+     * @param previousState
+     * @return
+     */
+    public static BookingEvent of(Booking booking, BookingState previousState) {
+        return new BookingEvent(booking.getServiceId(), booking.getId(), previousState, booking.getState(), ZonedDateTime.now(), booking);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import static java.util.stream.Collectors.joining;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A rectangular geographic area, given by its minimum and maximum latitude and
+ * longitude. Used by providers to declare their service area in a
+ * machine-readable way.
+ * <p>
+ * Because the service area of a mobility service is a free text, bounding
+ * boxes are appended to it in the form
+ * {@code City of Esslingen [bbox=48.70,9.25,48.77,9.35;...]}. See
+ * {@link #appendTo(String, List)} and {@link #parseAll(String)}.
+ * <p>
+ * A box whose {@link #minLon} is greater than its {@link #maxLon} crosses the
+ * antimeridian, i.e. it extends east from {@link #minLon} across 180 degrees to
+ * {@link #maxLon}.
+ *
+ * @author keim
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoundingBox implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern BBOX_TAG = Pattern.compile("\\s*\\[bbox=([^\\]]*)\\]");
+
+    /**
+     * The approximate length of one degree of latitude in meters.
+     */
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    @DecimalMin("-90.0")
+    @DecimalMax("90.0")
+    private double minLat;
+
+    @DecimalMin("-180.0")
+    @DecimalMax("180.0")
+    private double minLon;
+
+    @DecimalMin("-90.0")
+    @DecimalMax("90.0")
+    private double maxLat;
+
+    @DecimalMin("-180.0")
+    @DecimalMax("180.0")
+    private double maxLon;
+
+    /**
+     * Checks whether this box and the given box overlap.
+     *
+     * @param other
+     * @return
+     */
+    public boolean intersects(BoundingBox other) {
+        if (crossesAntimeridian() || other.crossesAntimeridian()) {
+            var otherParts = other.splitAtAntimeridian();
+            return splitAtAntimeridian().stream().anyMatch(part -> otherParts.stream().anyMatch(part::intersects));
+        }
+
+        return minLat <= other.maxLat && other.minLat <= maxLat
+                && minLon <= other.maxLon && other.minLon <= maxLon;
+    }
+
+    /**
+     * Checks whether this box crosses the antimeridian.
+     *
+     * @return
+     */
+    public boolean crossesAntimeridian() {
+        return minLon > maxLon;
+    }
+
+    /**
+     * Splits this box at the antimeridian.
+     *
+     * @return This box alone or, if it crosses the antimeridian, its parts
+     * west and east of the antimeridian.
+     */
+    public List<BoundingBox> splitAtAntimeridian() {
+        if (!crossesAntimeridian()) {
+            return List.of(this);
+        }
+
+        return List.of(
+                new BoundingBox(minLat, minLon, maxLat, 180),
+                new BoundingBox(minLat, -180, maxLat, maxLon)
+        );
+    }
+
+    private boolean hasValidBounds() {
+        return -90 <= minLat && minLat <= maxLat && maxLat <= 90
+                && -180 <= minLon && minLon <= 180
+                && -180 <= maxLon && maxLon <= 180;
+    }
+
+    /**
+     * Creates the smallest box containing all of the given coordinates,
+     * enlarged by the given margin in all directions. {@code null} elements are
+     * ignored.
+     *
+     * @param marginMeter
+     * @param points
+     * @return The box or {@code null} if there are no valid coordinates.
+     */
+    public static BoundingBox around(double marginMeter, ICoordinates... points) {
+        BoundingBox box = null;
+
+        for (var point : points) {
+            if (point == null || point.getLat() == null || point.getLon() == null) {
+                continue;
+            }
+            if (box == null) {
+                box = new BoundingBox(point.getLat(), point.getLon(), point.getLat(), point.getLon());
+            } else {
+                box.minLat = Math.min(box.minLat, point.getLat());
+                box.minLon = Math.min(box.minLon, point.getLon());
+                box.maxLat = Math.max(box.maxLat, point.getLat());
+                box.maxLon = Math.max(box.maxLon, point.getLon());
+            }
+        }
+
+        if (box != null && marginMeter > 0) {
+            double latMargin = marginMeter / METERS_PER_DEGREE;
+            double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(box.minLat), Math.abs(box.maxLat))));
+            double lonMargin = cosLat < 0.01 ? 180 : latMargin / cosLat;
+
+            box.minLat = Math.max(-90, box.minLat - latMargin);
+            box.maxLat = Math.min(90, box.maxLat + latMargin);
+            box.minLon = Math.max(-180, box.minLon - lonMargin);
+            box.maxLon = Math.min(180, box.maxLon + lonMargin);
+        }
+
+        return box;
+    }
+
+    /**
+     * Appends the given boxes to the given service area text. A previously
+     * appended list of boxes is replaced.
+     *
+     * @param serviceArea
+     * @param boxes
+     * @return
+     */
+    public static String appendTo(String serviceArea, List<BoundingBox> boxes) {
+        var text = serviceArea == null ? "" : BBOX_TAG.matcher(serviceArea).replaceAll("");
+
+        if (boxes == null || boxes.isEmpty()) {
+            return text;
+        }
+
+        var tag = boxes.stream()
+                .map(b -> String.format(Locale.ROOT, "%s,%s,%s,%s", b.minLat, b.minLon, b.maxLat, b.maxLon))
+                .collect(joining(";", "[bbox=", "]"));
+
+        return text.isEmpty() ? tag : text + " " + tag;
+    }
+
+    /**
+     * Parses the boxes appended to the given service area text. Malformed boxes
+     * and boxes with coordinates out of range or a minimum latitude greater than
+     * the maximum latitude are skipped.
+     *
+     * @param serviceArea
+     * @return The boxes, which is empty if none are declared.
+     */
+    public static List<BoundingBox> parseAll(String serviceArea) {
+        var boxes = new ArrayList<BoundingBox>();
+
+        if (serviceArea == null) {
+            return boxes;
+        }
+
+        var matcher = BBOX_TAG.matcher(serviceArea);
+
+        while (matcher.find()) {
+            for (var box : matcher.group(1).split(";")) {
+                var parts = box.split(",");
+                if (parts.length != 4) {
+                    continue;
+                }
+                try {
+                    var parsed = new BoundingBox(
+                            Double.parseDouble(parts[0].trim()),
+                            Double.parseDouble(parts[1].trim()),
+                            Double.parseDouble(parts[2].trim()),
+                            Double.parseDouble(parts[3].trim())
+                    );
+                    if (parsed.hasValidBounds()) {
+                        boxes.add(parsed);
+                    }
+                } catch (NumberFormatException ex) {
+                    // Skip malformed boxes.
+                }
+            }
+        }
+
+        return boxes;
+    }
+}
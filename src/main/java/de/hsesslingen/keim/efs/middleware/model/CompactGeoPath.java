@@ -0,0 +1,261 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A geo path that keeps its points in a single primitive array of alternating
+ * latitude and longitude values instead of a list of {@link Coordinates}
+ * objects.
+ * <p>
+ * The path can be converted from and to the encoded polyline format
+ * (https://developers.google.com/maps/documentation/utilities/polylinealgorithm),
+ * which stores the delta of each point to its predecessor as a variable length
+ * integer with a precision of five decimal places (about one meter). This is
+ * the format used for {@link Leg#encodedGeoPath}.
+ *
+ * @author keim
+ */
+public final class CompactGeoPath implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final double PRECISION = 1e5;
+
+    /**
+     * An empty path.
+     */
+    public static final CompactGeoPath EMPTY = new CompactGeoPath(new double[0]);
+
+    private final double[] latLon;
+
+    private CompactGeoPath(double[] latLon) {
+        this.latLon = latLon;
+    }
+
+    /**
+     * Creates a path from the given array of alternating latitude and
+     * longitude values. The array is not copied.
+     *
+     * @param latLon
+     * @return
+     */
+    public static CompactGeoPath of(double[] latLon) {
+        if (latLon.length % 2 != 0) {
+            throw new IllegalArgumentException("The array must contain an even number of values.");
+        }
+
+        return new CompactGeoPath(latLon);
+    }
+
+    /**
+     * Creates a path from the given list of coordinates. Entries that are
+     * {@code null} or lack a latitude or longitude are skipped.
+     *
+     * @param coordinates
+     * @return
+     */
+    public static CompactGeoPath fromCoordinates(List<? extends ICoordinates> coordinates) {
+        var latLon = new double[coordinates.size() * 2];
+        int i = 0;
+
+        for (var c : coordinates) {
+            if (c == null || c.getLat() == null || c.getLon() == null) {
+                continue;
+            }
+
+            latLon[i++] = c.getLat();
+            latLon[i++] = c.getLon();
+        }
+
+        return new CompactGeoPath(i == latLon.length ? latLon : Arrays.copyOf(latLon, i));
+    }
+
+    /**
+     * Decodes the given encoded polyline string.
+     *
+     * @param encoded
+     * @return
+     * @throws IllegalArgumentException if the string is not a valid encoded
+     * polyline.
+     */
+    public static CompactGeoPath decode(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return EMPTY;
+        }
+
+        // Every value takes at least one character.
+        var latLon = new double[encoded.length() + 1 & ~1];
+        var position = new int[1];
+        int count = 0;
+        long lat = 0;
+        long lon = 0;
+
+        while (position[0] < encoded.length()) {
+            lat += decodeValue(encoded, position);
+
+            if (position[0] >= encoded.length()) {
+                throw new IllegalArgumentException("Encoded polyline ends after a latitude value.");
+            }
+
+            lon += decodeValue(encoded, position);
+
+            latLon[count++] = lat / PRECISION;
+            latLon[count++] = lon / PRECISION;
+        }
+
+        return new CompactGeoPath(Arrays.copyOf(latLon, count));
+    }
+
+    /**
+     * Decodes the value starting at {@code position[0]} and advances the
+     * position to the start of the next value.
+     */
+    private static long decodeValue(String encoded, int[] position) {
+        int index = position[0];
+        long value = 0;
+        int shift = 0;
+        int chunk;
+
+        do {
+            if (index >= encoded.length()) {
+                throw new IllegalArgumentException("Encoded polyline ends within a value.");
+            }
+
+            chunk = encoded.charAt(index++) - 63;
+
+            if (chunk < 0 || chunk > 63 || shift > 60) {
+                throw new IllegalArgumentException("Invalid character in encoded polyline at position " + (index - 1) + ".");
+            }
+
+            value |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+
+        position[0] = index;
+        return (value & 1) != 0 ? ~(value >> 1) : (value >> 1);
+    }
+
+    /**
+     * Encodes this path as encoded polyline string.
+     *
+     * @return
+     */
+    public String encode() {
+        // Most deltas take between one and four characters.
+        var sb = new StringBuilder(latLon.length * 4);
+        long prevLat = 0;
+        long prevLon = 0;
+
+        for (int i = 0; i < latLon.length; i += 2) {
+            long lat = Math.round(latLon[i] * PRECISION);
+            long lon = Math.round(latLon[i + 1] * PRECISION);
+
+            encodeValue(lat - prevLat, sb);
+            encodeValue(lon - prevLon, sb);
+
+            prevLat = lat;
+            prevLon = lon;
+        }
+
+        return sb.toString();
+    }
+
+    private static void encodeValue(long delta, StringBuilder sb) {
+        long value = delta < 0 ? ~(delta << 1) : (delta << 1);
+
+        while (value >= 0x20) {
+            sb.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>= 5;
+        }
+
+        sb.append((char) (value + 63));
+    }
+
+    /**
+     * Converts this path to a list of {@link Coordinates}. Only required for
+     * code that depends on {@link Leg#geoPath}.
+     *
+     * @return
+     */
+    public List<Coordinates> toCoordinates() {
+        var result = new ArrayList<Coordinates>(size());
+
+        for (int i = 0; i < latLon.length; i += 2) {
+            result.add(new Coordinates(latLon[i], latLon[i + 1]));
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the number of points in this path.
+     *
+     * @return
+     */
+    public int size() {
+        return latLon.length / 2;
+    }
+
+    public boolean isEmpty() {
+        return latLon.length == 0;
+    }
+
+    public double getLat(int index) {
+        return latLon[index * 2];
+    }
+
+    public double getLon(int index) {
+        return latLon[index * 2 + 1];
+    }
+
+    /**
+     * Gets a copy of the alternating latitude and longitude values of this
+     * path.
+     *
+     * @return
+     */
+    public double[] toArray() {
+        return latLon.clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CompactGeoPath && Arrays.equals(latLon, ((CompactGeoPath) obj).latLon);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(latLon);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactGeoPath(size=" + size() + ")";
+    }
+}
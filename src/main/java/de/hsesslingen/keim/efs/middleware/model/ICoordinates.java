@@ -26,8 +26,6 @@ package de.hsesslingen.keim.efs.middleware.model;
 import static java.lang.Math.*;
 import java.util.function.BiFunction;
 import java.util.function.Supplier;
-import static org.springframework.util.StringUtils.countOccurrencesOf;
-import static org.springframework.util.StringUtils.isEmpty;
 
 /**
  * This interface describes the stereotype of 2 dimensional geo coordinates.
@@ -58,6 +56,17 @@ public interface ICoordinates {
      */
     public static final double D180_BY_PI = 180d / Math.PI;
 
+    /**
+     * A function accepting primitive latitude and longitude values.
+     *
+     * @param <C>
+     */
+    @FunctionalInterface
+    public static interface LatLonFunction<C> {
+
+        public C apply(double lat, double lon);
+    }
+
     /**
      * Get the latitude value of this coordinates pair.
      *
@@ -81,22 +90,31 @@ public interface ICoordinates {
      * @return The distance between two coordinates in kilometers.
      */
     public static double distanceKmBetween(ICoordinates a, ICoordinates b) {
-        double latA = degreesToRadians(a.getLat());
-        double latB = degreesToRadians(b.getLat());
-        double lonA = degreesToRadians(a.getLon());
-        double lonB = degreesToRadians(b.getLon());
-
-        double latDiff = latB - latA;
-        double lonDiff = lonB - lonA;
+        return distanceKmBetween(a.getLat(), a.getLon(), b.getLat(), b.getLon());
+    }
 
-        double sinOfLat = sin(latDiff / 2d);
-        double sinOfLon = sin(lonDiff / 2d);
+    /**
+     * Calculates the distance in kilometers between two coordinates using the
+     * haversine formula. (https://en.wikipedia.org/wiki/Haversine_formula)
+     * <p>
+     * Prefer this method over
+     * {@link ICoordinates#distanceKmBetween(ICoordinates, ICoordinates)} in
+     * hot loops, as it works on primitive values only.
+     *
+     * @param latA Latitude of the first coordinates in degrees.
+     * @param lonA Longitude of the first coordinates in degrees.
+     * @param latB Latitude of the second coordinates in degrees.
+     * @param lonB Longitude of the second coordinates in degrees.
+     * @return The distance between two coordinates in kilometers.
+     */
+    public static double distanceKmBetween(double latA, double lonA, double latB, double lonB) {
+        latA = degreesToRadians(latA);
+        latB = degreesToRadians(latB);
 
-        double cosLatA = cos(latA);
-        double cosLatB = cos(latB);
+        double sinOfLat = sin((latB - latA) / 2d);
+        double sinOfLon = sin(degreesToRadians(lonB - lonA) / 2d);
 
-        double result = DOUBLE_EARTH_RADIUS_KM * asin(sqrt((sinOfLat * sinOfLat) + (sinOfLon * sinOfLon * cosLatA * cosLatB)));
-        return result;
+        return DOUBLE_EARTH_RADIUS_KM * asin(sqrt((sinOfLat * sinOfLat) + (sinOfLon * sinOfLon * cos(latA) * cos(latB))));
     }
 
     /**
@@ -179,6 +197,19 @@ public interface ICoordinates {
         return coordinates.getLat() + "," + (includeSpace ? " " : "") + coordinates.getLon();
     }
 
+    /**
+     * Checks whether the given lat and lon values are within their allowed
+     * boundaries.
+     *
+     * @param lat
+     * @param lon
+     * @return
+     */
+    public static boolean isValid(double lat, double lon) {
+        return lat >= -90.0 && lat <= 90.0
+                && lon >= -180.0 && lon <= 180.0;
+    }
+
     /**
      * Tries to parse the given coordinates string and if successful passes the
      * parse latitude and longitude to the given {@link utilizer}. Upon fail,
@@ -194,17 +225,46 @@ public interface ICoordinates {
      * @return
      */
     public static <C> C parse(String latCommaLonString, BiFunction<Double, Double, C> utilizer, Supplier<C> onFailValueSupplier) {
-        if (isEmpty(latCommaLonString) || countOccurrencesOf(latCommaLonString, ",") != 1) {
+        return parseLatLon(latCommaLonString, utilizer::apply, onFailValueSupplier);
+    }
+
+    /**
+     * Tries to parse the given coordinates string in a single pass and if
+     * successful passes the primitive latitude and longitude to the given
+     * {@link utilizer}. Upon fail, the {@link onFailValueSupplier} is called
+     * and its value returned.
+     * <p>
+     * Whitespace around both values is ignored. Plain decimal values are
+     * parsed without allocations. Everything else, e.g. exponents, is handed
+     * to {@link Double#parseDouble(String)}, so the accepted formats are the
+     * same as those of {@link Double#valueOf(String)}, except for
+     * {@code NaN}, which is treated as invalid.
+     *
+     * @param <C>
+     * @param latCommaLonString
+     * @param utilizer
+     * @param onFailValueSupplier
+     * @return
+     */
+    public static <C> C parseLatLon(String latCommaLonString, LatLonFunction<C> utilizer, Supplier<C> onFailValueSupplier) {
+        if (latCommaLonString == null) {
             return onFailValueSupplier.get();
         }
 
-        String[] split = latCommaLonString.split(",");
+        int comma = latCommaLonString.indexOf(',');
 
-        try {
-            return utilizer.apply(Double.valueOf(split[0]), Double.valueOf(split[1]));
-        } catch (NumberFormatException ex) {
+        if (comma < 0 || latCommaLonString.indexOf(',', comma + 1) >= 0) {
             return onFailValueSupplier.get();
         }
+
+        double lat = CoordinatesParser.parseDouble(latCommaLonString, 0, comma);
+        double lon = CoordinatesParser.parseDouble(latCommaLonString, comma + 1, latCommaLonString.length());
+
+        if (Double.isNaN(lat) || Double.isNaN(lon)) {
+            return onFailValueSupplier.get();
+        }
+
+        return utilizer.apply(lat, lon);
     }
 
     /**
@@ -241,7 +301,7 @@ public interface ICoordinates {
      * @return
      */
     public static <C> C parseAndValidate(String latCommaLonString, BiFunction<Double, Double, C> utilizer, Supplier<C> onFailValueSupplier) {
-        return parse(latCommaLonString, (lat, lon) -> {
+        return parseLatLon(latCommaLonString, (lat, lon) -> {
             if (!isValid(lat, lon)) {
                 return onFailValueSupplier.get();
             }
@@ -272,49 +332,23 @@ public interface ICoordinates {
     }
 
     /**
-     * Parses the given lat,lon string to an anonymous implementation of
-     * {@link ICoordinates}.
+     * Parses the given lat,lon string to {@link Coordinates}.
      *
      * @param latLonString
      * @return
      */
     public static ICoordinates parse(String latLonString) {
-        return parse(latLonString, (lat, lon) -> {
-            return new ICoordinates() {
-                @Override
-                public Double getLat() {
-                    return lat;
-                }
-
-                @Override
-                public Double getLon() {
-                    return lon;
-                }
-            };
-        });
+        return parse(latLonString, Coordinates::new);
     }
 
     /**
-     * Parses the given lat,lon string to an anonymous implementation of
-     * {@link ICoordinates}.
+     * Parses the given lat,lon string to {@link Coordinates}.
      *
      * @param latLonString
      * @param onFailValueSupplier
      * @return
      */
     public static ICoordinates parseAndValidate(String latLonString, Supplier<ICoordinates> onFailValueSupplier) {
-        return parseAndValidate(latLonString, (lat, lon) -> {
-            return new ICoordinates() {
-                @Override
-                public Double getLat() {
-                    return lat;
-                }
-
-                @Override
-                public Double getLon() {
-                    return lon;
-                }
-            };
-        }, onFailValueSupplier);
+        return parseAndValidate(latLonString, Coordinates::new, onFailValueSupplier);
     }
 }
@@ -24,6 +24,7 @@
 package de.hsesslingen.keim.efs.middleware.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.io.Serializable;
 
 import javax.validation.constraints.NotNull;
@@ -35,6 +36,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -63,6 +65,16 @@ public class Leg implements Serializable {
         this.startTime = startTime;
     }
 
+    /**
+     * The all-args constructor as it was before {@link encodedGeoPath} was
+     * added.
+     */
+    public Leg(ZonedDateTime startTime, ZonedDateTime endTime, Place from, Place to,
+            String assetId, Asset asset, List<Leg> subLegs, List<Coordinates> geoPath,
+            Mode mode, Integer distanceMeter) {
+        this(startTime, endTime, from, to, assetId, asset, subLegs, geoPath, null, mode, distanceMeter);
+    }
+
     private ZonedDateTime startTime;
 
     private ZonedDateTime endTime;
@@ -112,6 +124,15 @@ public class Leg implements Serializable {
      */
     private List<Coordinates> geoPath;
 
+    /**
+     * The path of this leg as encoded polyline string. This is an alternative
+     * to {@link geoPath} which is only present if requested using
+     * {@link GeoPathEncoding#polyline}. See {@link CompactGeoPath} for details
+     * on the format.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String encodedGeoPath;
+
     /**
      * The mode of this leg.
      */
@@ -132,9 +153,89 @@ public class Leg implements Serializable {
         this.asset = other.asset;
         this.subLegs = other.subLegs;
         this.geoPath = other.geoPath;
+        this.encodedGeoPath = other.encodedGeoPath;
         this.mode = other.mode;
         this.distanceMeter = other.distanceMeter;
         return this;
     }
 
+    /**
+     * Gets the path of this leg as {@link CompactGeoPath}, independent of
+     * whether it was transmitted in {@link geoPath} or in
+     * {@link encodedGeoPath}.
+     *
+     * @return The path or {@code null} if this leg has no path.
+     */
+    @JsonIgnore
+    public CompactGeoPath getCompactGeoPath() {
+        if (encodedGeoPath != null) {
+            return CompactGeoPath.decode(encodedGeoPath);
+        } else if (geoPath != null) {
+            return CompactGeoPath.fromCoordinates(geoPath);
+        }
+
+        return null;
+    }
+
+    /**
+     * Moves the path of this leg and of all its sub legs from {@link geoPath}
+     * to {@link encodedGeoPath}.
+     *
+     * @return
+     */
+    @JsonIgnore
+    public Leg encodeGeoPath() {
+        if (geoPath != null) {
+            encodedGeoPath = CompactGeoPath.fromCoordinates(geoPath).encode();
+            geoPath = null;
+        }
+
+        if (subLegs != null) {
+            subLegs.forEach(Leg::encodeGeoPath);
+        }
+
+        return this;
+    }
+
+    /**
+     * Like {@link #encodeGeoPath()}, but leaves this leg untouched and returns
+     * an encoded copy instead. Use this for legs that are shared, e.g. because
+     * they are cached. Returns this leg itself if there is nothing to encode.
+     *
+     * @return
+     */
+    @JsonIgnore
+    public Leg withEncodedGeoPath() {
+        List<Leg> encodedSubLegs = subLegs;
+
+        if (subLegs != null) {
+            encodedSubLegs = new ArrayList<>(subLegs.size());
+            boolean changed = false;
+
+            for (var subLeg : subLegs) {
+                var encoded = subLeg == null ? null : subLeg.withEncodedGeoPath();
+                changed |= encoded != subLeg;
+                encodedSubLegs.add(encoded);
+            }
+
+            if (!changed) {
+                encodedSubLegs = subLegs;
+            }
+        }
+
+        if (geoPath == null && encodedSubLegs == subLegs) {
+            return this;
+        }
+
+        var copy = new Leg().updateSelfFrom(this);
+        copy.subLegs = encodedSubLegs;
+
+        if (geoPath != null) {
+            copy.encodedGeoPath = CompactGeoPath.fromCoordinates(geoPath).encode();
+            copy.geoPath = null;
+        }
+
+        return copy;
+    }
+
 }
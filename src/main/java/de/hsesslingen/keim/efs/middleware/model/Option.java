@@ -93,6 +93,28 @@ public class Option implements Serializable {
         this.immediateStart = immediateStart;
     }
 
+    /**
+     * Returns a copy of this option whose leg carries its path in
+     * {@link Leg#encodedGeoPath}. This option is left untouched. See
+     * {@link Leg#withEncodedGeoPath()}.
+     *
+     * @return
+     */
+    @JsonIgnore
+    public Option withEncodedGeoPath() {
+        if (leg == null) {
+            return this;
+        }
+
+        var encodedLeg = leg.withEncodedGeoPath();
+
+        if (encodedLeg == leg) {
+            return this;
+        }
+
+        return new Option(serviceId, encodedLeg, immediateStart, optionReference, validUntil);
+    }
+
     @JsonIgnore
     public Option updateSelfFrom(Option other) {
         this.serviceId = other.serviceId;
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.model;
+
+import java.io.Serializable;
+import lombok.Value;
+
+/**
+ * An immutable pair of coordinates, backed by primitive {@code double} values.
+ * <p>
+ * Unlike {@link Coordinates} and {@link Place}, this class never boxes its
+ * values and can not be incomplete. It is meant for calculations on many
+ * coordinates, e.g. sorting places by distance. It does not implement
+ * {@link ICoordinates} because that would require boxed getters. Use
+ * {@link #of(ICoordinates)} and {@link #toCoordinates()} to convert.
+ *
+ * @author keim
+ */
+@Value
+public class PrimitiveCoordinates implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final double lat;
+    private final double lon;
+
+    /**
+     * Converts the given coordinates.
+     *
+     * @param coordinates
+     * @return
+     * @throws NullPointerException if latitude or longitude is {@code null}.
+     */
+    public static PrimitiveCoordinates of(ICoordinates coordinates) {
+        return new PrimitiveCoordinates(coordinates.getLat(), coordinates.getLon());
+    }
+
+    /**
+     * Parses the given lat,lon string.
+     *
+     * @param latCommaLonString
+     * @return
+     */
+    public static PrimitiveCoordinates parse(String latCommaLonString) {
+        return ICoordinates.parse(latCommaLonString, PrimitiveCoordinates::new);
+    }
+
+    /**
+     * Calculates the distance in kilometers to the given coordinates.
+     *
+     * @param other
+     * @return
+     */
+    public double distanceKmTo(PrimitiveCoordinates other) {
+        return ICoordinates.distanceKmBetween(lat, lon, other.lat, other.lon);
+    }
+
+    /**
+     * Calculates the distance in kilometers to the given coordinates.
+     *
+     * @param otherLat
+     * @param otherLon
+     * @return
+     */
+    public double distanceKmTo(double otherLat, double otherLon) {
+        return ICoordinates.distanceKmBetween(lat, lon, otherLat, otherLon);
+    }
+
+    public boolean isValid() {
+        return lat >= -90.0 && lat <= 90.0
+                && lon >= -180.0 && lon <= 180.0;
+    }
+
+    public Coordinates toCoordinates() {
+        return new Coordinates(lat, lon);
+    }
+}
@@ -26,10 +26,13 @@ package de.hsesslingen.keim.efs.middleware.provider;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.CredentialsDebugFormatter;
 import de.hsesslingen.keim.efs.middleware.provider.credentials.ICredentialsDeserializer;
 import de.hsesslingen.keim.efs.mobility.exception.MiddlewareException;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import static java.util.stream.Collectors.joining;
@@ -51,6 +54,14 @@ public abstract class ApiBase<C extends AbstractCredentials> {
     @Value("${middleware.logging.debug.obfuscate-credentials:true}")
     private boolean obfuscateCredentialsForDebugLogging;
 
+    /**
+     * Every received request is logged at DEBUG. Additionally, about one in
+     * this number of requests is logged at INFO. {@code 0} disables logging
+     * requests at INFO, {@code 1} logs every request at INFO.
+     */
+    @Value("${middleware.logging.request-info-sample-rate:0}")
+    private int requestInfoSampleRate;
+
     @Autowired
     private ObjectMapper mapper;
 
@@ -178,60 +189,7 @@ public abstract class ApiBase<C extends AbstractCredentials> {
      * @param creds
      */
     private void debugOutputCredentials(AbstractCredentials creds) {
-        if (creds == null) {
-            logger.debug("Credentials object is null.");
-            return;
-        }
-
-        var sb = new StringBuilder();
-
-        sb.append("Parsed credentials with following values: ");
-
-        var cl = creds.getClass();
-        var fields = cl.getDeclaredFields();
-
-        int count = 0;
-
-        for (var field : fields) {
-            field.setAccessible(true);
-
-            sb.append(field.getName());
-
-            try {
-                var value = field.get(creds);
-
-                if (obfuscateCredentialsForDebugLogging) {
-                    value = obfuscate(value);
-                }
-
-                sb.append("=").append(value);
-            } catch (IllegalAccessException ex) {
-                sb.append("->IllegalAccessException");
-            } catch (IllegalArgumentException ex) {
-                sb.append("->IllegalArgumentException");
-            }
-
-            sb.append(", ");
-
-            field.setAccessible(false);
-
-            ++count;
-        }
-
-        String output;
-
-        if (count == 0) {
-            sb.append("(no values parsed)");
-            output = sb.toString();
-        } else {
-            output = sb.toString();
-
-            if (output.endsWith(", ")) {
-                output = output.substring(0, output.lastIndexOf(","));
-            }
-        }
-
-        logger.debug(output);
+        logger.debug(CredentialsDebugFormatter.format(creds, value -> obfuscateCredentialsForDebugLogging ? obfuscate(value) : String.valueOf(value)));
     }
 
     /**
@@ -249,6 +207,53 @@ public abstract class ApiBase<C extends AbstractCredentials> {
         }
     }
 
+    /**
+     * Logs the receipt of a request to the given endpoint. The message is
+     * logged at INFO for a sample of requests (see
+     * {@code middleware.logging.request-info-sample-rate}) and at DEBUG for all
+     * others.
+     * <p>
+     * Returns whether DEBUG is enabled, i.e. whether the params of the request
+     * should be logged using {@link RequestLog#logParams(Logger, Object...)}.
+     * Use as follows:
+     * {@code if (logRequest(ENDPOINT)) { ENDPOINT.logParams(logger, argA, argB, ...); }}.
+     * This way, neither the values nor the array holding them are created if
+     * DEBUG is disabled.
+     *
+     * @param endpoint
+     * @return {@code true} if the params should be logged.
+     */
+    protected boolean logRequest(RequestLog endpoint) {
+        if (isSampledForInfo()) {
+            logger.info(endpoint.getReceivedMessage());
+        } else {
+            logger.debug(endpoint.getReceivedMessage());
+        }
+
+        return logger.isDebugEnabled();
+    }
+
+    /**
+     * Logs the given request body as JSON string if TRACE logging is enabled.
+     *
+     * @param body The parsed body object of the request.
+     */
+    protected void logBody(Object body) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Body of this request:\n{}", stringify(body));
+        }
+    }
+
+    private boolean isSampledForInfo() {
+        int rate = requestInfoSampleRate;
+
+        if (rate <= 0 || !logger.isInfoEnabled()) {
+            return false;
+        }
+
+        return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+
     /**
      * Generic method to log input params. Suppliers for the second arg can be
      * conveniently created using {@link array(Object[])}.
@@ -260,7 +265,7 @@ public abstract class ApiBase<C extends AbstractCredentials> {
      * or {@link obfuscateConditional(Object)}.
      * <p>
      * The method name is always logged in the following schema: "Received
-     * ${methodName}-request."
+     * ${methodName}-request." See {@link #logRequest(RequestLog)} for the level.
      * <p>
      * The variables are only logged, and the supplier therefore only called, if
      * log level is set to DEBUG.
@@ -269,9 +274,16 @@ public abstract class ApiBase<C extends AbstractCredentials> {
      * @param variablesAndValuesSupplier A function returning an array of
      * objects that contains the variable names and values of the logged method
      * pairwise.
+     * @deprecated Use {@link #logRequest(RequestLog)}, which does not allocate
+     * anything per request if DEBUG is disabled.
      */
+    @Deprecated
     protected void logParams(String methodName, Supplier<Object[]> variablesAndValuesSupplier) {
-        logger.info("Received " + methodName + "-request.");
+        if (isSampledForInfo()) {
+            logger.info("Received {}-request.", methodName);
+        } else {
+            logger.debug("Received {}-request.", methodName);
+        }
 
         if (logger.isDebugEnabled() && variablesAndValuesSupplier != null) {
 
@@ -321,13 +333,13 @@ public abstract class ApiBase<C extends AbstractCredentials> {
      * @param variablesAndValuesSupplier A function returning an array of
      * objects that contains the variable names and values of the logged method
      * pairwise.
+     * @deprecated Use {@link #logRequest(RequestLog)} and
+     * {@link #logBody(Object)}.
      */
+    @Deprecated
     protected void logParamsWithBody(String methodName, Object body, Supplier<Object[]> variablesAndValuesSupplier) {
         logParams(methodName, variablesAndValuesSupplier);
-
-        if (logger.isTraceEnabled()) {
-            logger.trace("Body of this request:\n{}", stringify(body));
-        }
+        logBody(body);
     }
 
     /**
@@ -348,6 +360,21 @@ public abstract class ApiBase<C extends AbstractCredentials> {
         }
     }
 
+    /**
+     * Logs the result of the given future like {@link #logResult(Object)} as
+     * soon as it is completed.
+     *
+     * @param <T>
+     * @param future
+     * @return A future completed with the same result as the given one.
+     */
+    protected <T> CompletableFuture<T> logResultWhenDone(CompletableFuture<T> future) {
+        return future.thenApply(result -> {
+            logResult(result);
+            return result;
+        });
+    }
+
     /**
      * Simply returns the given varrgs array. Intended to be used together with
      * {@link #logParams(String, Supplier)}
@@ -42,6 +42,8 @@ import io.swagger.annotations.Api;
 @Api(tags = {SwaggerAutoConfiguration.ASSETS_API_TAG})
 public class AssetsApi extends ApiBase implements IAssetsApi {
 
+    private static final RequestLog GET_ASSET_BY_ID = RequestLog.of("getAssetById", "assetId");
+
     @Autowired
     private IAssetsService service;
 
@@ -50,9 +52,9 @@ public class AssetsApi extends ApiBase implements IAssetsApi {
             String assetId,
             String token
     ) {
-        logParams("getAssetById", () -> array(
-                "assetId", assetId
-        ));
+        if (logRequest(GET_ASSET_BY_ID)) {
+            GET_ASSET_BY_ID.logParams(logger, assetId);
+        }
 
         var asset = service.getAssetById(assetId, parseToken(token));
 
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.config.SwaggerAutoConfiguration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.BookingAction;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.middleware.model.NewBooking;
+import de.hsesslingen.keim.efs.middleware.validation.OnCreate;
+import io.swagger.annotations.Api;
+import de.hsesslingen.keim.efs.middleware.validation.ConsistentBookingDateParams;
+
+/**
+ * Serves the {@link IBookingApi} using an {@link IAsyncBookingService}. The
+ * futures of the service are returned to Spring MVC, which completes the
+ * requests asynchronously, so that no servlet thread waits for the service.
+ *
+ * @author keim
+ */
+@Validated
+@RestController
+@ConditionalOnBean(IAsyncBookingService.class)
+@Api(tags = {SwaggerAutoConfiguration.BOOKING_API_TAG})
+public class AsyncBookingApi extends ApiBase implements IBookingEndpoints<CompletableFuture<List<Booking>>, CompletableFuture<Booking>> {
+
+    private static final String MISSING_TOKEN_MSG = "The Booking-API requires a token, but none was provided.";
+
+    private static final RequestLog GET_BOOKINGS = RequestLog.of("getBookings", "state");
+    private static final RequestLog GET_BOOKING_BY_ID = RequestLog.of("getBookingById", "id");
+    private static final RequestLog GET_BOOKING_EVENTS = RequestLog.of("getBookingEvents");
+    private static final RequestLog CREATE_NEW_BOOKING = RequestLog.of("createNewBooking", "optionReference");
+    private static final RequestLog MODIFY_BOOKING = RequestLog.of("modifyBooking", "id");
+    private static final RequestLog PERFORM_ACTION = RequestLog.of("performAction", "bookingId", "action", "secret");
+
+    @Autowired
+    private IAsyncBookingService service;
+
+    @Autowired(required = false)
+    private ETagResponseAdvice etags;
+
+    @Autowired
+    private BookingEventHub eventHub;
+
+    @Override
+    public CompletableFuture<List<Booking>> getBookings(BookingState state, String token) {
+        if (logRequest(GET_BOOKINGS)) {
+            GET_BOOKINGS.logParams(logger, state);
+        }
+
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
+
+        CompletableFuture<List<Booking>> bookings = service.getBookingsAsync(state, credentials);
+
+        return logResultWhenDone(bookings);
+    }
+
+    @Override
+    public CompletableFuture<Booking> getBookingById(String id, String token) {
+        if (logRequest(GET_BOOKING_BY_ID)) {
+            GET_BOOKING_BY_ID.logParams(logger, id);
+        }
+
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
+
+        if (etags != null && etags.isEnabled() && etags.checkNotModified(service.getBookingVersion(id, credentials))) {
+            // Unchanged since the client received it. Answered with 304 and no body.
+            return null;
+        }
+
+        CompletableFuture<Booking> booking = service.getBookingByIdAsync(id, credentials);
+
+        return logResultWhenDone(booking);
+    }
+
+    @Override
+    public SseEmitter getBookingEvents(String token) {
+        logRequest(GET_BOOKING_EVENTS);
+
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
+
+        return eventHub.subscribe(credentials);
+    }
+
+    @Override
+    public CompletableFuture<Booking> createNewBooking(
+            @Validated(OnCreate.class) @Valid @ConsistentBookingDateParams NewBooking newBooking,
+            String optionReference,
+            String token
+    ) {
+        if (logRequest(CREATE_NEW_BOOKING)) {
+            CREATE_NEW_BOOKING.logParams(logger, optionReference);
+        }
+        logBody(newBooking);
+
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
+
+        CompletableFuture<Booking> booking = service.createNewBookingAsync(newBooking, optionReference, credentials);
+
+        return logResultWhenDone(booking);
+    }
+
+    @Override
+    public CompletableFuture<Booking> modifyBooking(
+            String id,
+            @Valid @ConsistentBookingDateParams Booking booking,
+            String token
+    ) {
+        if (logRequest(MODIFY_BOOKING)) {
+            MODIFY_BOOKING.logParams(logger, id);
+        }
+        logBody(booking);
+
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
+
+        CompletableFuture<Booking> modified = service.modifyBookingAsync(id, booking, credentials);
+
+        return logResultWhenDone(modified);
+    }
+
+    @Override
+    public CompletableFuture<Booking> performAction(
+            String bookingId,
+            BookingAction action,
+            String secret,
+            String token
+    ) {
+        if (logRequest(PERFORM_ACTION)) {
+            PERFORM_ACTION.logParams(logger, bookingId, action, obfuscateConditional(secret));
+        }
+
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
+
+        CompletableFuture<Booking> booking = service.performActionAsync(bookingId, action, secret, credentials);
+
+        return logResultWhenDone(booking);
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.config.SwaggerAutoConfiguration;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RestController;
+
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.middleware.provider.config.ProviderProperties;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import io.swagger.annotations.Api;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+
+/**
+ * Serves the {@link IOptionsApi} using an {@link IAsyncOptionsService}. The
+ * future of the service is returned to Spring MVC, which completes the request
+ * asynchronously, so that no servlet thread waits for the service.
+ *
+ * @author keim
+ */
+@Validated
+@RestController
+@ConditionalOnBean({IAsyncOptionsService.class, ProviderProperties.class})
+@Api(tags = {SwaggerAutoConfiguration.OPTIONS_API_TAG})
+@AutoConfigureAfter(ProviderProperties.class)
+public class AsyncOptionsApi extends OptionsApiBase<CompletableFuture<List<Option>>> {
+
+    @Override
+    public CompletableFuture<List<Option>> getOptions(
+            String from,
+            String fromPlaceId,
+            String to,
+            String toPlaceId,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            String token
+    ) {
+        var geoPathEncoding = requestedGeoPathEncoding();
+
+        if (logRequest(GET_OPTIONS)) {
+            GET_OPTIONS.logParams(logger,
+                    from, fromPlaceId, to, toPlaceId, startTime, endTime, radiusMeter,
+                    sharingAllowed, stringifyCollection(modesAllowed, m -> m.name()),
+                    limitTo, includeGeoPaths, geoPathEncoding
+            );
+        }
+
+        if (isModesMismatch(modesAllowed)) {
+            var result = new ArrayList<Option>();
+            logResult(result);
+            return completedFuture(result);
+        }
+
+        // Converting input params...
+        var placeFrom = toPlaceFrom(from, fromPlaceId);
+        var placeTo = toPlaceTo(to, toPlaceId);
+
+        // Getting options from user implemented OptionsService. Also asynchronous if wrapped by the cache.
+        CompletableFuture<List<Option>> result = ((IAsyncOptionsService) optionsService).getOptionsAsync(
+                placeFrom, placeTo, startTime, endTime, radiusMeter,
+                sharingAllowed, modesAllowed, limitTo, includeGeoPaths,
+                parseToken(token)
+        );
+
+        return result.thenApply(options -> encodeAndLog(options, geoPathEncoding));
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.config.SwaggerAutoConfiguration;
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.middleware.validation.ParsedPositions;
+import io.swagger.annotations.Api;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the {@link IPlacesApi} using an {@link IAsyncPlacesService}. The
+ * future of the service is returned to Spring MVC, which completes the request
+ * asynchronously, so that no servlet thread waits for the service.
+ *
+ * @author keim
+ */
+@Validated
+@RestController
+@ConditionalOnBean(IAsyncPlacesService.class)
+@Api(tags = {SwaggerAutoConfiguration.PLACES_API_TAG})
+public class AsyncPlacesApi extends ApiBase implements IPlacesEndpoints<CompletableFuture<List<Place>>> {
+
+    private static final RequestLog SEARCH_PLACES = RequestLog.of("searchPlaces", "query", "areaCenter", "radiusMeter", "limitTo");
+
+    @Autowired
+    private IAsyncPlacesService service;
+
+    @Override
+    public CompletableFuture<List<Place>> searchPlaces(
+            String query,
+            String areaCenter,
+            Integer radiusMeter,
+            Integer limitTo,
+            String token
+    ) {
+        if (logRequest(SEARCH_PLACES)) {
+            SEARCH_PLACES.logParams(logger, query, areaCenter, radiusMeter, limitTo);
+        }
+
+        // Convert input params...
+        var coordinates = ParsedPositions.getCoordinates(areaCenter);
+
+        // Delegate search to user implemented PlacesService...
+        CompletableFuture<List<Place>> places = service.searchAsync(
+                query, coordinates, radiusMeter, limitTo,
+                parseToken(token)
+        );
+
+        return logResultWhenDone(places);
+    }
+
+}
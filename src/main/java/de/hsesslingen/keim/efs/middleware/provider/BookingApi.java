@@ -30,8 +30,10 @@ import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import de.hsesslingen.keim.efs.middleware.model.Booking;
 import de.hsesslingen.keim.efs.middleware.model.BookingAction;
@@ -42,30 +44,46 @@ import io.swagger.annotations.Api;
 import de.hsesslingen.keim.efs.middleware.validation.ConsistentBookingDateParams;
 
 /**
+ * Serves the {@link IBookingApi} using a synchronous {@link IBookingService}.
+ * See {@link AsyncBookingApi} for services implementing
+ * {@link IAsyncBookingService}.
+ *
  * @author boesch, K.Sivarasah
  */
 @Validated
 @RestController
 @ConditionalOnBean({IBookingService.class})
+@ConditionalOnMissingBean(IAsyncBookingService.class)
 @Api(tags = {SwaggerAutoConfiguration.BOOKING_API_TAG})
 public class BookingApi extends ApiBase implements IBookingApi {
 
     private static final String MISSING_TOKEN_MSG = "The Booking-API requires a token, but none was provided.";
 
+    private static final RequestLog GET_BOOKINGS = RequestLog.of("getBookings", "state");
+    private static final RequestLog GET_BOOKING_BY_ID = RequestLog.of("getBookingById", "id");
+    private static final RequestLog GET_BOOKING_EVENTS = RequestLog.of("getBookingEvents");
+    private static final RequestLog CREATE_NEW_BOOKING = RequestLog.of("createNewBooking", "optionReference");
+    private static final RequestLog MODIFY_BOOKING = RequestLog.of("modifyBooking", "id");
+    private static final RequestLog PERFORM_ACTION = RequestLog.of("performAction", "bookingId", "action", "secret");
+
     @Autowired
     private IBookingService service;
 
+    @Autowired(required = false)
+    private ETagResponseAdvice etags;
+
+    @Autowired
+    private BookingEventHub eventHub;
+
     @Override
     public List<Booking> getBookings(BookingState state, String token) {
-        logParams("getBookings", () -> array(
-                "state", state
-        ));
+        if (logRequest(GET_BOOKINGS)) {
+            GET_BOOKINGS.logParams(logger, state);
+        }
 
-        var bookings = service.getBookings(
-                state,
-                parseRequiredToken(token, MISSING_TOKEN_MSG)
-        );
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
 
+        var bookings = service.getBookings(state, credentials);
         logResult(bookings);
 
         return bookings;
@@ -73,18 +91,30 @@ public class BookingApi extends ApiBase implements IBookingApi {
 
     @Override
     public Booking getBookingById(String id, String token) {
-        logParams("getBookingById", () -> array(
-                "id", id
-        ));
+        if (logRequest(GET_BOOKING_BY_ID)) {
+            GET_BOOKING_BY_ID.logParams(logger, id);
+        }
+
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
 
-        var result = service.getBookingById(
-                id,
-                parseRequiredToken(token, MISSING_TOKEN_MSG)
-        );
+        if (etags != null && etags.isEnabled() && etags.checkNotModified(service.getBookingVersion(id, credentials))) {
+            // Unchanged since the client received it. Answered with 304 and no body.
+            return null;
+        }
+
+        var booking = service.getBookingById(id, credentials);
+        logResult(booking);
+
+        return booking;
+    }
+
+    @Override
+    public SseEmitter getBookingEvents(String token) {
+        logRequest(GET_BOOKING_EVENTS);
 
-        logResult(result);
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
 
-        return result;
+        return eventHub.subscribe(credentials);
     }
 
     @Override
@@ -93,18 +123,17 @@ public class BookingApi extends ApiBase implements IBookingApi {
             String optionReference,
             String token
     ) {
-        logParamsWithBody("createNewBooking", newBooking, () -> array(
-                "optionReference", optionReference
-        ));
+        if (logRequest(CREATE_NEW_BOOKING)) {
+            CREATE_NEW_BOOKING.logParams(logger, optionReference);
+        }
+        logBody(newBooking);
 
-        var result = service.createNewBooking(
-                newBooking, optionReference,
-                parseRequiredToken(token, MISSING_TOKEN_MSG)
-        );
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
 
-        logResult(result);
+        var booking = service.createNewBooking(newBooking, optionReference, credentials);
+        logResult(booking);
 
-        return result;
+        return booking;
     }
 
     @Override
@@ -113,19 +142,17 @@ public class BookingApi extends ApiBase implements IBookingApi {
             @Valid @ConsistentBookingDateParams Booking booking,
             String token
     ) {
-        logParamsWithBody("modifyBooking", booking, () -> array(
-                "id", id
-        ));
+        if (logRequest(MODIFY_BOOKING)) {
+            MODIFY_BOOKING.logParams(logger, id);
+        }
+        logBody(booking);
 
-        var result = service.modifyBooking(
-                id,
-                booking,
-                parseRequiredToken(token, MISSING_TOKEN_MSG)
-        );
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
 
-        logResult(result);
+        var modified = service.modifyBooking(id, booking, credentials);
+        logResult(modified);
 
-        return result;
+        return modified;
     }
 
     @Override
@@ -135,20 +162,16 @@ public class BookingApi extends ApiBase implements IBookingApi {
             String secret,
             String token
     ) {
-        logParams("performAction", () -> array(
-                "bookingId", bookingId,
-                "action", action,
-                "secret", obfuscateConditional(secret)
-        ));
+        if (logRequest(PERFORM_ACTION)) {
+            PERFORM_ACTION.logParams(logger, bookingId, action, obfuscateConditional(secret));
+        }
 
-        var result = service.performAction(
-                bookingId, action, secret,
-                parseRequiredToken(token, MISSING_TOKEN_MSG)
-        );
+        var credentials = parseRequiredToken(token, MISSING_TOKEN_MSG);
 
-        logResult(result);
+        var booking = service.performAction(bookingId, action, secret, credentials);
+        logResult(booking);
 
-        return result;
+        return booking;
     }
 
 }
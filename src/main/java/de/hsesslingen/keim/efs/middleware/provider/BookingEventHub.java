@@ -0,0 +1,320 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.model.BookingEvent;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Keeps the subscriptions to booking events of the {@link BookingApi} and
+ * delivers published events to them as server-sent events. See
+ * {@link IBookingEventPublisher}.
+ * <p>
+ * Publishing never blocks the caller. Every subscription has a queue of
+ * pending events, which is sent by a thread of a pool of fixed size. The
+ * events of a subscription are sent in order and by at most one thread at a
+ * time, so a subscriber that does not read its events only stalls that
+ * thread, but not the delivery to other subscribers. Such subscribers are
+ * dropped if too many events are pending for them or if sending a single
+ * event takes too long. Subscriptions whose connection broke are removed when
+ * sending the next event or heartbeat fails.
+ * <p>
+ * The following properties are available:
+ * <ul>
+ * <li>{@code middleware.provider.booking-events.timeout}: How long a
+ * subscription lasts before the subscriber has to reconnect.</li>
+ * <li>{@code middleware.provider.booking-events.heartbeat-interval}: Interval
+ * of the comments that keep idle connections open. Must be shorter than the
+ * read timeout of the consumers.</li>
+ * <li>{@code middleware.provider.booking-events.send-threads}: Number of
+ * threads sending events. Also the number of stalled subscribers that can be
+ * tolerated at the same time before they are dropped.</li>
+ * <li>{@code middleware.provider.booking-events.max-pending-events}: Maximum
+ * number of events waiting to be sent to a single subscriber.</li>
+ * <li>{@code middleware.provider.booking-events.send-timeout}: How long
+ * sending a single event may take before the subscriber is dropped. Checked
+ * at each heartbeat.</li>
+ * </ul>
+ *
+ * @author keim
+ * @param <C>
+ */
+@Service
+@Lazy
+@ConditionalOnBean(IBookingService.class)
+public class BookingEventHub<C extends AbstractCredentials> implements IBookingEventPublisher<C> {
+
+    private static final Logger logger = getLogger(BookingEventHub.class);
+
+    @Value("${middleware.provider.booking-events.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${middleware.provider.booking-events.heartbeat-interval:10s}")
+    private Duration heartbeatInterval;
+
+    @Value("${middleware.provider.booking-events.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${middleware.provider.booking-events.max-pending-events:100}")
+    private int maxPendingEvents;
+
+    @Value("${middleware.provider.booking-events.send-timeout:30s}")
+    private Duration sendTimeout;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Distributes published events and heartbeats to the subscriptions.
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Sends the pending events of the subscriptions. Has at most one task per
+     * subscription queued.
+     */
+    private ExecutorService senders;
+
+    /**
+     * A connected subscriber together with its credentials.
+     */
+    private class Subscription {
+
+        private final SseEmitter emitter;
+        private final C credentials;
+
+        /**
+         * Events waiting to be sent. Guarded by {@code this}.
+         */
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+
+        /**
+         * Whether a task sending the pending events is queued or running.
+         * Guarded by {@code this}.
+         */
+        private boolean draining;
+
+        /**
+         * Since when the event currently being sent is sent, as returned by
+         * {@link System#currentTimeMillis()}, or {@code 0}.
+         */
+        private volatile long sendingSince;
+
+        private Subscription(SseEmitter emitter, C credentials) {
+            this.emitter = emitter;
+            this.credentials = credentials;
+        }
+
+        /**
+         * Queues the given event for sending. If too many events are pending
+         * already, the subscription is closed instead.
+         */
+        private void send(SseEmitter.SseEventBuilder event) {
+            boolean overflow;
+            boolean startDraining = false;
+
+            synchronized (this) {
+                overflow = pending.size() >= maxPendingEvents;
+
+                if (!overflow) {
+                    pending.add(event);
+                    startDraining = !draining;
+                    draining = true;
+                }
+            }
+
+            if (overflow) {
+                close(new IllegalStateException("Too many booking events pending for subscriber."));
+                return;
+            }
+
+            if (startDraining) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    close(ex);
+                }
+            }
+        }
+
+        /**
+         * Sends the pending events until none are left. If sending fails, the
+         * subscription is closed.
+         */
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+
+                synchronized (this) {
+                    event = pending.poll();
+
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+
+                sendingSince = System.currentTimeMillis();
+
+                try {
+                    emitter.send(event);
+                } catch (IOException | RuntimeException ex) {
+                    close(ex);
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+
+        /**
+         * Whether sending the current event takes longer than allowed.
+         */
+        private boolean isStalled(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > sendTimeout.toMillis();
+        }
+
+        private void close(Exception ex) {
+            if (subscriptions.remove(this)) {
+                logger.debug("Closing booking events subscription: {}", ex.getMessage());
+                emitter.completeWithError(ex);
+            }
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "efs-booking-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        var threadNumber = new AtomicInteger();
+
+        senders = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            var thread = new Thread(runnable, "efs-booking-events-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = heartbeatInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+        senders.shutdownNow();
+        subscriptions.forEach(s -> s.emitter.complete());
+        subscriptions.clear();
+    }
+
+    /**
+     * Creates a new subscription for the given credentials. The returned
+     * emitter is meant to be returned by the controller.
+     *
+     * @param credentials
+     * @return
+     */
+    public SseEmitter subscribe(C credentials) {
+        var emitter = new SseEmitter(timeout.toMillis());
+        var subscription = new Subscription(emitter, credentials);
+
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(ex -> subscriptions.remove(subscription));
+
+        subscriptions.add(subscription);
+
+        return emitter;
+    }
+
+    @Override
+    public void publish(BookingEvent event, Predicate<? super C> recipients) {
+        try {
+            executor.execute(() -> deliver(event, recipients));
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Dropping event of booking {} because the publisher is shut down.", event.getBookingId());
+        }
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private void deliver(BookingEvent event, Predicate<? super C> recipients) {
+        for (var subscription : subscriptions) {
+            boolean accepted;
+
+            try {
+                accepted = recipients.test(subscription.credentials);
+            } catch (RuntimeException ex) {
+                logger.warn("Recipients filter failed for event of booking {}: {}", event.getBookingId(), ex.getMessage());
+                accepted = false;
+            }
+
+            if (accepted) {
+                // Builders are modified when sent, so each subscription needs its own.
+                subscription.send(SseEmitter.event().name(IBookingApi.BOOKING_EVENT_NAME).data(event, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        long now = System.currentTimeMillis();
+
+        for (var subscription : subscriptions) {
+            if (subscription.isStalled(now)) {
+                subscription.close(new IllegalStateException("Sending a booking event took longer than " + sendTimeout + "."));
+            } else {
+                subscription.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+}
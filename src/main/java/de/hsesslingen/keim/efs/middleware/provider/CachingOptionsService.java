@@ -0,0 +1,332 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.middleware.provider.config.OptionsCacheProperties;
+import de.hsesslingen.keim.efs.middleware.provider.config.OptionsCacheProperties.CredentialScope;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import de.hsesslingen.keim.efs.middleware.utils.Cache;
+import static de.hsesslingen.keim.efs.middleware.utils.QuantizationUtils.quantize;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import static java.util.Collections.unmodifiableList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.core.ResolvableType;
+
+/**
+ * Decorates an {@link IOptionsService} with a cache, so that repeated requests
+ * with (nearly) identical params within a short time do not hit the backend of
+ * the provider again. This is useful for providers whose backends are rate
+ * limited or slow.
+ * <p>
+ * The cache key consists of the positions of {@code from} and {@code to}
+ * quantized to a grid, the start and end time quantized to buckets, the
+ * allowed modes, the radius and the other params of the request. Depending on
+ * {@link OptionsCacheProperties#getCredentialScope()}, the credentials are part
+ * of the key as well. In that case, the credentials class must override
+ * {@code equals} and {@code hashCode} based on its fields, e.g. using
+ * {@code @EqualsAndHashCode(callSuper = true)} of Lombok. Otherwise, all
+ * credentials would be considered equal because of the {@code @Data}
+ * annotation of {@link AbstractCredentials}. A warning is logged for such
+ * classes and requests with their credentials are not cached.
+ * <p>
+ * The cached lists are shared between requests and must not be modified.
+ * <p>
+ * The decorator is applied automatically by the options API if
+ * {@code middleware.provider.options-api.cache.enabled} is set. See
+ * {@link OptionsCacheProperties} for all settings.
+ *
+ * @author keim
+ * @param <C>
+ */
+public class CachingOptionsService<C extends AbstractCredentials> implements IAsyncOptionsService<C>, IStreamingOptionsService<C> {
+
+    private static final Logger logger = getLogger(CachingOptionsService.class);
+
+    private final IOptionsService<C> delegate;
+    private final OptionsCacheProperties properties;
+    private final Cache<Object, List<Option>> cache;
+
+    /**
+     * Whether the credentials classes seen so far override {@code equals} and
+     * {@code hashCode}.
+     */
+    private final ConcurrentHashMap<Class<?>, Boolean> credentialsTypes = new ConcurrentHashMap<>();
+
+    public CachingOptionsService(IOptionsService<C> delegate, OptionsCacheProperties properties) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.cache = new Cache<>(properties.getTtl(), properties.getMaxSize());
+
+        if (properties.getCredentialScope() != CredentialScope.none) {
+            // Check the credentials class at startup already, if the delegate declares it.
+            var credentialsType = ResolvableType.forClass(delegate.getClass()).as(IOptionsService.class).resolveGeneric(0);
+
+            if (credentialsType != null && credentialsType != AbstractCredentials.class) {
+                isUsableAsKey(credentialsType);
+            }
+        }
+    }
+
+    /**
+     * Gets the decorated service.
+     *
+     * @return
+     */
+    public IOptionsService<C> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public List<Option> getOptions(
+            Place from,
+            Place to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            C credentials
+    ) {
+        return AsyncServices.join(getOptionsAsync(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials));
+    }
+
+    @Override
+    public CompletableFuture<List<Option>> getOptionsAsync(
+            Place from,
+            Place to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            C credentials
+    ) {
+        var key = createKey(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials);
+        var cached = key == null ? Optional.<List<Option>>empty() : cache.get(key);
+
+        if (cached.isPresent()) {
+            return completedFuture(cached.get());
+        }
+
+        CompletableFuture<List<Option>> result;
+
+        if (delegate instanceof IAsyncOptionsService) {
+            result = ((IAsyncOptionsService<C>) delegate).getOptionsAsync(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials);
+        } else {
+            result = completedFuture(delegate.getOptions(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials));
+        }
+
+        return key == null ? result : result.thenApply(options -> put(key, options));
+    }
+
+    @Override
+    public void streamOptions(
+            Place from,
+            Place to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            C credentials,
+            Predicate<Option> sink
+    ) {
+        var key = createKey(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials);
+        var cached = key == null ? Optional.<List<Option>>empty() : cache.get(key);
+
+        if (cached.isPresent() || !(delegate instanceof IStreamingOptionsService)) {
+            var options = cached.isPresent()
+                    ? cached.get()
+                    : getOptions(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials);
+
+            if (options != null) {
+                for (var option : options) {
+                    if (!sink.test(option)) {
+                        break;
+                    }
+                }
+            }
+            return;
+        }
+
+        var collected = new ArrayList<Option>();
+        var complete = new boolean[]{true};
+
+        ((IStreamingOptionsService<C>) delegate).streamOptions(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials, option -> {
+            collected.add(option);
+
+            if (!sink.test(option)) {
+                // Stopping because of the limit still yields the complete result for this key.
+                complete[0] = limitTo != null && collected.size() >= limitTo;
+                return false;
+            }
+            return true;
+        });
+
+        // Only a complete result may be served to later requests.
+        if (complete[0] && key != null) {
+            put(key, collected);
+        }
+    }
+
+    /**
+     * Removes all cached options.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * Creates the cache key of a request.
+     *
+     * @return The key or {@code null} if the request must not be cached.
+     */
+    private Object createKey(
+            Place from,
+            Place to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            C credentials
+    ) {
+        boolean perUser = properties.getCredentialScope() != CredentialScope.none;
+
+        if (perUser && credentials != null && !isUsableAsKey(credentials.getClass())) {
+            return null;
+        }
+
+        double cellMeters = properties.getCellMeters();
+        var timeBucket = properties.getTimeBucket();
+
+        return Arrays.asList(
+                quantize(from, cellMeters),
+                from == null ? null : from.getId(),
+                quantize(to, cellMeters),
+                to == null ? null : to.getId(),
+                quantize(startTime, timeBucket),
+                quantize(endTime, timeBucket),
+                radiusMeter,
+                sharingAllowed,
+                modesAllowed == null ? null : new TreeSet<>(modesAllowed),
+                limitTo,
+                includeGeoPaths,
+                perUser ? credentials : null
+        );
+    }
+
+    /**
+     * Checks whether the given credentials class overrides {@code equals} and
+     * {@code hashCode}, which is required to use its instances as part of the
+     * cache key. Logs a warning the first time a class does not.
+     */
+    private boolean isUsableAsKey(Class<?> credentialsType) {
+        return credentialsTypes.computeIfAbsent(credentialsType, type -> {
+            boolean overrides = declaresOwn(type, "equals", Object.class) && declaresOwn(type, "hashCode");
+
+            if (!overrides) {
+                logger.warn("Credentials class {} does not override equals and hashCode, so its instances can not be told apart. "
+                        + "Options requested with such credentials are not cached. Override both or set "
+                        + "middleware.provider.options-api.cache.credential-scope to none if options do not depend on the user.", type.getName());
+            }
+
+            return overrides;
+        });
+    }
+
+    private static boolean declaresOwn(Class<?> type, String method, Class<?>... params) {
+        try {
+            var declaringClass = type.getMethod(method, params).getDeclaringClass();
+            return declaringClass != Object.class && declaringClass != AbstractCredentials.class;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Stores the given options under the given key and returns the list that
+     * is served from now on.
+     */
+    private List<Option> put(Object key, List<Option> options) {
+        if (options == null) {
+            return null;
+        }
+
+        long ttlMillis = properties.getTtl().toMillis();
+
+        if (properties.isHonorValidUntil()) {
+            var now = ZonedDateTime.now();
+
+            for (var option : options) {
+                if (option != null && option.getValidUntil() != null) {
+                    ttlMillis = Math.min(ttlMillis, Duration.between(now, option.getValidUntil()).toMillis());
+                }
+            }
+        }
+
+        var shared = unmodifiableList(new ArrayList<>(options));
+
+        if (ttlMillis > 0) {
+            cache.set(key, shared, Duration.ofMillis(ttlMillis));
+        }
+
+        return shared;
+    }
+}
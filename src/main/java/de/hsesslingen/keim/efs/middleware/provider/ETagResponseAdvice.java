@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hsesslingen.keim.efs.middleware.provider.config.ProviderProperties;
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds an {@code ETag} header to the responses of the GET endpoints of the
+ * {@link BookingApi}, the {@link AsyncBookingApi} and the {@link AssetsApi}
+ * and answers conditional requests ({@code If-None-Match}) for unchanged
+ * resources with {@code 304 Not Modified} and an empty body.
+ * <p>
+ * By default, the {@code ETag} is a hash of the serialized response body. If
+ * the {@link IBookingService} supplies versions of its bookings (see
+ * {@link IBookingService#getBookingVersion}), the booking controllers use
+ * those instead by calling {@link #checkNotModified(String)} before loading a
+ * booking.
+ * <p>
+ * Can be disabled by setting {@code middleware.provider.etags.enabled} to
+ * {@code false}.
+ *
+ * @author keim
+ */
+@ControllerAdvice(assignableTypes = {BookingApi.class, AsyncBookingApi.class, AssetsApi.class})
+@ConditionalOnBean(ProviderProperties.class)
+@AutoConfigureAfter(ProviderProperties.class)
+public class ETagResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final Logger logger = getLogger(ETagResponseAdvice.class);
+
+    @Value("${middleware.provider.etags.enabled:true}")
+    private boolean enabled;
+
+    @Autowired(required = false)
+    private ObjectMapper mapper;
+
+    @PostConstruct
+    private void init() {
+        if (mapper == null) {
+            mapper = new ObjectMapper().findAndRegisterModules();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(
+            Object body,
+            MethodParameter returnType,
+            MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            ServerHttpRequest request,
+            ServerHttpResponse response
+    ) {
+        if (body == null
+                || request.getMethod() != HttpMethod.GET
+                || !(request instanceof ServletServerHttpRequest)
+                || !(response instanceof ServletServerHttpResponse)) {
+            return body;
+        }
+
+        var servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+        var servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+
+        if (servletResponse.getHeader(HttpHeaders.ETAG) != null) {
+            // Already tagged using a version supplied by the service.
+            return body;
+        }
+
+        String etag;
+        try {
+            etag = "\"0" + DigestUtils.md5DigestAsHex(mapper.writeValueAsBytes(body)) + "\"";
+        } catch (JsonProcessingException ex) {
+            logger.debug("Could not compute ETag of response: {}", ex.getMessage());
+            return body;
+        }
+
+        return checkNotModified(servletRequest, servletResponse, etag) ? null : body;
+    }
+
+    /**
+     * Checks the {@code If-None-Match} header of the current request against
+     * the given version of the requested resource. If they match, the response
+     * status is set to {@code 304 Not Modified} and the caller should not
+     * produce a body. Otherwise, the version is used as {@code ETag} of the
+     * response instead of a hash of its body.
+     * <p>
+     * Endpoints calling this must not be annotated with
+     * {@link org.springframework.web.bind.annotation.ResponseStatus}, because
+     * Spring MVC would replace the {@code 304} with that status.
+     *
+     * @param version The current version of the requested resource. May be
+     * {@code null}, in which case nothing is done.
+     * @return Whether the resource was not modified.
+     */
+    public boolean checkNotModified(String version) {
+        if (!enabled || version == null) {
+            return false;
+        }
+
+        var attributes = RequestContextHolder.getRequestAttributes();
+
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return false;
+        }
+
+        var servletAttributes = (ServletRequestAttributes) attributes;
+
+        if (servletAttributes.getResponse() == null) {
+            return false;
+        }
+
+        return checkNotModified(servletAttributes.getRequest(), servletAttributes.getResponse(), version);
+    }
+
+    private static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        return new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.BookingAction;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.middleware.model.NewBooking;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.validation.Valid;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Asynchronous variant of {@link IBookingService}. If the booking service bean
+ * implements this interface, the booking endpoints are served by
+ * {@link AsyncBookingApi}, which does not block a servlet thread while waiting
+ * for the returned futures, but returns them to Spring MVC.
+ * <p>
+ * The synchronous methods are implemented by waiting for the asynchronous
+ * ones. See {@link IBookingService} for details on the params.
+ *
+ * @author keim
+ * @param <C>
+ */
+public interface IAsyncBookingService<C extends AbstractCredentials> extends IBookingService<C> {
+
+    public @NonNull
+    CompletableFuture<List<Booking>> getBookingsAsync(BookingState state, @NonNull @Valid C credentials);
+
+    public CompletableFuture<Booking> getBookingByIdAsync(String id, @NonNull @Valid C credentials);
+
+    public CompletableFuture<Booking> createNewBookingAsync(NewBooking newBooking, @Nullable String optionReference, @NonNull @Valid C credentials);
+
+    public CompletableFuture<Booking> modifyBookingAsync(String id, Booking booking, @NonNull @Valid C credentials);
+
+    public CompletableFuture<Booking> performActionAsync(
+            @NonNull String bookingId,
+            @NonNull BookingAction action,
+            @Nullable String secret,
+            @NonNull @Valid C credentials
+    );
+
+    @Override
+    public default List<Booking> getBookings(BookingState state, C credentials) {
+        return AsyncServices.join(getBookingsAsync(state, credentials));
+    }
+
+    @Override
+    public default Booking getBookingById(String id, C credentials) {
+        return AsyncServices.join(getBookingByIdAsync(id, credentials));
+    }
+
+    @Override
+    public default Booking createNewBooking(NewBooking newBooking, String optionReference, C credentials) {
+        return AsyncServices.join(createNewBookingAsync(newBooking, optionReference, credentials));
+    }
+
+    @Override
+    public default Booking modifyBooking(String id, Booking booking, C credentials) {
+        return AsyncServices.join(modifyBookingAsync(id, booking, credentials));
+    }
+
+    @Override
+    public default Booking performAction(String bookingId, BookingAction action, String secret, C credentials) {
+        return AsyncServices.join(performActionAsync(bookingId, action, secret, credentials));
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import javax.validation.Valid;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Asynchronous variant of {@link IOptionsService}. If the options service bean
+ * implements this interface, the options endpoints are served by
+ * {@link AsyncOptionsApi}, which does not block a servlet thread while waiting
+ * for the returned future, but returns the future to Spring MVC.
+ * <p>
+ * Implement this interface instead of {@link IOptionsService} if the options
+ * are fetched from a remote API using a non-blocking client. The synchronous
+ * method is implemented by waiting for the asynchronous one.
+ *
+ * @author keim
+ * @param <C>
+ */
+public interface IAsyncOptionsService<C extends AbstractCredentials> extends IOptionsService<C> {
+
+    /**
+     * Asynchronously returns available mobility options for the given
+     * criteria. See
+     * {@link IOptionsService#getOptions(Place, Place, ZonedDateTime, ZonedDateTime, Integer, Boolean, Set, Integer, Boolean, AbstractCredentials)}
+     * for details on the params.
+     *
+     * @param from
+     * @param to
+     * @param startTime
+     * @param endTime
+     * @param radiusMeter
+     * @param sharingAllowed
+     * @param modesAllowed
+     * @param limitTo
+     * @param includeGeoPaths
+     * @param credentials
+     * @return A future of the list of {@link Option}
+     */
+    @NonNull
+    public CompletableFuture<List<Option>> getOptionsAsync(
+            @NonNull Place from,
+            @Nullable Place to,
+            @Nullable ZonedDateTime startTime,
+            @Nullable ZonedDateTime endTime,
+            @Nullable Integer radiusMeter,
+            @Nullable Boolean sharingAllowed,
+            @Nullable Set<Mode> modesAllowed,
+            @Nullable Integer limitTo,
+            @Nullable Boolean includeGeoPaths,
+            @Nullable @Valid C credentials
+    );
+
+    @Override
+    public default List<Option> getOptions(
+            Place from,
+            Place to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            C credentials
+    ) {
+        return AsyncServices.join(getOptionsAsync(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials));
+    }
+
+}
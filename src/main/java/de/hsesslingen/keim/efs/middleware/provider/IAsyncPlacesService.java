@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link IPlacesService}. If the places service bean
+ * implements this interface, the places endpoint is served by
+ * {@link AsyncPlacesApi}, which does not block a servlet thread while waiting
+ * for the returned future, but returns the future to Spring MVC.
+ * <p>
+ * The synchronous method is implemented by waiting for the asynchronous one.
+ *
+ * @author keim
+ * @param <C>
+ */
+public interface IAsyncPlacesService<C extends AbstractCredentials> extends IPlacesService<C> {
+
+    /**
+     * Asynchronously searches places. See
+     * {@link IPlacesService#search(String, ICoordinates, Integer, Integer, AbstractCredentials)}
+     * for details on the params.
+     *
+     * @param query
+     * @param areaCenter
+     * @param radiusMeter
+     * @param limitTo
+     * @param credentials
+     * @return
+     */
+    public CompletableFuture<List<Place>> searchAsync(
+            String query,
+            ICoordinates areaCenter,
+            Integer radiusMeter,
+            Integer limitTo,
+            C credentials
+    );
+
+    @Override
+    public default List<Place> search(
+            String query,
+            ICoordinates areaCenter,
+            Integer radiusMeter,
+            Integer limitTo,
+            C credentials
+    ) {
+        return AsyncServices.join(searchAsync(query, areaCenter, radiusMeter, limitTo, credentials));
+    }
+
+}
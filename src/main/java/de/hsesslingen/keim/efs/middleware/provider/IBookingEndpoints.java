@@ -0,0 +1,228 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.BookingEvent;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.middleware.model.BookingAction;
+import de.hsesslingen.keim.efs.middleware.model.NewBooking;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import static de.hsesslingen.keim.efs.middleware.provider.ITokensApi.TOKEN_DESCRIPTION;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import org.springframework.web.bind.annotation.RequestHeader;
+import javax.validation.Valid;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import de.hsesslingen.keim.efs.middleware.validation.ConsistentBookingDateParams;
+import de.hsesslingen.keim.efs.middleware.validation.OnCreate;
+import de.hsesslingen.keim.efs.mobility.config.EfsSwaggerApiResponseSupport;
+import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import springfox.documentation.annotations.ApiIgnore;
+
+/**
+ * The endpoints of the {@link IBookingApi}. The types of their results are
+ * type parameters, so that they can be implemented synchronously, as by
+ * {@link BookingApi}, or asynchronously, as by {@link AsyncBookingApi}, which
+ * returns futures to Spring MVC.
+ *
+ * @author keim
+ * @param <L> The result type of {@link #getBookings}, i.e. a list of bookings
+ * or a future of it.
+ * @param <B> The result type of the endpoints returning a single booking, i.e.
+ * a booking or a future of it.
+ */
+@EfsSwaggerApiResponseSupport
+@RequestMapping(value = "/api", produces = MediaType.APPLICATION_JSON_VALUE)
+public interface IBookingEndpoints<L, B> {
+
+    public static final String PATH = "/bookings";
+    public static final String EVENTS_PATH = PATH + "/events";
+
+    /**
+     * Name of the server-sent events that carry a {@link BookingEvent}.
+     */
+    public static final String BOOKING_EVENT_NAME = "booking";
+
+    /**
+     * Returns a list of bookings associated with the account that is
+     * represented by the given token.
+     *
+     * @param state An optional state by which to filter the bookings.
+     * @param token A token that identifies and authenticates a user, sometimes
+     * with a limited duration of validity. See {@link ITokensApi} for more
+     * details on tokens. This value is almost certainly required by all
+     * mobility service providers for querying the {@link IBookingApi}.
+     * @return List of {@link Booking}, or a future completed with it.
+     */
+    @GetMapping(PATH)
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Get Bookings", notes = "Returns a list of Booking optionally filtered by their state.")
+    public L getBookings(
+            @ApiParam("An optional state by which to filter the bookings.")
+            @RequestParam(required = false) BookingState state,
+            //
+            @ApiParam(value = TOKEN_DESCRIPTION)
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token
+    );
+
+    /**
+     * Gets a particular {@link Booking} using the booking id.
+     *
+     * @param id The ID of the booking which shall be retrieved.
+     * @param token A token that identifies and authenticates a user, sometimes
+     * with a limited duration of validity. See {@link ITokensApi} for more
+     * details on tokens. This value is almost certainly required by all
+     * mobility service providers for querying the {@link IBookingApi}.
+     * @return The {@link Booking} object
+     */
+    // No @ResponseStatus here: It would overwrite a 304 Not Modified set by ETagResponseAdvice#checkNotModified(String).
+    @GetMapping(PATH + "/{id}")
+    @ApiOperation(value = "Get Booking by Id", notes = "Returns the Booking with the given unique booking id")
+    public B getBookingById(
+            @ApiParam("The ID of the booking which shall be retrieved.")
+            @PathVariable String id,
+            //
+            @ApiParam(value = TOKEN_DESCRIPTION)
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token
+    );
+
+    /**
+     * Subscribes to changes of the bookings associated with the account that
+     * is represented by the given token. The changes are sent as server-sent
+     * events named {@link #BOOKING_EVENT_NAME} whose data is a JSON serialized
+     * {@link BookingEvent}. Comments are sent regularly to keep the connection
+     * open.
+     * <p>
+     * The stream ends after a timeout configured by the provider. Subscribers
+     * should reconnect then.
+     *
+     * @param token A token that identifies and authenticates a user, sometimes
+     * with a limited duration of validity. See {@link ITokensApi} for more
+     * details on tokens. This value is almost certainly required by all
+     * mobility service providers for querying the {@link IBookingApi}.
+     * @return
+     */
+    @ApiIgnore
+    @GetMapping(value = EVENTS_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public SseEmitter getBookingEvents(
+            @ApiParam(value = TOKEN_DESCRIPTION)
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token
+    );
+
+    /**
+     * Creates a new booking and returns it.
+     *
+     * @param newBooking The {@link NewBooking} that should be created.
+     * @param optionReference An optional reference to an {@link Option} that
+     * unambiguously references this option for booking. This reference is
+     * sometimes given in instances of {@link Option}.
+     * @param token A token that identifies and authenticates a user, sometimes
+     * with a limited duration of validity. See {@link ITokensApi} for more
+     * details on tokens. This value is almost certainly required by all
+     * mobility service providers for querying the {@link IBookingApi}.
+     * @return {@link Booking} that was created
+     */
+    @PostMapping(PATH)
+    @ResponseStatus(HttpStatus.CREATED)
+    @ApiOperation(value = "Create a new Booking", notes = "Creates a new Booking for a service-provider in BOOKED or STARTED state using the provided NewBooking object and returns it")
+    public B createNewBooking(
+            @ApiParam("The booking that should be created.")
+            @RequestBody @Validated(OnCreate.class) @Valid @ConsistentBookingDateParams NewBooking newBooking,
+            //
+            @ApiParam("An optional reference to an \"Option\" that unambiguously references this option for booking. This reference is sometimes given in instances of \"Option\".")
+            @RequestParam(required = false) String optionReference,
+            //
+            @ApiParam(value = TOKEN_DESCRIPTION)
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token
+    );
+
+    /**
+     * Updates an existing {@link Booking} with new details.
+     *
+     * @param id The ID of the booking that shall be modified.
+     * @param booking The {@link Booking} object containing modified data
+     * @param token A token that identifies and authenticates a user, sometimes
+     * with a limited duration of validity. See {@link ITokensApi} for more
+     * details on tokens. This value is almost certainly required by all
+     * mobility service providers for querying the {@link IBookingApi}.
+     * @return the modified {@link Booking} object
+     */
+    @PutMapping(PATH + "/{id}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @ApiOperation(value = "Modify a Booking", notes = "Updates an existing Booking with the provided details")
+    public B modifyBooking(
+            @ApiParam("The ID of the booking that shall be modified.")
+            @PathVariable String id,
+            //
+            @ApiParam("The Booking object containing the modified data.")
+            @RequestBody @Valid @ConsistentBookingDateParams Booking booking,
+            //
+            @ApiParam(value = TOKEN_DESCRIPTION)
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token
+    );
+
+    /**
+     * Can be used to perform actions on bookings.
+     *
+     * @param bookingId The ID of the booking on which to perform the action.
+     * @param action The action that should be performed on the booking with the
+     * given {@link bookingId}.
+     * @param secret An optional secret that might be required by some mobility
+     * service providers to perform this action. (e.g. a PIN)
+     * @param token A token that identifies and authenticates a user, sometimes
+     * with a limited duration of validity. See {@link ITokensApi} for more
+     * details on tokens. This value is almost certainly required by all
+     * mobility service providers for querying the {@link IBookingApi}.
+     * @return
+     */
+    @PostMapping(PATH + "/{bookingId}/action/{action}")
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Perform an action on a booking", notes = "Performs the given action on a booking.")
+    public B performAction(
+            @ApiParam("The ID of the booking on which to perform the action.")
+            @PathVariable String bookingId,
+            //
+            @ApiParam("The action that should be performed on the booking with the given \"bookingId\".")
+            @PathVariable BookingAction action,
+            //
+            @ApiParam("An optional secret that might be required by some mobility service providers to perform this action. (e.g. a PIN)")
+            @RequestParam(required = false) String secret,
+            @ApiParam(value = TOKEN_DESCRIPTION)
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token
+    );
+
+}
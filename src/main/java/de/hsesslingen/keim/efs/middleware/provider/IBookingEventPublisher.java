@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.BookingEvent;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import java.util.function.Predicate;
+
+/**
+ * Publishes changes of bookings to the consumers that subscribed to the
+ * booking events of the {@link IBookingApi}. An instance of this interface is
+ * available as spring bean if the Booking-API is active, i.e. if an
+ * {@link IBookingService} bean exists. Implementations of
+ * {@link IBookingService} can inject it and publish an event whenever the
+ * state of a booking changes.
+ * <p>
+ * Every subscription is associated with the credentials of the subscriber.
+ * Events are only delivered to subscriptions whose credentials are accepted by
+ * the given {@code recipients}, e.g. the credentials of the customer the
+ * booking belongs to.
+ *
+ * @author keim
+ * @param <C>
+ */
+public interface IBookingEventPublisher<C extends AbstractCredentials> {
+
+    /**
+     * Publishes the given event to all subscribers whose credentials are
+     * accepted by {@link recipients}. Returns immediately without waiting for
+     * the event to be delivered.
+     *
+     * @param event
+     * @param recipients Decides by the credentials of a subscriber whether it
+     * may receive the event.
+     */
+    public void publish(BookingEvent event, Predicate<? super C> recipients);
+
+    /**
+     * Publishes a state change of the given booking. See
+     * {@link #publish(BookingEvent, Predicate)}.
+     *
+     * @param booking The booking in its new state.
+     * @param previousState The state of the booking before the change, if
+     * known.
+     * @param recipients Decides by the credentials of a subscriber whether it
+     * may receive the event.
+     */
+    public default void publishStateChange(Booking booking, BookingState previousState, Predicate<? super C> recipients) {
+        publish(BookingEvent.of(booking, previousState), recipients);
+    }
+
+    /**
+     * Gets the number of currently connected subscribers.
+     *
+     * @return
+     */
+    public int getSubscriberCount();
+}
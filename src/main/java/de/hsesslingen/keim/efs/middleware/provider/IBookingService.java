@@ -67,6 +67,27 @@ public interface IBookingService<C extends AbstractCredentials> {
      */
     public Booking getBookingById(String id, @NonNull @Valid C credentials);
 
+    /**
+     * Gets the current version of the booking with the given id, e.g. a
+     * revision counter or the time of its last modification. The version is
+     * used as {@code ETag} of the booking and must change whenever any of its
+     * contents change.
+     * <p>
+     * If a version is available, conditional requests for an unchanged booking
+     * are answered with {@code 304 Not Modified} without loading the booking
+     * at all. By default, no version is available and the {@code ETag} is
+     * computed from the contents of the booking instead.
+     *
+     * @param id The ID of the booking.
+     * @param credentials The credentials needed to authenticate and authorize
+     * oneself to perform this action.
+     * @return The version or {@code null} if not available.
+     */
+    public default @Nullable
+    String getBookingVersion(String id, @NonNull @Valid C credentials) {
+        return null;
+    }
+
     /**
      * Creates a new booking and returns it.
      *
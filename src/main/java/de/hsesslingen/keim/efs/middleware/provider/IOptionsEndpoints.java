@@ -0,0 +1,251 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import static de.hsesslingen.keim.efs.middleware.config.SwaggerAutoConfiguration.FLEX_DATETIME_DESC;
+import de.hsesslingen.keim.efs.middleware.model.GeoPathEncoding;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import static de.hsesslingen.keim.efs.middleware.provider.ITokensApi.TOKEN_DESCRIPTION;
+import de.hsesslingen.keim.efs.middleware.utils.FlexibleZonedDateTimeParser;
+import de.hsesslingen.keim.efs.middleware.validation.IsInFutureOrNull;
+import de.hsesslingen.keim.efs.middleware.validation.PositionAsString;
+import de.hsesslingen.keim.efs.mobility.config.EfsSwaggerApiResponseSupport;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiParam;
+import java.time.ZonedDateTime;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import springfox.documentation.annotations.ApiIgnore;
+import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
+import java.util.Set;
+
+/**
+ * The endpoints of the {@link IOptionsApi}. The type of the result of
+ * {@link #getOptions} is a type parameter, so that it can be implemented
+ * synchronously, as by {@link OptionsApi}, or asynchronously, as by
+ * {@link AsyncOptionsApi}, which returns futures to Spring MVC.
+ *
+ * @author keim
+ * @param <R> The result type of {@link #getOptions}, i.e. a list of options or
+ * a future of it.
+ */
+@EfsSwaggerApiResponseSupport
+@RequestMapping(value = "/api", produces = MediaType.APPLICATION_JSON_VALUE)
+public interface IOptionsEndpoints<R> {
+
+    public static final String PATH = "/options";
+
+    /**
+     * Name of the query param selecting the {@link GeoPathEncoding} of the
+     * options endpoints.
+     */
+    public static final String GEO_PATH_ENCODING_PARAM = "geoPathEncoding";
+
+    /**
+     * Media type of newline delimited JSON, as produced by
+     * {@link #getOptionsStream(String, String, String, String, ZonedDateTime, ZonedDateTime, Integer, Boolean, Set, Integer, Boolean, GeoPathEncoding, String)}.
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * Returns available mobility options for the given criteria.
+     * <p>
+     * Param {@link startTime} can be defined, but is optional. If
+     * {@link startTime} is not provided, but required by the remote API of the
+     * provider, a sensible default value is used automatically, which is usally
+     * the current point in time ("now").
+     * <p>
+     * Param {@link endTime} must be after param {@link startTime}, if
+     * {@link startTime} is given, but it is not dependent on {@link startTime}.
+     * Usually <em>either</em> {@link startTime} <em>or</em> {@link endTime} are
+     * given, defining one point of reference in time, that should be used for
+     * matching options. However, if both params are given, the provider can
+     * chose how to interpret this situation and return the best options based
+     * on that.
+     * <p>
+     * The format in which the paths of legs are transmitted, if
+     * {@link includeGeoPaths} is {@code true}, can be chosen using the query
+     * param {@value #GEO_PATH_ENCODING_PARAM} (see {@link GeoPathEncoding}).
+     * Clients that do not give this param receive the paths as list of
+     * coordinates. It is not part of the signature of this method to keep
+     * existing implementations of this interface compatible.
+     *
+     * @param from The desired starting location (coordinates) in
+     * comma-separated form, e.g. 60.123,27.456.
+     * @param fromPlaceId An optional place ID that represents the entity at
+     * position {@link from}. This place ID is provider specific and can be
+     * obtained using the places API. (See {@link IPlacesApi})
+     * @param to A desired destination location (coordinates) in comma-separated
+     * form, e.g. 60.123,27.456.
+     * @param toPlaceId An optional place ID that represents the entity at
+     * position {@link to}. This place ID is provider specific and can be
+     * obtained using the places API. (See {@link IPlacesApi})
+     * @param startTime Optional desired start time of mobility. Can <b>not</b>
+     * be in past. Values up to 10 seconds in past from "now" are tolerated in
+     * validation, to respect network and processing delays for HTTP requests.
+     * Format is flexible. See {@link FlexibleZonedDateTimeParser} for details
+     * on possible formats.
+     * @param endTime Optional desired end time of mobility. Can <b>not</b> be
+     * in past and must be after {@link startTime}, if {@link startTime} is
+     * given. Values up to 10 seconds in past from "now" are tolerated in
+     * validation, to respect network and processing delays for HTTP requests.
+     * Format is flexible. See {@link FlexibleZonedDateTimeParser} for details
+     * on possible formats.
+     * @param radiusMeter Maximum distance a user wants to travel to reach the
+     * start point of the mobility option in meters. This basically serves as a
+     * search radius around the geo-position given in param {@link from}.
+     * @param sharingAllowed Defines if user is ok with sharing his mobility
+     * option with others, potentially unknown people.
+     * @param modesAllowed Allowed modes for legs and potential sub-legs of all
+     * options returned.
+     * @param limitTo An optional upper limit of results for the response.
+     * @param includeGeoPaths Whether detailed information about the path of
+     * legs or about free floating areas should be included, if available.
+     * @param token A token that identifies and authenticates a user, sometimes
+     * with a limited duration of validity. See {@link ITokensApi} for more
+     * details on tokens. Most providers do not require a token for querying
+     * options using the {@link IOptionsApi}.
+     * @return List of {@link Option}, or a future completed with it.
+     */
+    @GetMapping(PATH)
+    @ResponseStatus(HttpStatus.OK)
+    @ApiImplicitParam(name = GEO_PATH_ENCODING_PARAM, paramType = "query", dataType = "string",
+            allowableValues = "coordinates, polyline", defaultValue = "coordinates",
+            value = "The format of the paths of legs, if they are included. \"polyline\" is much more compact than the default \"coordinates\".")
+    public R getOptions(
+            @ApiParam("The desired starting location (coordinates) in comma-separated form, e.g. 60.123,27.456.")
+            @RequestParam @PositionAsString String from,
+            //
+            @ApiParam("An optional place ID that represents the entity at position \"from\". This place ID is provider specific and can be obtained using the Places-API.")
+            @RequestParam(required = false) String fromPlaceId,
+            //
+            @ApiParam("A desired destination location (coordinates) in comma-separated form, e.g. 60.123,27.456.")
+            @RequestParam(required = false) @PositionAsString String to,
+            //
+            @ApiParam("An optional place ID that represents the entity at position \"to\". This place ID is provider specific and can be obtained using the Places-API.")
+            @RequestParam(required = false) String toPlaceId,
+            //
+            @ApiParam("Desired departure time of mobility. Format: " + FLEX_DATETIME_DESC)
+            @RequestParam(required = false) @IsInFutureOrNull ZonedDateTime startTime,
+            //
+            @ApiParam("Desired arrival time of mobility. Format: " + FLEX_DATETIME_DESC)
+            @RequestParam(required = false) @IsInFutureOrNull ZonedDateTime endTime,
+            //
+            @ApiParam("Allowed search radius around \"from\" in meter.")
+            @RequestParam(required = false) Integer radiusMeter,
+            //
+            @ApiParam("Whether the assets used can be shared with other people. (Potentially unknown to the user)")
+            @RequestParam(required = false, defaultValue = "true") Boolean sharingAllowed,
+            //
+            @ApiParam("Allowed modes for the legs in the returned options.")
+            @RequestParam(required = false, defaultValue = "") Set<Mode> modesAllowed,
+            //
+            @ApiParam("Limit number of results to this value.")
+            @RequestParam(required = false) Integer limitTo,
+            //            
+            @ApiParam("Whether detailed information about the path of legs or about free floating areas should be included.")
+            @RequestParam(required = false, defaultValue = "false") Boolean includeGeoPaths,
+            //
+            @ApiParam(value = TOKEN_DESCRIPTION)
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token
+    );
+
+    /**
+     * Streaming variant of
+     * {@link #getOptions(String, String, String, String, ZonedDateTime, ZonedDateTime, Integer, Boolean, Set, Integer, Boolean, String)}
+     * which is chosen if the client accepts {@link #APPLICATION_NDJSON_VALUE}.
+     * The options are written as newline delimited JSON, one option per line,
+     * each as soon as it is available.
+     * <p>
+     * Options are produced incrementally if the options service implements
+     * {@link IStreamingOptionsService}. Otherwise all options are written once
+     * the service returned them.
+     *
+     * @param from
+     * @param fromPlaceId
+     * @param to
+     * @param toPlaceId
+     * @param startTime
+     * @param endTime
+     * @param radiusMeter
+     * @param sharingAllowed
+     * @param modesAllowed
+     * @param limitTo
+     * @param includeGeoPaths
+     * @param geoPathEncoding
+     * @param token
+     * @return
+     */
+    @ApiIgnore
+    @GetMapping(value = PATH, produces = APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public StreamingResponseBody getOptionsStream(
+            @ApiParam("The desired starting location (coordinates) in comma-separated form, e.g. 60.123,27.456.")
+            @RequestParam @PositionAsString String from,
+            //
+            @ApiParam("An optional place ID that represents the entity at position \"from\". This place ID is provider specific and can be obtained using the Places-API.")
+            @RequestParam(required = false) String fromPlaceId,
+            //
+            @ApiParam("A desired destination location (coordinates) in comma-separated form, e.g. 60.123,27.456.")
+            @RequestParam(required = false) @PositionAsString String to,
+            //
+            @ApiParam("An optional place ID that represents the entity at position \"to\". This place ID is provider specific and can be obtained using the Places-API.")
+            @RequestParam(required = false) String toPlaceId,
+            //
+            @ApiParam("Desired departure time of mobility. Format: " + FLEX_DATETIME_DESC)
+            @RequestParam(required = false) @IsInFutureOrNull ZonedDateTime startTime,
+            //
+            @ApiParam("Desired arrival time of mobility. Format: " + FLEX_DATETIME_DESC)
+            @RequestParam(required = false) @IsInFutureOrNull ZonedDateTime endTime,
+            //
+            @ApiParam("Allowed search radius around \"from\" in meter.")
+            @RequestParam(required = false) Integer radiusMeter,
+            //
+            @ApiParam("Whether the assets used can be shared with other people. (Potentially unknown to the user)")
+            @RequestParam(required = false, defaultValue = "true") Boolean sharingAllowed,
+            //
+            @ApiParam("Allowed modes for the legs in the returned options.")
+            @RequestParam(required = false, defaultValue = "") Set<Mode> modesAllowed,
+            //
+            @ApiParam("Limit number of results to this value.")
+            @RequestParam(required = false) Integer limitTo,
+            //            
+            @ApiParam("Whether detailed information about the path of legs or about free floating areas should be included.")
+            @RequestParam(required = false, defaultValue = "false") Boolean includeGeoPaths,
+            //
+            @ApiParam("The format of the paths of legs, if they are included. \"polyline\" is much more compact than the default \"coordinates\".")
+            @RequestParam(required = false, defaultValue = "coordinates") GeoPathEncoding geoPathEncoding,
+            //
+            @ApiParam(value = TOKEN_DESCRIPTION)
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token
+    );
+
+}
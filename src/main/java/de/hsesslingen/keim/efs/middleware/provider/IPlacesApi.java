@@ -25,21 +25,9 @@ package de.hsesslingen.keim.efs.middleware.provider;
 
 import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
 import de.hsesslingen.keim.efs.middleware.model.Place;
-import static de.hsesslingen.keim.efs.middleware.provider.ITokensApi.TOKEN_DESCRIPTION;
-import de.hsesslingen.keim.efs.middleware.validation.PositionAsString;
-import de.hsesslingen.keim.efs.mobility.config.EfsSwaggerApiResponseSupport;
 import de.hsesslingen.keim.efs.mobility.service.MobilityService;
 import de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest;
-import io.swagger.annotations.ApiParam;
 import java.util.List;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestHeader;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
-import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
 import de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequestTemplate;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import org.springframework.core.ParameterizedTypeReference;
@@ -50,6 +38,10 @@ import org.springframework.http.ResponseEntity;
  * to a provider. This is intended to be used for fixed and permanent locations,
  * not free-floating or dynamic asset locations.
  * <p>
+ * The endpoints are declared in {@link IPlacesEndpoints}. If the places service
+ * implements {@link IAsyncPlacesService}, they are served by
+ * {@link AsyncPlacesApi} instead of {@link PlacesApi}.
+ * <p>
  * <h3>Additional note:</h3>
  * This interface also provides static methods for building HTTP requests, that
  * match the endpoints defined in it. They are build upon the
@@ -57,52 +49,10 @@ import org.springframework.http.ResponseEntity;
  *
  * @author keim
  */
-@EfsSwaggerApiResponseSupport
-@RequestMapping(value = "/api/places", produces = MediaType.APPLICATION_JSON_VALUE)
-public interface IPlacesApi {
+public interface IPlacesApi extends IPlacesEndpoints<List<Place>> {
 
     public static final String PATH = "/places";
 
-    /**
-     * API for searching provider specific places by text. The text is used as a
-     * query to find places, whose properties match this text at least
-     * partially. This can be understood as a way to find places by arbitrary
-     * text searches, such as names of places, or addresses or even coordinates
-     * or ids.
-     *
-     * @param query The text that is to be used as query for searching places.
-     * @param areaCenter An optional geo-location that defines the center of a
-     * circular search area contrained by param {@link radiusMeter}. If no
-     * radius is given, a default radius is chosen by the provider.
-     * @param radiusMeter A radius in unit meter, that serves as a constraint
-     * for param {@link areaCenter}. Only applied together with
-     * {@link areaCenter}.
-     * @param limitTo An optional upper limit of results for the response.
-     * @param token A token that identifies and authenticates a user, sometimes
-     * with a limited duration of validity. See {@link ITokensApi} for more
-     * details on tokens. Most providers do not require a token for querying
-     * options using the {@link IPlacesApi}.
-     * @return
-     */
-    @GetMapping("/search")
-    @ResponseStatus(HttpStatus.OK)
-    public List<Place> searchPlaces(
-            @ApiParam("The text that is to be used as query for searching places.")
-            @RequestParam String query,
-            //
-            @ApiParam("An optional geo-location that defines the center of a circular search area contrained by param \"radiusMeter\". If no radius is given, a default radius is chosen by the provider.")
-            @RequestParam(required = false) @PositionAsString String areaCenter,
-            //
-            @ApiParam("A radius in unit meter, that serves as a constraint for param \"areaCenter\". Only applied together with \"areaCenter\".")
-            @RequestParam(required = false) Integer radiusMeter,
-            //
-            @ApiParam(" An optional upper limit of results for the response.")
-            @RequestParam(required = false) Integer limitTo,
-            //
-            @ApiParam(value = TOKEN_DESCRIPTION)
-            @RequestHeader(name = TOKEN_HEADER, required = false) String token
-    );
-
     /**
      * Assembles a request, matching the {@code GET /places/search} endpoint,
      * for the service with the given url using the given token.See
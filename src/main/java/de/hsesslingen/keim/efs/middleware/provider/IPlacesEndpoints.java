@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import static de.hsesslingen.keim.efs.middleware.provider.ITokensApi.TOKEN_DESCRIPTION;
+import de.hsesslingen.keim.efs.middleware.validation.PositionAsString;
+import de.hsesslingen.keim.efs.mobility.config.EfsSwaggerApiResponseSupport;
+import io.swagger.annotations.ApiParam;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
+
+/**
+ * The endpoints of the {@link IPlacesApi}. The type of their results is a
+ * type parameter, so that they can be implemented synchronously, as by
+ * {@link PlacesApi}, or asynchronously, as by {@link AsyncPlacesApi}, which
+ * returns futures to Spring MVC.
+ *
+ * @author keim
+ * @param <R> The result type of {@link #searchPlaces}, i.e. a list of places
+ * or a future of it.
+ */
+@EfsSwaggerApiResponseSupport
+@RequestMapping(value = "/api/places", produces = MediaType.APPLICATION_JSON_VALUE)
+public interface IPlacesEndpoints<R> {
+
+    /**
+     * API for searching provider specific places by text. The text is used as a
+     * query to find places, whose properties match this text at least
+     * partially. This can be understood as a way to find places by arbitrary
+     * text searches, such as names of places, or addresses or even coordinates
+     * or ids.
+     *
+     * @param query The text that is to be used as query for searching places.
+     * @param areaCenter An optional geo-location that defines the center of a
+     * circular search area contrained by param {@link radiusMeter}. If no
+     * radius is given, a default radius is chosen by the provider.
+     * @param radiusMeter A radius in unit meter, that serves as a constraint
+     * for param {@link areaCenter}. Only applied together with
+     * {@link areaCenter}.
+     * @param limitTo An optional upper limit of results for the response.
+     * @param token A token that identifies and authenticates a user, sometimes
+     * with a limited duration of validity. See {@link ITokensApi} for more
+     * details on tokens. Most providers do not require a token for querying
+     * options using the {@link IPlacesApi}.
+     * @return List of {@link Place}, or a future completed with it.
+     */
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public R searchPlaces(
+            @ApiParam("The text that is to be used as query for searching places.")
+            @RequestParam String query,
+            //
+            @ApiParam("An optional geo-location that defines the center of a circular search area contrained by param \"radiusMeter\". If no radius is given, a default radius is chosen by the provider.")
+            @RequestParam(required = false) @PositionAsString String areaCenter,
+            //
+            @ApiParam("A radius in unit meter, that serves as a constraint for param \"areaCenter\". Only applied together with \"areaCenter\".")
+            @RequestParam(required = false) Integer radiusMeter,
+            //
+            @ApiParam(" An optional upper limit of results for the response.")
+            @RequestParam(required = false) Integer limitTo,
+            //
+            @ApiParam(value = TOKEN_DESCRIPTION)
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token
+    );
+
+}
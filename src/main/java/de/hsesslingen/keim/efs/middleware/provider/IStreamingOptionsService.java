@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.validation.Valid;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Streaming variant of {@link IOptionsService} for providers that produce
+ * options incrementally, e.g. by paging through the API of their backend. If
+ * the options service bean implements this interface, the streaming endpoint
+ * of the options API (see
+ * {@link IOptionsApi#getOptionsStream(String, String, String, String, ZonedDateTime, ZonedDateTime, Integer, Boolean, Set, Integer, Boolean, de.hsesslingen.keim.efs.middleware.model.GeoPathEncoding, String)})
+ * writes every option to the client as soon as it is passed to the sink.
+ * <p>
+ * The synchronous method is implemented by collecting all options into a list.
+ *
+ * @author keim
+ * @param <C>
+ */
+public interface IStreamingOptionsService<C extends AbstractCredentials> extends IOptionsService<C> {
+
+    /**
+     * Produces available mobility options for the given criteria and passes
+     * them to the given sink one by one. See
+     * {@link IOptionsService#getOptions(Place, Place, ZonedDateTime, ZonedDateTime, Integer, Boolean, Set, Integer, Boolean, AbstractCredentials)}
+     * for details on the params.
+     * <p>
+     * Implementations should stop producing options as soon as the sink
+     * returns {@code false}, which happens if the client disconnected or enough
+     * options were sent.
+     *
+     * @param from
+     * @param to
+     * @param startTime
+     * @param endTime
+     * @param radiusMeter
+     * @param sharingAllowed
+     * @param modesAllowed
+     * @param limitTo
+     * @param includeGeoPaths
+     * @param credentials
+     * @param sink Receives the options. Returns {@code false} if no more
+     * options should be produced.
+     */
+    public void streamOptions(
+            @NonNull Place from,
+            @Nullable Place to,
+            @Nullable ZonedDateTime startTime,
+            @Nullable ZonedDateTime endTime,
+            @Nullable Integer radiusMeter,
+            @Nullable Boolean sharingAllowed,
+            @Nullable Set<Mode> modesAllowed,
+            @Nullable Integer limitTo,
+            @Nullable Boolean includeGeoPaths,
+            @Nullable @Valid C credentials,
+            @NonNull Predicate<Option> sink
+    );
+
+    @Override
+    public default List<Option> getOptions(
+            Place from,
+            Place to,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            C credentials
+    ) {
+        var result = new ArrayList<Option>();
+
+        streamOptions(from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials, option -> {
+            result.add(option);
+            return limitTo == null || result.size() < limitTo;
+        });
+
+        return result;
+    }
+
+}
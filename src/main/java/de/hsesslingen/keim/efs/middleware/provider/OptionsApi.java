@@ -24,47 +24,36 @@
 package de.hsesslingen.keim.efs.middleware.provider;
 
 import de.hsesslingen.keim.efs.middleware.config.SwaggerAutoConfiguration;
-import static de.hsesslingen.keim.efs.middleware.model.ICoordinates.parseAndValidate;
 import java.util.List;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RestController;
 
 import de.hsesslingen.keim.efs.middleware.model.Option;
-import de.hsesslingen.keim.efs.middleware.model.Place;
 import de.hsesslingen.keim.efs.middleware.provider.config.ProviderProperties;
 import de.hsesslingen.keim.efs.mobility.service.Mode;
 import io.swagger.annotations.Api;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import static java.util.Collections.disjoint;
 import java.util.Set;
-import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 
 /**
+ * Serves the {@link IOptionsApi} using a synchronous {@link IOptionsService}.
+ * See {@link AsyncOptionsApi} for services implementing
+ * {@link IAsyncOptionsService}.
+ *
  * @author boesch, K.Sivarasah
  */
 @Validated
 @RestController
 @ConditionalOnBean({IOptionsService.class, ProviderProperties.class})
+@ConditionalOnMissingBean(IAsyncOptionsService.class)
 @Api(tags = {SwaggerAutoConfiguration.OPTIONS_API_TAG})
 @AutoConfigureAfter(ProviderProperties.class)
-public class OptionsApi extends ApiBase implements IOptionsApi {
-
-    private static final String RETURN_ZERO_UPON_MODES_MISMATCH_KEY = "middleware.provider.options-api.return-zero-upon-modes-mismatch";
-
-    @Autowired
-    private IOptionsService optionsService;
-
-    @Autowired
-    private ProviderProperties properties;
-
-    @Value("${" + RETURN_ZERO_UPON_MODES_MISMATCH_KEY + ":true}")
-    private boolean returnZeroUponModesMismatch;
+public class OptionsApi extends OptionsApiBase<List<Option>> implements IOptionsApi {
 
     @Override
     public List<Option> getOptions(
@@ -81,52 +70,34 @@ public class OptionsApi extends ApiBase implements IOptionsApi {
             Boolean includeGeoPaths,
             String token
     ) {
-        logParams("getOptions", () -> array(
-                "from", from,
-                "fromPlaceId", fromPlaceId,
-                "to", to,
-                "toPlaceId", toPlaceId,
-                "startTime", startTime,
-                "endTime", endTime,
-                "radiusMeter", radiusMeter,
-                "sharingAllowed", sharingAllowed,
-                "modesAllowed", stringifyCollection(modesAllowed, m -> m.name()),
-                "limitTo", limitTo,
-                "includeGeoPaths", includeGeoPaths
-        ));
+        var geoPathEncoding = requestedGeoPathEncoding();
+
+        if (logRequest(GET_OPTIONS)) {
+            GET_OPTIONS.logParams(logger,
+                    from, fromPlaceId, to, toPlaceId, startTime, endTime, radiusMeter,
+                    sharingAllowed, stringifyCollection(modesAllowed, m -> m.name()),
+                    limitTo, includeGeoPaths, geoPathEncoding
+            );
+        }
 
-        if (returnZeroUponModesMismatch
-                && modesAllowed != null && !modesAllowed.isEmpty()
-                && disjoint(properties.getMobilityService().getModes(), modesAllowed)) {
-            logger.info("Returning 0 options because the requested set of allowed modes has none in common with our provided ones. If you want to change this behavior, set property \"{}\" to \"false\".", RETURN_ZERO_UPON_MODES_MISMATCH_KEY);
+        if (isModesMismatch(modesAllowed)) {
             var result = new ArrayList<Option>();
             logResult(result);
             return result;
         }
 
         // Converting input params...
-        var placeFrom = Place.fromCoordinates(from);
-
-        if (fromPlaceId != null && !fromPlaceId.isBlank()) {
-            placeFrom.setId(fromPlaceId);
-        }
-
-        Place placeTo = parseAndValidate(to, Place::fromCoordinates, () -> null);
-
-        if (placeTo != null && isNotBlank(toPlaceId)) {
-            placeTo.setId(toPlaceId);
-        }
+        var placeFrom = toPlaceFrom(from, fromPlaceId);
+        var placeTo = toPlaceTo(to, toPlaceId);
 
         // Getting options from user implemented OptionsService.
-        var result = optionsService.getOptions(
+        List<Option> result = optionsService.getOptions(
                 placeFrom, placeTo, startTime, endTime, radiusMeter,
                 sharingAllowed, modesAllowed, limitTo, includeGeoPaths,
                 parseToken(token)
         );
 
-        logResult(result);
-
-        return result;
+        return encodeAndLog(result, geoPathEncoding);
     }
 
 }
@@ -0,0 +1,268 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hsesslingen.keim.efs.middleware.model.GeoPathEncoding;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.middleware.provider.config.OptionsCacheProperties;
+import de.hsesslingen.keim.efs.middleware.provider.config.ProviderProperties;
+import de.hsesslingen.keim.efs.middleware.validation.ParsedPositions;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import static java.util.Collections.disjoint;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import javax.annotation.PostConstruct;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Base class of the controllers serving the {@link IOptionsApi}, i.e. of
+ * {@link OptionsApi} for synchronous and {@link AsyncOptionsApi} for
+ * asynchronous options services. Implements everything but
+ * {@link #getOptions}, whose result type depends on the service.
+ *
+ * @author boesch, K.Sivarasah
+ * @param <R> The result type of {@link #getOptions}.
+ */
+public abstract class OptionsApiBase<R> extends ApiBase implements IOptionsEndpoints<R> {
+
+    private static final String RETURN_ZERO_UPON_MODES_MISMATCH_KEY = "middleware.provider.options-api.return-zero-upon-modes-mismatch";
+
+    protected static final RequestLog GET_OPTIONS = RequestLog.of("getOptions",
+            "from", "fromPlaceId", "to", "toPlaceId", "startTime", "endTime", "radiusMeter",
+            "sharingAllowed", "modesAllowed", "limitTo", "includeGeoPaths", "geoPathEncoding"
+    );
+
+    private static final RequestLog GET_OPTIONS_STREAM = RequestLog.of("getOptionsStream",
+            "from", "fromPlaceId", "to", "toPlaceId", "startTime", "endTime", "radiusMeter",
+            "sharingAllowed", "modesAllowed", "limitTo", "includeGeoPaths", "geoPathEncoding"
+    );
+
+    @Autowired
+    protected IOptionsService optionsService;
+
+    @Autowired
+    private ProviderProperties properties;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired(required = false)
+    private OptionsCacheProperties cacheProperties;
+
+    @Value("${" + RETURN_ZERO_UPON_MODES_MISMATCH_KEY + ":true}")
+    private boolean returnZeroUponModesMismatch;
+
+    @PostConstruct
+    private void init() {
+        if (cacheProperties != null && cacheProperties.isEnabled()) {
+            logger.info("Caching options for {} with a max size of {}.", cacheProperties.getTtl(), cacheProperties.getMaxSize());
+            optionsService = new CachingOptionsService(optionsService, cacheProperties);
+        }
+    }
+
+    /**
+     * Encodes the geo paths of the given options, if requested, and logs them.
+     */
+    protected List<Option> encodeAndLog(List<Option> result, GeoPathEncoding geoPathEncoding) {
+        if (geoPathEncoding == GeoPathEncoding.polyline && result != null) {
+            // Encode copies, because the options may be shared, e.g. by the cache.
+            result = result.stream()
+                    .map(o -> o == null ? null : o.withEncodedGeoPath())
+                    .collect(toList());
+        }
+
+        logResult(result);
+
+        return result;
+    }
+
+    @Override
+    public StreamingResponseBody getOptionsStream(
+            String from,
+            String fromPlaceId,
+            String to,
+            String toPlaceId,
+            ZonedDateTime startTime,
+            ZonedDateTime endTime,
+            Integer radiusMeter,
+            Boolean sharingAllowed,
+            Set<Mode> modesAllowed,
+            Integer limitTo,
+            Boolean includeGeoPaths,
+            GeoPathEncoding geoPathEncoding,
+            String token
+    ) {
+        if (logRequest(GET_OPTIONS_STREAM)) {
+            GET_OPTIONS_STREAM.logParams(logger,
+                    from, fromPlaceId, to, toPlaceId, startTime, endTime, radiusMeter,
+                    sharingAllowed, stringifyCollection(modesAllowed, m -> m.name()),
+                    limitTo, includeGeoPaths, geoPathEncoding
+            );
+        }
+
+        if (isModesMismatch(modesAllowed)) {
+            return out -> {
+            };
+        }
+
+        // Everything depending on the request must be done before the body is written on another thread.
+        var placeFrom = toPlaceFrom(from, fromPlaceId);
+        var placeTo = toPlaceTo(to, toPlaceId);
+        var credentials = parseToken(token);
+        boolean encode = geoPathEncoding == GeoPathEncoding.polyline;
+
+        return out -> {
+            var written = new AtomicInteger();
+
+            Predicate<Option> sink = option -> {
+                if (option == null) {
+                    return true;
+                }
+
+                try {
+                    out.write(mapper.writeValueAsBytes(encode ? option.withEncodedGeoPath() : option));
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException ex) {
+                    // Most likely the client went away. Tell the service to stop producing options.
+                    logger.debug("Streaming options was aborted: {}", ex.getMessage());
+                    return false;
+                }
+
+                return limitTo == null || written.incrementAndGet() < limitTo;
+            };
+
+            if (optionsService instanceof IStreamingOptionsService) {
+                ((IStreamingOptionsService) optionsService).streamOptions(
+                        placeFrom, placeTo, startTime, endTime, radiusMeter,
+                        sharingAllowed, modesAllowed, limitTo, includeGeoPaths,
+                        credentials, sink
+                );
+            } else {
+                // Asynchronous services implement this by waiting for their result.
+                List<Option> options = optionsService.getOptions(
+                        placeFrom, placeTo, startTime, endTime, radiusMeter,
+                        sharingAllowed, modesAllowed, limitTo, includeGeoPaths,
+                        credentials
+                );
+
+                if (options != null) {
+                    for (var option : options) {
+                        if (!sink.test(option)) {
+                            break;
+                        }
+                    }
+                }
+            }
+
+            logger.debug("Streamed {} options.", written.get());
+        };
+    }
+
+    /**
+     * Checks whether the requested modes have none in common with the modes of
+     * this provider and zero options should therefore be returned.
+     */
+    protected boolean isModesMismatch(Set<Mode> modesAllowed) {
+        if (returnZeroUponModesMismatch
+                && modesAllowed != null && !modesAllowed.isEmpty()
+                && disjoint(properties.getMobilityService().getModes(), modesAllowed)) {
+            logger.info("Returning 0 options because the requested set of allowed modes has none in common with our provided ones. If you want to change this behavior, set property \"{}\" to \"false\".", RETURN_ZERO_UPON_MODES_MISMATCH_KEY);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the {@link GeoPathEncoding} requested by the client of the current
+     * request. See {@link IOptionsApi#GEO_PATH_ENCODING_PARAM}.
+     *
+     * @throws ResponseStatusException with status 400 if the value is not a
+     * known {@link GeoPathEncoding}.
+     */
+    protected static GeoPathEncoding requestedGeoPathEncoding() {
+        var attributes = RequestContextHolder.getRequestAttributes();
+
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return GeoPathEncoding.coordinates;
+        }
+
+        var value = ((ServletRequestAttributes) attributes).getRequest().getParameter(GEO_PATH_ENCODING_PARAM);
+
+        if (value == null || value.isBlank()) {
+            return GeoPathEncoding.coordinates;
+        }
+
+        try {
+            return GeoPathEncoding.valueOf(value);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid value \"" + value + "\" for param \"" + GEO_PATH_ENCODING_PARAM + "\".", ex);
+        }
+    }
+
+    protected static Place toPlaceFrom(String from, String fromPlaceId) {
+        var fromCoordinates = ParsedPositions.get(from);
+
+        if (fromCoordinates == null) {
+            throw new IllegalArgumentException("Invalid format for position \"" + from + "\".");
+        }
+
+        var placeFrom = Place.fromCoordinates(fromCoordinates.getLat(), fromCoordinates.getLon());
+
+        if (fromPlaceId != null && !fromPlaceId.isBlank()) {
+            placeFrom.setId(fromPlaceId);
+        }
+
+        return placeFrom;
+    }
+
+    protected static Place toPlaceTo(String to, String toPlaceId) {
+        var toCoordinates = ParsedPositions.get(to);
+        Place placeTo = toCoordinates == null ? null : Place.fromCoordinates(toCoordinates.getLat(), toCoordinates.getLon());
+
+        if (placeTo != null && isNotBlank(toPlaceId)) {
+            placeTo.setId(toPlaceId);
+        }
+
+        return placeTo;
+    }
+
+}
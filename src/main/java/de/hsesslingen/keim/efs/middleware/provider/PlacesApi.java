@@ -24,25 +24,32 @@
 package de.hsesslingen.keim.efs.middleware.provider;
 
 import de.hsesslingen.keim.efs.middleware.config.SwaggerAutoConfiguration;
-import static de.hsesslingen.keim.efs.middleware.model.ICoordinates.parseAndValidate;
 import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.middleware.validation.ParsedPositions;
 import io.swagger.annotations.Api;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
+ * Serves the {@link IPlacesApi} using a synchronous {@link IPlacesService}. See
+ * {@link AsyncPlacesApi} for services implementing
+ * {@link IAsyncPlacesService}.
  *
  * @author keim
  */
 @Validated
 @RestController
 @ConditionalOnBean(IPlacesService.class)
+@ConditionalOnMissingBean(IAsyncPlacesService.class)
 @Api(tags = {SwaggerAutoConfiguration.PLACES_API_TAG})
 public class PlacesApi extends ApiBase implements IPlacesApi {
 
+    private static final RequestLog SEARCH_PLACES = RequestLog.of("searchPlaces", "query", "areaCenter", "radiusMeter", "limitTo");
+
     @Autowired
     private IPlacesService service;
 
@@ -54,15 +61,12 @@ public class PlacesApi extends ApiBase implements IPlacesApi {
             Integer limitTo,
             String token
     ) {
-        logParams("searchPlaces", () -> array(
-                "query", query,
-                "areaCenter", areaCenter,
-                "radiusMeter", radiusMeter,
-                "limitTo", limitTo
-        ));
+        if (logRequest(SEARCH_PLACES)) {
+            SEARCH_PLACES.logParams(logger, query, areaCenter, radiusMeter, limitTo);
+        }
 
         // Convert input params...
-        var coordinates = parseAndValidate(areaCenter, () -> null);
+        var coordinates = ParsedPositions.getCoordinates(areaCenter);
 
         // Delegate search to user implemented PlacesService...
         var places = service.search(
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import de.hsesslingen.keim.efs.middleware.provider.config.ProviderProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Records a timer for every request handled by one of the provider APIs, i.e.
+ * by a subclass of {@link ApiBase}. If a {@link MeterRegistry} bean is
+ * available (e.g. by using Spring Boot Actuator), the timer is registered
+ * there. Otherwise the global registry of Micrometer is used.
+ * <p>
+ * The timer is named {@code efs.provider.requests} and tagged by {@code api}
+ * (e.g. {@code OptionsApi}), {@code endpoint} (the name of the handler
+ * method), {@code outcome} and {@code status}.
+ *
+ * @author keim
+ */
+@Configuration
+@ConditionalOnBean(ProviderProperties.class)
+@AutoConfigureAfter(ProviderProperties.class)
+public class ProviderApiMetrics implements WebMvcConfigurer, HandlerInterceptor {
+
+    public static final String REQUESTS = "efs.provider.requests";
+
+    private static final String START_ATTRIBUTE = ProviderApiMetrics.class.getName() + ".start";
+
+    @Autowired(required = false)
+    private MeterRegistry registry;
+
+    @PostConstruct
+    private void init() {
+        if (registry == null) {
+            registry = Metrics.globalRegistry;
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Asynchronously completed requests pass here again when they are dispatched with their result.
+        if (isApiHandler(handler) && request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        var start = request.getAttribute(START_ATTRIBUTE);
+
+        if (!(start instanceof Long) || !isApiHandler(handler)) {
+            return;
+        }
+
+        var method = (HandlerMethod) handler;
+        int status = response.getStatus();
+
+        if (ex != null && status < 400) {
+            // The exception was not translated into a response (yet).
+            status = 500;
+        }
+
+        Timer.builder(REQUESTS)
+                .description("Requests handled by the provider APIs.")
+                .tags(
+                        "api", method.getBeanType().getSimpleName(),
+                        "endpoint", method.getMethod().getName(),
+                        "outcome", outcomeOf(status),
+                        "status", Integer.toString(status)
+                )
+                .register(registry)
+                .record(System.nanoTime() - (Long) start, TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean isApiHandler(Object handler) {
+        return handler instanceof HandlerMethod
+                && ApiBase.class.isAssignableFrom(((HandlerMethod) handler).getBeanType());
+    }
+
+    private static String outcomeOf(int status) {
+        if (status >= 500) {
+            return "server_error";
+        }
+        if (status >= 400) {
+            return "client_error";
+        }
+        return "success";
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider;
+
+import org.slf4j.Logger;
+
+/**
+ * Describes the log output of a single endpoint of a provider API. The
+ * messages are built once when the descriptor is created, so logging a request
+ * only costs a level check as long as the respective level is disabled.
+ * <p>
+ * Descriptors are meant to be kept in constants and used together with
+ * {@link ApiBase#logRequest(RequestLog)}:
+ * <pre>
+ * private static final RequestLog GET_THINGS = RequestLog.of("getThings", "argA", "argB");
+ *
+ * public List&lt;Thing&gt; getThings(String argA, Integer argB) {
+ *     if (logRequest(GET_THINGS)) {
+ *         GET_THINGS.logParams(logger, argA, argB);
+ *     }
+ *     ...
+ * }
+ * </pre> The values are passed to the logger as arguments and therefore only
+ * formatted if DEBUG is enabled. Make sure to obfuscate sensitive values using
+ * {@link ApiBase#obfuscateConditional(Object)}.
+ *
+ * @author keim
+ */
+public final class RequestLog {
+
+    private final String endpoint;
+    private final String receivedMessage;
+    private final String paramsPattern;
+    private final int paramCount;
+
+    private RequestLog(String endpoint, String... paramNames) {
+        this.endpoint = endpoint;
+        this.receivedMessage = "Received " + endpoint + "-request.";
+        this.paramCount = paramNames.length;
+
+        var sb = new StringBuilder("Params of this request:");
+
+        for (var name : paramNames) {
+            sb.append("\n").append(name).append("={}");
+        }
+
+        this.paramsPattern = sb.toString();
+    }
+
+    /**
+     * Creates the descriptor of an endpoint.
+     *
+     * @param endpoint The name of the endpoint, usually the method name.
+     * @param paramNames The names of the params that are logged, in the order
+     * in which their values are passed to
+     * {@link #logParams(Logger, Object...)}.
+     * @return
+     */
+    public static RequestLog of(String endpoint, String... paramNames) {
+        return new RequestLog(endpoint, paramNames);
+    }
+
+    /**
+     * The name of the endpoint.
+     *
+     * @return
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * The message that is logged for every received request.
+     *
+     * @return
+     */
+    public String getReceivedMessage() {
+        return receivedMessage;
+    }
+
+    /**
+     * Logs the given param values at DEBUG. The values must be given in the
+     * same order as the param names this descriptor was created with.
+     *
+     * @param logger
+     * @param values
+     */
+    public void logParams(Logger logger, Object... values) {
+        if (values.length != paramCount) {
+            logger.warn("Provided {} values for {} params while logging params of {}-request. Please contact the developers of this library.", values.length, paramCount, endpoint);
+            return;
+        }
+
+        logger.debug(paramsPattern, values);
+    }
+}
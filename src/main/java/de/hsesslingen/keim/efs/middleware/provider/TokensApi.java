@@ -43,15 +43,18 @@ import org.springframework.web.bind.annotation.RestController;
 @Api(tags = {SwaggerAutoConfiguration.CREDENTIALS_API_TAG})
 public class TokensApi extends ApiBase implements ITokensApi {
 
+    private static final RequestLog CREATE_TOKEN = RequestLog.of("createToken", "userId", "secret");
+    private static final RequestLog DELETE_TOKEN = RequestLog.of("deleteToken", "token");
+    private static final RequestLog IS_TOKEN_VALID = RequestLog.of("isTokenValid", "token");
+
     @Autowired
     private ITokensService service;
 
     @Override
     public TokenCredentials createToken(String userId, String secret) {
-        logParams("createToken", () -> array(
-                "userId", obfuscateConditional(userId),
-                "secret", obfuscateConditional(secret)
-        ));
+        if (logRequest(CREATE_TOKEN)) {
+            CREATE_TOKEN.logParams(logger, obfuscateConditional(userId), obfuscateConditional(secret));
+        }
 
         var token = service.createToken(userId, secret);
 
@@ -63,7 +66,7 @@ public class TokensApi extends ApiBase implements ITokensApi {
             );
 
             throw internalServerError("An error occured when trying to create a token with the given userId and secret.");
-        } else {
+        } else if (logger.isDebugEnabled()) {
             logger.debug(
                     "Responding with the following token:\ntoken={}\nvalidUntil={}",
                     obfuscateConditional(token.getToken()),
@@ -77,18 +80,18 @@ public class TokensApi extends ApiBase implements ITokensApi {
 
     @Override
     public void deleteToken(String token) {
-        logParams("deleteToken", () -> array(
-                "token", obfuscateConditional(token))
-        );
+        if (logRequest(DELETE_TOKEN)) {
+            DELETE_TOKEN.logParams(logger, obfuscateConditional(token));
+        }
 
         service.deleteToken(token);
     }
 
     @Override
     public boolean isTokenValid(String token) {
-        logParams("isTokenValid", () -> array(
-                "token", obfuscateConditional(token))
-        );
+        if (logRequest(IS_TOKEN_VALID)) {
+            IS_TOKEN_VALID.logParams(logger, obfuscateConditional(token));
+        }
 
         var result = service.isTokenValid(token);
 
@@ -42,21 +42,20 @@ import org.springframework.web.bind.annotation.RestController;
 @Api(tags = {SwaggerAutoConfiguration.USERS_API_TAG})
 public class UsersApi extends ApiBase implements IUsersApi {
 
+    private static final RequestLog REGISTER_USER = RequestLog.of("registerUser", "customer", "secret", "superUserToken");
+
     @Autowired
     private IUsersService usersService;
 
     @Override
     public UserDetails registerUser(Customer customer, String secret, String superUserToken) {
-        logger.info("Received register-user request.");
-
-        //<editor-fold defaultstate="collapsed" desc="Debug-logging input params.">
-        logger.debug(
-                "Params of this request:\ncustomer={}\nsecret={}\nsuperUserToken={}",
-                obfuscateConditional(stringify(customer)),
-                obfuscateConditional(secret),
-                obfuscateConditional(superUserToken)
-        );
-        //</editor-fold>
+        if (logRequest(REGISTER_USER)) {
+            REGISTER_USER.logParams(logger,
+                    obfuscateConditional(stringify(customer)),
+                    obfuscateConditional(secret),
+                    obfuscateConditional(superUserToken)
+            );
+        }
 
         var result = usersService.registerUser(customer, secret, parseToken(superUserToken));
 
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of the cache in front of the options service of a provider. See
+ * {@link de.hsesslingen.keim.efs.middleware.provider.CachingOptionsService}.
+ *
+ * @author keim
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "middleware.provider.options-api.cache")
+public class OptionsCacheProperties {
+
+    /**
+     * Which part of the credentials of a request is part of the cache key.
+     */
+    public enum CredentialScope {
+        /**
+         * Options are shared between all users. Only use this if the options
+         * do not depend on the user.
+         */
+        none,
+        /**
+         * Options are cached per credentials object, i.e. per user. Requires
+         * the credentials class to override {@code equals} and
+         * {@code hashCode}. Otherwise, options are not cached.
+         */
+        credentials
+    }
+
+    /**
+     * Whether options are cached.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of cached requests. If exceeded, the least recently used
+     * entries are evicted.
+     */
+    private int maxSize = 1000;
+
+    /**
+     * How long options are cached.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * Whether entries expire already when the first of their options is no
+     * longer valid according to {@code Option.validUntil}.
+     */
+    private boolean honorValidUntil = true;
+
+    /**
+     * Edge length of the grid cells to which the positions of requests are
+     * quantized.
+     */
+    private double cellMeters = 100;
+
+    /**
+     * Length of the buckets to which the start and end times of requests are
+     * quantized.
+     */
+    private Duration timeBucket = Duration.ofMinutes(1);
+
+    /**
+     * Which part of the credentials is part of the cache key.
+     */
+    private CredentialScope credentialScope = CredentialScope.credentials;
+
+}
@@ -29,7 +29,10 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import de.hsesslingen.keim.efs.middleware.model.BoundingBox;
 import de.hsesslingen.keim.efs.mobility.service.MobilityService;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.Data;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
@@ -51,4 +54,14 @@ public class ProviderProperties {
     @Valid
     private MobilityService mobilityService;
 
+    /**
+     * Machine-readable service area of the mobility service. Consumers use it
+     * to query only providers that operate in the area of interest. If empty,
+     * the service is assumed to operate everywhere. The boxes are appended to
+     * the service area text on registration, see
+     * {@link BoundingBox#appendTo(String, List)}.
+     */
+    @Valid
+    private List<BoundingBox> serviceAreaBounds = new ArrayList<>();
+
 }
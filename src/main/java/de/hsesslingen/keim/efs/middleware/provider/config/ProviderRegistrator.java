@@ -23,7 +23,11 @@
  */
 package de.hsesslingen.keim.efs.middleware.provider.config;
 
+import de.hsesslingen.keim.efs.middleware.model.BoundingBox;
 import de.hsesslingen.keim.efs.middleware.provider.AssetsApi;
+import de.hsesslingen.keim.efs.middleware.provider.AsyncBookingApi;
+import de.hsesslingen.keim.efs.middleware.provider.AsyncOptionsApi;
+import de.hsesslingen.keim.efs.middleware.provider.AsyncPlacesApi;
 import de.hsesslingen.keim.efs.middleware.provider.BookingApi;
 import de.hsesslingen.keim.efs.middleware.provider.TokensApi;
 import de.hsesslingen.keim.efs.middleware.provider.OptionsApi;
@@ -80,10 +84,16 @@ public class ProviderRegistrator {
     @Autowired(required = false)
     private PlacesApi placesApi;
     @Autowired(required = false)
+    private AsyncPlacesApi asyncPlacesApi;
+    @Autowired(required = false)
     private OptionsApi optionsApi;
     @Autowired(required = false)
+    private AsyncOptionsApi asyncOptionsApi;
+    @Autowired(required = false)
     private BookingApi bookingApi;
     @Autowired(required = false)
+    private AsyncBookingApi asyncBookingApi;
+    @Autowired(required = false)
     private TokensApi tokensApi;
     @Autowired(required = false)
     private UsersApi usersApi;
@@ -141,15 +151,15 @@ public class ProviderRegistrator {
             col.add(API.ASSETS_API);
         }
 
-        if (placesApi != null) {
+        if (placesApi != null || asyncPlacesApi != null) {
             col.add(API.PLACES_API);
         }
 
-        if (optionsApi != null) {
+        if (optionsApi != null || asyncOptionsApi != null) {
             col.add(API.OPTIONS_API);
         }
 
-        if (bookingApi != null) {
+        if (bookingApi != null || asyncBookingApi != null) {
             col.add(API.BOOKING_API);
         }
 
@@ -241,6 +251,7 @@ public class ProviderRegistrator {
     }
 
     private void register(MobilityService service) {
+        service.setServiceArea(BoundingBox.appendTo(service.getServiceArea(), properties.getServiceAreaBounds()));
         rt.post(baseUrl + "/services").toInternal().body(service).go();
     }
 
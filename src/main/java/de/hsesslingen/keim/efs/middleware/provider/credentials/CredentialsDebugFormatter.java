@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.provider.credentials;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import static java.lang.invoke.MethodType.methodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.function.Function;
+
+/**
+ * Renders the field values of credentials objects for debug logging.
+ * <p>
+ * The fields of a credentials class are looked up only once. For each field, a
+ * {@link MethodHandle} getter is created and cached per class using a
+ * {@link ClassValue}. Rendering a credentials object therefore neither
+ * reflects on its class nor changes the accessibility of its fields, which
+ * makes it safe to use for concurrent requests.
+ *
+ * @author keim
+ */
+public final class CredentialsDebugFormatter {
+
+    private static final String PREFIX = "Parsed credentials with following values: ";
+
+    private static final ClassValue<FieldGetter[]> GETTERS = new ClassValue<>() {
+        @Override
+        protected FieldGetter[] computeValue(Class<?> type) {
+            return createGetters(type);
+        }
+    };
+
+    /**
+     * The getter of a single field together with its rendered name.
+     */
+    private static class FieldGetter {
+
+        private final String name;
+        private final MethodHandle getter;
+
+        private FieldGetter(String name, MethodHandle getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+    }
+
+    private CredentialsDebugFormatter() {
+    }
+
+    private static FieldGetter[] createGetters(Class<?> type) {
+        var getters = new ArrayList<FieldGetter>();
+
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                continue;
+            }
+
+            MethodHandle getter;
+
+            try {
+                // The field instance is a copy owned by this method, so changing its accessibility does not affect others.
+                field.setAccessible(true);
+                getter = MethodHandles.lookup().unreflectGetter(field)
+                        .asType(methodType(Object.class, Object.class));
+            } catch (IllegalAccessException | RuntimeException ex) {
+                getter = null;
+            }
+
+            getters.add(new FieldGetter(field.getName(), getter));
+        }
+
+        return getters.toArray(new FieldGetter[getters.size()]);
+    }
+
+    /**
+     * Renders the values of all fields declared by the class of the given
+     * credentials object.
+     *
+     * @param creds
+     * @param valueMapper Maps field values to the strings that are output, e.g.
+     * to obfuscate them.
+     * @return
+     */
+    public static String format(AbstractCredentials creds, Function<Object, String> valueMapper) {
+        if (creds == null) {
+            return "Credentials object is null.";
+        }
+
+        var getters = GETTERS.get(creds.getClass());
+
+        if (getters.length == 0) {
+            return PREFIX + "(no values parsed)";
+        }
+
+        var sb = new StringBuilder(PREFIX);
+
+        for (int i = 0; i < getters.length; i++) {
+            var field = getters[i];
+
+            if (i > 0) {
+                sb.append(", ");
+            }
+
+            sb.append(field.name);
+
+            if (field.getter == null) {
+                sb.append("->IllegalAccessException");
+                continue;
+            }
+
+            try {
+                sb.append('=').append(valueMapper.apply((Object) field.getter.invokeExact((Object) creds)));
+            } catch (Throwable ex) {
+                sb.append("->").append(ex.getClass().getSimpleName());
+            }
+        }
+
+        return sb.toString();
+    }
+}
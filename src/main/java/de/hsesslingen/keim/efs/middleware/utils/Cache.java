@@ -23,14 +23,36 @@
  */
 package de.hsesslingen.keim.efs.middleware.utils;
 
+import java.lang.ref.WeakReference;
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
 
 /**
- * Stores items of type {@link V} in a map by an key of type {@link K}..
+ * Stores items of type {@link V} in a map by an key of type {@link K}.
+ * <p>
+ * Items expire after the expiry duration of the cache or after their own
+ * duration, if one was given in {@link #set(Object, Object, Duration)}.
+ * Expired items are never returned. They are removed lazily when read and
+ * periodically by a shared background sweeper, so calling {@link #cleanUp()}
+ * is not necessary anymore.
+ * <p>
+ * The cache can be bounded by a maximum number of items or by a maximum total
+ * weight. If a bound is exceeded, the least recently used items are evicted in
+ * batches of about ten percent.
  *
  * @author boesch
  * @param <V>
@@ -38,14 +60,94 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class Cache<K, V> {
 
-    private Duration expiryDuration;
-    private final Map<K, Item> map = new ConcurrentHashMap<>();
+    /**
+     * The interval in which the background sweeper removes expired items.
+     */
+    private static final long SWEEP_INTERVAL_SECONDS = 30;
+
+    /**
+     * The fraction of items evicted at once if a bound is exceeded.
+     */
+    private static final double EVICTION_BATCH = 0.1;
+
+    private static final Set<WeakReference<Cache<?, ?>>> SWEPT_CACHES = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "efs-cache-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        SWEEPER.scheduleWithFixedDelay(Cache::sweepAll, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void sweepAll() {
+        SWEPT_CACHES.removeIf(ref -> {
+            var cache = ref.get();
+            if (cache == null) {
+                return true;
+            }
+            try {
+                cache.cleanUp();
+            } catch (RuntimeException ex) {
+                // Keep the sweeper alive for all other caches.
+            }
+            return false;
+        });
+    }
+
+    private volatile Duration expiryDuration;
+    private volatile long expiryNanos = -1;
+
+    private final long maxSize;
+    private final long maxWeight;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+
+    private final Map<K, Item<V>> map = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong totalWeight = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
 
     public Cache() {
+        this(null);
     }
 
     public Cache(Duration expiryDuration) {
-        this.expiryDuration = expiryDuration;
+        this(expiryDuration, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache that holds at most {@link maxSize} items.
+     *
+     * @param expiryDuration
+     * @param maxSize
+     */
+    public Cache(Duration expiryDuration, long maxSize) {
+        this(expiryDuration, maxSize, Long.MAX_VALUE, (k, v) -> 1);
+    }
+
+    /**
+     * Creates a cache whose items have a weight, as determined by
+     * {@link weigher}, which must not exceed {@link maxWeight} in sum.
+     *
+     * @param expiryDuration
+     * @param maxWeight
+     * @param weigher
+     */
+    public Cache(Duration expiryDuration, long maxWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        this(expiryDuration, Long.MAX_VALUE, maxWeight, weigher);
+    }
+
+    private Cache(Duration expiryDuration, long maxSize, long maxWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        setExpiryDuration(expiryDuration);
+        SWEPT_CACHES.add(new WeakReference<>(this));
     }
 
     /**
@@ -58,12 +160,14 @@ public class Cache<K, V> {
     }
 
     /**
-     * Sets the item expiry duration for this cache.
+     * Sets the item expiry duration for this cache. Also applies to items that
+     * are already in the cache and do not have their own expiry duration.
      *
      * @param expiryDuration
      */
     protected void setExpiryDuration(Duration expiryDuration) {
         this.expiryDuration = expiryDuration;
+        this.expiryNanos = expiryDuration == null ? -1 : expiryDuration.toNanos();
     }
 
     /**
@@ -73,11 +177,19 @@ public class Cache<K, V> {
      * @param value
      */
     public void set(K key, V value) {
-        if (map.containsKey(key)) {
-            map.get(key).setItem(value);
-        } else {
-            map.put(key, new Item(value));
-        }
+        store(key, value, -1);
+    }
+
+    /**
+     * Sets a value for the given id, which expires after the given duration
+     * instead of the expiry duration of this cache.
+     *
+     * @param key
+     * @param value
+     * @param expiryDuration
+     */
+    public void set(K key, V value, Duration expiryDuration) {
+        store(key, value, expiryDuration == null ? -1 : expiryDuration.toNanos());
     }
 
     /**
@@ -90,20 +202,31 @@ public class Cache<K, V> {
         set(key, value);
     }
 
+    private void store(K key, V value, long ttlNanos) {
+        var item = new Item<>(value, System.nanoTime(), ttlNanos, weigher.applyAsLong(key, value));
+        var old = map.put(key, item);
+
+        totalWeight.addAndGet(item.weight - (old == null ? 0 : old.weight));
+        evictIfNecessary();
+    }
+
     /**
      * Removes the value under {@link key} from the cache.
      *
      * @param key
      */
     public void remove(K key) {
-        this.map.remove(key);
+        var old = map.remove(key);
+        if (old != null) {
+            totalWeight.addAndGet(-old.weight);
+        }
     }
 
     /**
      * Removes all key value pairs from the cache.
      */
     public void clear() {
-        this.map.clear();
+        map.keySet().forEach(this::remove);
     }
 
     /**
@@ -113,47 +236,211 @@ public class Cache<K, V> {
      * @return
      */
     public Optional<V> get(K key) {
-        if (map.containsKey(key)) {
-            return Optional.of(map.get(key).getItem());
-        } else {
-            return Optional.empty();
+        var item = map.get(key);
+
+        if (item != null) {
+            long now = System.nanoTime();
+
+            if (!isExpired(item, now)) {
+                item.lastAccess = now;
+                hits.increment();
+                return Optional.ofNullable(item.value);
+            }
+
+            removeExpired(key, item);
         }
+
+        misses.increment();
+        return Optional.empty();
     }
 
     /**
-     * Removes expired items from the cache.
+     * Gets the value of the given id or loads it using {@link loader} if there
+     * is none. Concurrent calls for the same key share a single invocation of
+     * {@link loader}. If {@link loader} returns {@code null}, nothing is
+     * stored.
+     *
+     * @param key
+     * @param loader
+     * @return
      */
-    public void cleanUp() {
-        if (expiryDuration != null) {
-            var now = Instant.now();
-            map.values().removeIf(item -> item.getLastUpdated().plus(expiryDuration).isBefore(now));
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        var cached = get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        var future = new CompletableFuture<V>();
+        var running = loading.putIfAbsent(key, future);
+
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+            }
+        }
+
+        try {
+            // Another loader might have finished right before we registered.
+            var item = map.get(key);
+            if (item != null && !isExpired(item, System.nanoTime())) {
+                future.complete(item.value);
+                return item.value;
+            }
+
+            V value = loader.apply(key);
+            if (value != null) {
+                set(key, value);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(key, future);
         }
     }
 
     /**
-     * Wrapper class to store an element in the cache, containing meta
-     * information (update timestamp).
+     * Removes expired items from the cache. This is done periodically in the
+     * background, but can also be called explicitly.
+     */
+    public void cleanUp() {
+        long now = System.nanoTime();
+        map.forEach((key, item) -> {
+            if (isExpired(item, now)) {
+                removeExpired(key, item);
+            }
+        });
+    }
+
+    /**
+     * Gets the number of items currently in the cache, including expired
+     * items that were not removed yet.
+     *
+     * @return
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Gets the sum of the weights of all items in the cache.
+     *
+     * @return
+     */
+    public long getWeight() {
+        return totalWeight.get();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of items removed because they expired or because a
+     * bound of this cache was exceeded.
+     *
+     * @return
      */
-    private class Item {
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
 
-        private V item;
-        private Instant lastUpdated;
+    private boolean isExpired(Item<V> item, long now) {
+        long ttl = item.ttlNanos >= 0 ? item.ttlNanos : expiryNanos;
+        return ttl >= 0 && now - item.written > ttl;
+    }
 
-        public Item(V item) {
-            this.setItem(item);
+    private void removeExpired(K key, Item<V> item) {
+        // Only remove exactly this item, it may have been replaced meanwhile.
+        if (map.remove(key, item)) {
+            totalWeight.addAndGet(-item.weight);
+            evictions.increment();
         }
+    }
+
+    private boolean isOverBounds() {
+        return map.size() > maxSize || totalWeight.get() > maxWeight;
+    }
 
-        public V getItem() {
-            return item;
+    private void evictIfNecessary() {
+        if (!isOverBounds()) {
+            return;
         }
 
-        public final void setItem(V item) {
-            this.item = item;
-            this.lastUpdated = Instant.now();
+        synchronized (evictionLock) {
+            if (!isOverBounds()) {
+                return;
+            }
+
+            // Expired items go first.
+            cleanUp();
+
+            if (!isOverBounds()) {
+                return;
+            }
+
+            // Snapshot the access times, they may change while sorting.
+            var candidates = new ArrayList<EvictionCandidate<K, V>>(map.size());
+            map.forEach((key, item) -> candidates.add(new EvictionCandidate<>(key, item)));
+            candidates.sort(Comparator.comparingLong(c -> c.lastAccess));
+
+            int batch = Math.max(1, (int) (candidates.size() * EVICTION_BATCH));
+            int evicted = 0;
+
+            for (var candidate : candidates) {
+                if (evicted >= batch && !isOverBounds()) {
+                    break;
+                }
+                if (map.remove(candidate.key, candidate.item)) {
+                    totalWeight.addAndGet(-candidate.item.weight);
+                    evictions.increment();
+                    evicted++;
+                }
+            }
         }
+    }
 
-        public Instant getLastUpdated() {
-            return lastUpdated;
+    /**
+     * Wrapper class to store an element in the cache, containing meta
+     * information (write timestamp, expiry, weight). Items are replaced as a
+     * whole instead of being mutated.
+     */
+    private static class Item<V> {
+
+        private final V value;
+        private final long written;
+        private final long ttlNanos;
+        private final long weight;
+        private volatile long lastAccess;
+
+        private Item(V value, long written, long ttlNanos, long weight) {
+            this.value = value;
+            this.written = written;
+            this.ttlNanos = ttlNanos;
+            this.weight = weight;
+            this.lastAccess = written;
+        }
+
+    }
+
+    private static class EvictionCandidate<K, V> {
+
+        private final K key;
+        private final Item<V> item;
+        private final long lastAccess;
+
+        private EvictionCandidate(K key, Item<V> item) {
+            this.key = key;
+            this.item = item;
+            this.lastAccess = item.lastAccess;
         }
 
     }
@@ -0,0 +1,219 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.utils;
+
+import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
+import static de.hsesslingen.keim.efs.middleware.model.ICoordinates.DOUBLE_EARTH_RADIUS_KM;
+import static de.hsesslingen.keim.efs.middleware.model.ICoordinates.PI_BY_D180;
+import static java.lang.Math.asin;
+import static java.lang.Math.cos;
+import static java.lang.Math.min;
+import static java.lang.Math.sin;
+import static java.lang.Math.sqrt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batch calculations of distances between one point of reference and many
+ * coordinates.
+ * <p>
+ * The coordinates are passed as a single {@code double[]} of alternating
+ * latitude and longitude values, as created by
+ * {@link #toLatLonArray(List)}. This way, the values are unboxed once instead
+ * of once per comparison. The loops are free of branches and method calls
+ * other than math intrinsics, so the JIT can unroll and, where the
+ * instruction set allows, vectorize them.
+ *
+ * @author keim
+ */
+public final class DistanceUtils {
+
+    private DistanceUtils() {
+    }
+
+    /**
+     * Copies the latitude and longitude values of the given coordinates into a
+     * new array of alternating latitude and longitude values.
+     *
+     * @param coordinates
+     * @return
+     * @throws NullPointerException if any latitude or longitude is
+     * {@code null}.
+     */
+    public static double[] toLatLonArray(List<? extends ICoordinates> coordinates) {
+        var latLon = new double[coordinates.size() * 2];
+        int i = 0;
+
+        for (var c : coordinates) {
+            latLon[i++] = c.getLat();
+            latLon[i++] = c.getLon();
+        }
+
+        return latLon;
+    }
+
+    /**
+     * Calculates the haversine distance in kilometers from the given point to
+     * each pair in {@link latLon}.
+     *
+     * @param lat Latitude of the point of reference in degrees.
+     * @param lon Longitude of the point of reference in degrees.
+     * @param latLon Alternating latitude and longitude values in degrees.
+     * @param result The array the distances are written to. Must have at
+     * least half the length of {@link latLon}.
+     * @return {@link result}
+     */
+    public static double[] distancesKm(double lat, double lon, double[] latLon, double[] result) {
+        double latA = lat * PI_BY_D180;
+        double cosLatA = cos(latA);
+        int n = latLon.length / 2;
+
+        for (int i = 0; i < n; i++) {
+            double latB = latLon[2 * i] * PI_BY_D180;
+            double sinOfLat = sin((latB - latA) * 0.5);
+            double sinOfLon = sin((latLon[2 * i + 1] - lon) * PI_BY_D180 * 0.5);
+            double h = sinOfLat * sinOfLat + sinOfLon * sinOfLon * cosLatA * cos(latB);
+
+            result[i] = DOUBLE_EARTH_RADIUS_KM * asin(sqrt(min(h, 1.0)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Calculates an approximation of the distance in kilometers from the given
+     * point to each pair in {@link latLon} using an equirectangular
+     * projection. For distances up to some hundred kilometers the error is
+     * well below one percent, which is sufficient for sorting and filtering.
+     * This kernel uses only multiplications and additions besides one square
+     * root and is considerably faster than
+     * {@link #distancesKm(double, double, double[], double[])}.
+     *
+     * @param lat Latitude of the point of reference in degrees.
+     * @param lon Longitude of the point of reference in degrees.
+     * @param latLon Alternating latitude and longitude values in degrees.
+     * @param result The array the distances are written to. Must have at
+     * least half the length of {@link latLon}.
+     * @return {@link result}
+     */
+    public static double[] approximateDistancesKm(double lat, double lon, double[] latLon, double[] result) {
+        double kmPerDegree = DOUBLE_EARTH_RADIUS_KM * 0.5 * PI_BY_D180;
+        double lonScale = cos(lat * PI_BY_D180);
+        int n = latLon.length / 2;
+
+        for (int i = 0; i < n; i++) {
+            double dLat = latLon[2 * i] - lat;
+            double dLon = (latLon[2 * i + 1] - lon) * lonScale;
+
+            result[i] = kmPerDegree * sqrt(dLat * dLat + dLon * dLon);
+        }
+
+        return result;
+    }
+
+    /**
+     * Marks each pair in {@link latLon} that lies within the given radius
+     * around the given point. The haversine term is compared against a
+     * precomputed threshold, so no inverse trigonometric function is
+     * evaluated per pair.
+     *
+     * @param lat Latitude of the point of reference in degrees.
+     * @param lon Longitude of the point of reference in degrees.
+     * @param radiusKm
+     * @param latLon Alternating latitude and longitude values in degrees.
+     * @param result The array the flags are written to. Must have at least
+     * half the length of {@link latLon}.
+     * @return The number of pairs within the radius.
+     */
+    public static int withinRadius(double lat, double lon, double radiusKm, double[] latLon, boolean[] result) {
+        double latA = lat * PI_BY_D180;
+        double cosLatA = cos(latA);
+        double s = sin(min(radiusKm / DOUBLE_EARTH_RADIUS_KM, Math.PI / 2));
+        double threshold = s * s;
+        int n = latLon.length / 2;
+        int count = 0;
+
+        for (int i = 0; i < n; i++) {
+            double latB = latLon[2 * i] * PI_BY_D180;
+            double sinOfLat = sin((latB - latA) * 0.5);
+            double sinOfLon = sin((latLon[2 * i + 1] - lon) * PI_BY_D180 * 0.5);
+            double h = sinOfLat * sinOfLat + sinOfLon * sinOfLon * cosLatA * cos(latB);
+
+            boolean within = h <= threshold;
+            result[i] = within;
+            count += within ? 1 : 0;
+        }
+
+        return count;
+    }
+
+    /**
+     * Sorts the given items by their distance to the given point, nearest
+     * first. The coordinates of each item are read once. Items without valid
+     * coordinates are placed last.
+     *
+     * @param <T>
+     * @param lat Latitude of the point of reference in degrees.
+     * @param lon Longitude of the point of reference in degrees.
+     * @param items
+     * @return A new sorted list.
+     */
+    public static <T extends ICoordinates> List<T> sortByDistance(double lat, double lon, List<T> items) {
+        int n = items.size();
+        var latLon = new double[n * 2];
+        var valid = new boolean[n];
+
+        for (int i = 0; i < n; i++) {
+            var item = items.get(i);
+            valid[i] = ICoordinates.isValidAndNotNull(item);
+
+            if (valid[i]) {
+                latLon[2 * i] = item.getLat();
+                latLon[2 * i + 1] = item.getLon();
+            }
+        }
+
+        var distances = distancesKm(lat, lon, latLon, new double[n]);
+
+        // Sorting packed keys keeps the sort on primitives. The upper half
+        // holds the upper bits of the distance, which preserve the order of
+        // non-negative doubles up to a relative precision of about 1e-6. The
+        // lower half holds the index, so ties keep their original order.
+        var keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            double distance = valid[i] ? distances[i] : Double.MAX_VALUE;
+            keys[i] = (Double.doubleToRawLongBits(distance) & ~0xFFFFFFFFL) | i;
+        }
+
+        Arrays.sort(keys);
+
+        var result = new ArrayList<T>(n);
+        for (long key : keys) {
+            result.add(items.get((int) key));
+        }
+
+        return result;
+    }
+}
@@ -23,6 +23,8 @@
  */
 package de.hsesslingen.keim.efs.middleware.utils;
 
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -31,7 +33,8 @@ import java.time.OffsetDateTime;
 import java.time.OffsetTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Component;
 
@@ -84,19 +87,165 @@ import org.springframework.stereotype.Component;
  * {@link LocalDateTime#atZone(ZoneId)} with {@link ZoneId#systemDefault()} to
  * convert it to a {@link ZonedDateTime}.</li>
  * </ol>
+ * To avoid the cost of failed attempts, the format of the value is first
+ * guessed from its characters (e.g. whether it contains a {@code T}, an
+ * offset or a zone id in brackets) and only the matching method is called.
+ * The full sequence above is only tried if that one fails.
+ * <p>
+ * Results can be cached by setting
+ * {@code middleware.date-time-parser.cache-size} to a value greater than zero.
+ * Values that only consist of a time are never cached, because their result
+ * depends on the current date.
  *
  * @author boesch
  */
 @Component
 public class FlexibleZonedDateTimeParser implements Converter<String, ZonedDateTime> {
 
-    private static Pattern MILLIS_PATTERN = Pattern.compile("^[0-9]+$");
+    /**
+     * The formats distinguished by {@link #classify(String)}, each associated
+     * with exactly one parse method.
+     */
+    private enum Format {
+        MILLIS(false),
+        ZONED_DATE_TIME(true),
+        OFFSET_DATE_TIME(true),
+        LOCAL_DATE_TIME(true),
+        LOCAL_DATE(true),
+        OFFSET_TIME(false),
+        LOCAL_TIME(false);
+
+        private final boolean cacheable;
+
+        private Format(boolean cacheable) {
+            this.cacheable = cacheable;
+        }
+    }
+
+    private static final Duration CACHE_EXPIRY = Duration.ofMinutes(10);
+
+    private static volatile Cache<String, ZonedDateTime> cache;
+
+    @Value("${middleware.date-time-parser.cache-size:0}")
+    private int cacheSize;
+
+    @PostConstruct
+    private void init() {
+        setCacheSize(cacheSize);
+    }
+
+    /**
+     * Sets the maximum number of parsed values that are cached. A value of
+     * zero or less disables the cache.
+     *
+     * @param size
+     */
+    public static void setCacheSize(int size) {
+        cache = size > 0 ? new Cache<>(CACHE_EXPIRY, size) : null;
+    }
 
     public static ZonedDateTime tryParseZonedDateTime(String value) {
-        if (MILLIS_PATTERN.matcher(value).matches()) {
+        var format = classify(value);
+
+        if (format == Format.MILLIS) {
             return Instant.ofEpochMilli(Long.parseLong(value)).atZone(ZoneId.systemDefault());
         }
 
+        var currentCache = format.cacheable ? cache : null;
+
+        if (currentCache != null) {
+            var cached = currentCache.get(value);
+
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        var result = parse(value, format);
+
+        if (currentCache != null) {
+            currentCache.set(value, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Guesses the format of the given value by looking at its characters. The
+     * guess is only a hint, the actual parser still validates the value.
+     *
+     * @param value
+     * @return
+     */
+    private static Format classify(String value) {
+        int length = value.length();
+        int timeSeparator = -1;
+        boolean digitsOnly = length > 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+
+            if (c < '0' || c > '9') {
+                digitsOnly = false;
+
+                if (timeSeparator < 0 && (c == 'T' || c == 't')) {
+                    timeSeparator = i;
+                }
+            }
+        }
+
+        if (digitsOnly) {
+            return Format.MILLIS;
+        }
+        if (length > 0 && value.charAt(length - 1) == ']') {
+            return Format.ZONED_DATE_TIME;
+        }
+        if (timeSeparator >= 0) {
+            return hasOffset(value, timeSeparator + 1) ? Format.OFFSET_DATE_TIME : Format.LOCAL_DATE_TIME;
+        }
+        if (value.indexOf(':') < 0) {
+            return Format.LOCAL_DATE;
+        }
+
+        return hasOffset(value, 0) ? Format.OFFSET_TIME : Format.LOCAL_TIME;
+    }
+
+    private static boolean hasOffset(String value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == 'Z' || c == 'z' || c == '+' || c == '-') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static ZonedDateTime parse(String value, Format format) {
+        try {
+            switch (format) {
+                case ZONED_DATE_TIME:
+                    return ZonedDateTime.parse(value);
+                case OFFSET_DATE_TIME:
+                    return OffsetDateTime.parse(value).toZonedDateTime();
+                case LOCAL_DATE_TIME:
+                    return LocalDateTime.parse(value).atZone(ZoneId.systemDefault());
+                case LOCAL_DATE:
+                    return LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault());
+                case OFFSET_TIME:
+                    return OffsetTime.parse(value).atDate(LocalDate.now()).toZonedDateTime();
+                case LOCAL_TIME:
+                    return LocalTime.parse(value).atDate(LocalDate.now()).atZone(ZoneId.systemDefault());
+            }
+        } catch (DateTimeException ex) {
+            // The guess was wrong, try all formats.
+        }
+
+        return parseUsingAllFormats(value);
+    }
+
+    private static ZonedDateTime parseUsingAllFormats(String value) {
         try {
             return ZonedDateTime.parse(value);
         } catch (Exception ex) {
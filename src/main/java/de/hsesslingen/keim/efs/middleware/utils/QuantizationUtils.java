@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.utils;
+
+import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+/**
+ * Helpers to map continuous values like coordinates and points in time to
+ * discrete cells and buckets. Values falling into the same cell or bucket are
+ * considered equal, which is useful for building cache keys from request
+ * parameters that rarely match exactly.
+ *
+ * @author keim
+ */
+public final class QuantizationUtils {
+
+    /**
+     * The approximate length of one degree of latitude in meters.
+     */
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private QuantizationUtils() {
+    }
+
+    /**
+     * Maps the given coordinates to a square grid cell with the given edge
+     * length in meters. The edge length is applied as degrees of latitude on
+     * both axes, so cells get narrower towards the poles, which only makes
+     * them more conservative.
+     *
+     * @param coordinates
+     * @param cellMeters
+     * @return The cell id or {@code null} if {@link coordinates} is
+     * {@code null}.
+     */
+    public static Long quantize(ICoordinates coordinates, double cellMeters) {
+        if (coordinates == null || coordinates.getLat() == null || coordinates.getLon() == null) {
+            return null;
+        }
+
+        double cellDegrees = cellMeters / METERS_PER_DEGREE;
+        long latCell = (long) Math.floor(coordinates.getLat() / cellDegrees);
+        long lonCell = (long) Math.floor(coordinates.getLon() / cellDegrees);
+
+        // Latitude cells never exceed 32 bits for any sensible cell size.
+        return (latCell << 32) ^ (lonCell & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Maps the given point in time to a bucket of the given duration.
+     *
+     * @param time
+     * @param bucket
+     * @return The bucket id or {@code null} if {@link time} is {@code null}.
+     */
+    public static Long quantize(ZonedDateTime time, Duration bucket) {
+        if (time == null) {
+            return null;
+        }
+
+        return Math.floorDiv(time.toInstant().toEpochMilli(), bucket.toMillis());
+    }
+}
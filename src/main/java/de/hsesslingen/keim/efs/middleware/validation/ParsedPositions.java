@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package de.hsesslingen.keim.efs.middleware.validation;
+
+import de.hsesslingen.keim.efs.middleware.model.Coordinates;
+import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
+import de.hsesslingen.keim.efs.middleware.model.PrimitiveCoordinates;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Remembers the positions parsed by {@link PositionValidator} for the current
+ * HTTP request, so that controllers can reuse them instead of parsing the same
+ * string again.
+ * <p>
+ * Outside of a request, or if a string was not validated before, the string
+ * is simply parsed.
+ *
+ * @author keim
+ */
+public final class ParsedPositions {
+
+    private static final String ATTRIBUTE = ParsedPositions.class.getName();
+
+    private ParsedPositions() {
+    }
+
+    /**
+     * Parses and validates the given position and remembers the result for
+     * the current request.
+     *
+     * @param position
+     * @return Whether the position is valid.
+     */
+    static boolean parseAndRemember(String position) {
+        var coordinates = parseAndValidate(position);
+
+        if (coordinates == null) {
+            return false;
+        }
+
+        var cache = getCache(true);
+        if (cache != null) {
+            cache.put(position, coordinates);
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the coordinates for the given lat,lon string, either from the
+     * positions validated during the current request or by parsing and
+     * validating it.
+     *
+     * @param position
+     * @return The coordinates or {@code null} if {@link position} is
+     * {@code null} or invalid.
+     */
+    public static PrimitiveCoordinates get(String position) {
+        if (position == null) {
+            return null;
+        }
+
+        var cache = getCache(false);
+
+        if (cache != null) {
+            var coordinates = cache.get(position);
+
+            if (coordinates != null) {
+                return coordinates;
+            }
+        }
+
+        return parseAndValidate(position);
+    }
+
+    /**
+     * Same as {@link #get(String)} but returns a new, mutable
+     * {@link Coordinates} object.
+     *
+     * @param position
+     * @return
+     */
+    public static Coordinates getCoordinates(String position) {
+        var coordinates = get(position);
+        return coordinates == null ? null : coordinates.toCoordinates();
+    }
+
+    private static PrimitiveCoordinates parseAndValidate(String position) {
+        return ICoordinates.parseLatLon(position, (lat, lon) -> {
+            return ICoordinates.isValid(lat, lon) ? new PrimitiveCoordinates(lat, lon) : null;
+        }, () -> null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, PrimitiveCoordinates> getCache(boolean create) {
+        var attributes = RequestContextHolder.getRequestAttributes();
+
+        if (attributes == null) {
+            return null;
+        }
+
+        var cache = (Map<String, PrimitiveCoordinates>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        if (cache == null && create) {
+            // Usually there are no more than two positions per request.
+            cache = new HashMap<>(4);
+            attributes.setAttribute(ATTRIBUTE, cache, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return cache;
+    }
+}
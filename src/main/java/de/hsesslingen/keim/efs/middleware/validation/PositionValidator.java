@@ -23,13 +23,15 @@
  */
 package de.hsesslingen.keim.efs.middleware.validation;
 
-import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 
 /**
  * Validates Position given as String in format latitude,longitude. Example
  * {@code 49.123,17.234} Null values are considered as valid!
+ * <p>
+ * Valid positions are remembered for the current request. Use
+ * {@link ParsedPositions#get(String)} to obtain them without parsing again.
  *
  * @author k.sivarasah 1 Oct 2019
  */
@@ -37,8 +39,7 @@ public class PositionValidator implements ConstraintValidator<PositionAsString,
 
     @Override
     public boolean isValid(String pos, ConstraintValidatorContext context) {
-        // parseAndValidate parses and returns true upon success and false upon failure.
-        return pos == null || ICoordinates.parseAndValidate(pos, (lat, lon) -> true, () -> false);
+        return pos == null || ParsedPositions.parseAndRemember(pos);
     }
 
 }
@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.config.RequestConfiguration;
+
+/**
+ * @author keim
+ */
+public class RequestConfigurationTest {
+
+    @Test
+    public void routeOfTest_explicitPort() {
+        var route = RequestConfiguration.routeOf("http://provider-a:8080");
+
+        assertEquals(new HttpHost("provider-a", 8080, "http"), route.getTargetHost());
+        assertFalse(route.isSecure());
+    }
+
+    @Test
+    public void routeOfTest_defaultPorts() {
+        var http = RequestConfiguration.routeOf("http://provider-a");
+        var https = RequestConfiguration.routeOf("https://provider-b");
+
+        assertEquals(80, http.getTargetHost().getPort());
+        assertEquals(443, https.getTargetHost().getPort());
+        assertTrue(https.isSecure());
+
+        // Must match the routes planned by the HTTP client.
+        assertEquals(new HttpRoute(new HttpHost("provider-b", 443, "https"), null, true), https);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void routeOfTest_unknownScheme() {
+        RequestConfiguration.routeOf("ftp://provider-a");
+    }
+}
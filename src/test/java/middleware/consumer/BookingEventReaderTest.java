@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import de.hsesslingen.keim.efs.middleware.consumer.BookingEventReader;
+import de.hsesslingen.keim.efs.middleware.consumer.ProviderProxy;
+import de.hsesslingen.keim.efs.middleware.model.BookingEvent;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.middleware.provider.IBookingApi;
+import de.hsesslingen.keim.efs.mobility.service.MobilityService;
+
+/**
+ * @author keim
+ */
+public class BookingEventReaderTest {
+
+    private static final String EVENTS = ""
+            + ": heartbeat\n"
+            + "\n"
+            + "event: booking\n"
+            + "data: {\"bookingId\":\"b1\",\n"
+            + "data: \"state\":\"BOOKED\"}\n"
+            + "\n"
+            + "event: other\n"
+            + "data: {\"bookingId\":\"x1\",\"state\":\"BOOKED\"}\n"
+            + "\n"
+            + "id: 3\n"
+            + "data:{\"serviceId\":\"other\",\"bookingId\":\"b2\",\"state\":\"STARTED\"}\n"
+            + "\n";
+
+    private HttpServer server;
+    private final BookingEventReader reader = new BookingEventReader();
+    private final List<BookingEvent> events = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api" + IBookingApi.EVENTS_PATH, exchange -> {
+            var body = EVENTS.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        ReflectionTestUtils.setField(reader, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(reader, "readTimeout", Duration.ofSeconds(5));
+        // Do not reconnect during the tests.
+        ReflectionTestUtils.setField(reader, "retryInitialDelay", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(reader, "retryMaxDelay", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(reader, "maxConnections", 10);
+        ReflectionTestUtils.setField(reader, "maxConnectionsPerProvider", 10);
+        ReflectionTestUtils.invokeMethod(reader, "init");
+    }
+
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(reader, "shutdown");
+        server.stop(0);
+    }
+
+    private ProviderProxy provider(String path) {
+        var service = new MobilityService()
+                .setId("demo")
+                .setServiceUrl("http://localhost:" + server.getAddress().getPort() + path);
+
+        return new ProviderProxy(service, null);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void readEventsTest() throws Exception {
+        try (var subscription = reader.subscribe(provider("/api"), "token", events::add)) {
+            await(() -> events.size() >= 2);
+
+            // The comment and the event with an unknown name are skipped.
+            assertEquals(2, events.size());
+
+            // Multi-line data is joined.
+            assertEquals("b1", events.get(0).getBookingId());
+            assertEquals(BookingState.BOOKED, events.get(0).getState());
+            assertEquals("demo", events.get(0).getServiceId());
+
+            // Events without name are booking events as well.
+            assertEquals("b2", events.get(1).getBookingId());
+            assertEquals(BookingState.STARTED, events.get(1).getState());
+            assertEquals("other", events.get(1).getServiceId());
+        }
+    }
+
+    @Test
+    public void rejectedSubscriptionIsClosedTest() throws Exception {
+        var subscription = reader.subscribe(provider("/unknown"), "token", events::add);
+
+        await(subscription::isClosed);
+
+        assertTrue(subscription.isClosed());
+        assertTrue(events.isEmpty());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.consumer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import de.hsesslingen.keim.efs.middleware.consumer.JsonStreamReader;
+import de.hsesslingen.keim.efs.mobility.requests.DefaultRequestTemplate;
+import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
+
+/**
+ * @author keim
+ */
+public class JsonStreamReaderTest {
+
+    private HttpServer server;
+    private final Map<String, String> receivedHeaders = new ConcurrentHashMap<>();
+    private final JsonStreamReader reader = new JsonStreamReader();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items", exchange -> {
+            exchange.getRequestHeaders().forEach((name, values) -> receivedHeaders.put(name.toLowerCase(), values.get(0)));
+
+            var body = "1\n2\n3\n".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        ReflectionTestUtils.setField(reader, "httpClient", HttpClients.createDefault());
+        ReflectionTestUtils.setField(reader, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.invokeMethod(reader, "init");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void readArrayTest() {
+        var url = "http://localhost:" + server.getAddress().getPort() + "/items";
+        var request = new DefaultRequestTemplate(new RestTemplate()).get(url);
+        request.header("X-Custom", "custom-value");
+
+        var items = new ArrayList<Integer>();
+        int count = reader.readArray(request, "some-token", Integer.class, items::add);
+
+        assertEquals(3, count);
+        assertEquals(List.of(1, 2, 3), items);
+        assertEquals("custom-value", receivedHeaders.get("x-custom"));
+        assertEquals("some-token", receivedHeaders.get(TOKEN_HEADER.toLowerCase()));
+    }
+
+    @Test
+    public void readArrayAbortTest() {
+        var url = "http://localhost:" + server.getAddress().getPort() + "/items";
+        var request = new DefaultRequestTemplate(new RestTemplate()).get(url);
+
+        var items = new ArrayList<Integer>();
+        int count = reader.readArray(request, null, Integer.class, item -> items.add(item) && items.size() < 2);
+
+        assertEquals(2, count);
+        assertEquals(List.of(1, 2), items);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.consumer.LatencyHistogram;
+
+/**
+ * @author keim
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyTest() {
+        var histogram = new LatencyHistogram(60_000);
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(-1, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    public void percentileTest() {
+        var histogram = new LatencyHistogram(60_000);
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 10);
+        }
+
+        assertEquals(100, histogram.getCount());
+
+        long p50 = histogram.getPercentile(0.5);
+        long p99 = histogram.getPercentile(0.99);
+
+        // Buckets are about 19 % wide and the upper bound is returned.
+        assertTrue("p50 was " + p50, p50 >= 500 && p50 <= 500 * 1.19 + 1);
+        assertTrue("p99 was " + p99, p99 >= 990 && p99 <= 990 * 1.19 + 1);
+    }
+
+    @Test
+    public void outliersAreClampedTest() {
+        var histogram = new LatencyHistogram(60_000);
+
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(1, histogram.getPercentile(0.5));
+        assertTrue(histogram.getPercentile(1.0) >= 50_000);
+    }
+
+    @Test
+    public void oldWindowsFadeOutTest() throws InterruptedException {
+        var histogram = new LatencyHistogram(20);
+
+        histogram.record(100);
+        Thread.sleep(30);
+        // Rotated once: the sample is in the previous window.
+        assertEquals(1, histogram.getCount());
+
+        Thread.sleep(30);
+        // Rotated twice: the sample is gone.
+        assertEquals(0, histogram.getCount());
+    }
+}
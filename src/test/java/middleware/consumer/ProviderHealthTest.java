@@ -0,0 +1,191 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.consumer.ProviderHealth;
+import de.hsesslingen.keim.efs.middleware.consumer.ProviderHealth.State;
+import static de.hsesslingen.keim.efs.middleware.consumer.ProviderHealth.NOT_PERMITTED;
+
+/**
+ * @author keim
+ */
+public class ProviderHealthTest {
+
+    private static ProviderHealth health(Duration openDuration) {
+        return new ProviderHealth("service", 3, openDuration, 2.0,
+                Duration.ofMillis(100), Duration.ofSeconds(10), 10, Duration.ofMinutes(5));
+    }
+
+    private static void fail(ProviderHealth health) {
+        health.onFailure(health.tryAcquire(), 10);
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailuresTest() {
+        var health = health(Duration.ofMinutes(1));
+
+        fail(health);
+        fail(health);
+        assertEquals(State.CLOSED, health.getState());
+
+        fail(health);
+        assertEquals(State.OPEN, health.getState());
+        assertFalse(health.isCallPermitted());
+        assertEquals(NOT_PERMITTED, health.tryAcquire());
+    }
+
+    @Test
+    public void successResetsFailuresTest() {
+        var health = health(Duration.ofMinutes(1));
+
+        fail(health);
+        fail(health);
+        health.onSuccess(health.tryAcquire(), 10);
+        fail(health);
+        fail(health);
+
+        assertEquals(State.CLOSED, health.getState());
+    }
+
+    @Test
+    public void halfOpenProbeClosesTest() throws InterruptedException {
+        var health = health(Duration.ofMillis(20));
+
+        for (int i = 0; i < 3; i++) {
+            fail(health);
+        }
+        assertEquals(State.OPEN, health.getState());
+
+        Thread.sleep(40);
+        assertEquals(State.HALF_OPEN, health.getState());
+        assertTrue(health.isCallPermitted());
+
+        // Only a single probe is let through.
+        long probe = health.tryAcquire();
+        assertNotEquals(NOT_PERMITTED, probe);
+        assertEquals(NOT_PERMITTED, health.tryAcquire());
+        assertFalse(health.isCallPermitted());
+
+        health.onSuccess(probe, 10);
+        assertEquals(State.CLOSED, health.getState());
+        assertNotEquals(NOT_PERMITTED, health.tryAcquire());
+    }
+
+    @Test
+    public void halfOpenProbeReopensTest() throws InterruptedException {
+        var health = health(Duration.ofMillis(20));
+
+        for (int i = 0; i < 3; i++) {
+            fail(health);
+        }
+
+        Thread.sleep(40);
+        fail(health);
+
+        assertEquals(State.OPEN, health.getState());
+        assertEquals(NOT_PERMITTED, health.tryAcquire());
+    }
+
+    @Test
+    public void lateSuccessDoesNotCloseOpenCircuitTest() {
+        var health = health(Duration.ofMinutes(1));
+        long slow = health.tryAcquire();
+
+        for (int i = 0; i < 3; i++) {
+            fail(health);
+        }
+
+        // The slow request was sent before the circuit opened.
+        health.onSuccess(slow, 5000);
+        assertEquals(State.OPEN, health.getState());
+        assertEquals(NOT_PERMITTED, health.tryAcquire());
+    }
+
+    @Test
+    public void lateCompletionDoesNotFreeProbeTest() throws InterruptedException {
+        var health = health(Duration.ofMillis(20));
+        long slowSuccess = health.tryAcquire();
+        long slowFailure = health.tryAcquire();
+
+        for (int i = 0; i < 3; i++) {
+            fail(health);
+        }
+
+        Thread.sleep(40);
+        long probe = health.tryAcquire();
+        assertNotEquals(NOT_PERMITTED, probe);
+
+        // Neither closes the circuit nor lets a second probe through.
+        health.onSuccess(slowSuccess, 5000);
+        assertEquals(State.HALF_OPEN, health.getState());
+        assertEquals(NOT_PERMITTED, health.tryAcquire());
+
+        // Does not reopen the circuit while the probe is running.
+        health.onFailure(slowFailure, 5000);
+        assertEquals(State.HALF_OPEN, health.getState());
+        assertEquals(NOT_PERMITTED, health.tryAcquire());
+
+        health.onSuccess(probe, 10);
+        assertEquals(State.CLOSED, health.getState());
+    }
+
+    @Test
+    public void adaptiveTimeoutTest() {
+        var health = health(Duration.ofMinutes(1));
+
+        // Not enough samples yet.
+        health.onSuccess(health.tryAcquire(), 50);
+        assertEquals(Duration.ofSeconds(10), health.getTimeout());
+
+        for (int i = 0; i < 20; i++) {
+            health.onSuccess(health.tryAcquire(), 200);
+        }
+
+        long timeout = health.getTimeout().toMillis();
+        assertTrue("Timeout " + timeout + " should be about twice the p99.", timeout >= 400 && timeout <= 500);
+    }
+
+    @Test
+    public void adaptiveTimeoutIsClampedTest() {
+        var fast = health(Duration.ofMinutes(1));
+        var slow = health(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 20; i++) {
+            fast.onSuccess(fast.tryAcquire(), 1);
+            slow.onSuccess(slow.tryAcquire(), 30_000);
+        }
+
+        assertEquals(Duration.ofMillis(100), fast.getTimeout());
+        assertEquals(Duration.ofSeconds(10), slow.getTimeout());
+    }
+}
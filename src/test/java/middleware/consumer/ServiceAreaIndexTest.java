@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.consumer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.consumer.ProviderProxy;
+import de.hsesslingen.keim.efs.middleware.consumer.ServiceAreaIndex;
+import de.hsesslingen.keim.efs.middleware.model.BoundingBox;
+import de.hsesslingen.keim.efs.mobility.service.MobilityService;
+
+/**
+ * @author keim
+ */
+public class ServiceAreaIndexTest {
+
+    private static ProviderProxy provider(String serviceId, BoundingBox... boxes) {
+        var service = new MobilityService().setId(serviceId)
+                .setServiceUrl("http://" + serviceId + "/api")
+                .setServiceArea(BoundingBox.appendTo("Somewhere", List.of(boxes)));
+        return new ProviderProxy(service, null);
+    }
+
+    private final ServiceAreaIndex index = new ServiceAreaIndex(List.of(
+            provider("esslingen", new BoundingBox(48.70, 9.25, 48.77, 9.35)),
+            provider("stuttgart", new BoundingBox(48.69, 9.03, 48.87, 9.32)),
+            provider("fiji", new BoundingBox(-21.0, 176.0, -12.0, -178.0)),
+            provider("everywhere")
+    ));
+
+    @Test
+    public void findTest() {
+        assertEquals(Set.of("esslingen", "stuttgart", "everywhere"),
+                index.find(new BoundingBox(48.74, 9.30, 48.75, 9.31)));
+        assertEquals(Set.of("esslingen", "everywhere"),
+                index.find(new BoundingBox(48.74, 9.33, 48.75, 9.34)));
+        assertEquals(Set.of("everywhere"),
+                index.find(new BoundingBox(52.4, 13.2, 52.6, 13.5)));
+    }
+
+    @Test
+    public void findAcrossAntimeridianTest() {
+        assertEquals(Set.of("fiji", "everywhere"),
+                index.find(new BoundingBox(-18.2, 178.3, -18.1, 178.5)));
+        assertEquals(Set.of("fiji", "everywhere"),
+                index.find(new BoundingBox(-16.0, -179.5, -15.0, -179.0)));
+        assertEquals(Set.of("fiji", "everywhere"),
+                index.find(new BoundingBox(-17.0, 179.5, -16.0, -179.5)));
+        assertEquals(Set.of("everywhere"),
+                index.find(new BoundingBox(-18.0, 0.0, -17.0, 1.0)));
+    }
+
+    @Test
+    public void findLargeAreaTest() {
+        assertEquals(Set.of("esslingen", "stuttgart", "fiji", "everywhere"),
+                index.find(new BoundingBox(-90, -180, 90, 180)));
+    }
+}
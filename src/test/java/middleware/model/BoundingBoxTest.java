@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.model.BoundingBox;
+
+/**
+ * @author keim
+ */
+public class BoundingBoxTest {
+
+    private static final BoundingBox ESSLINGEN = new BoundingBox(48.70, 9.25, 48.77, 9.35);
+    private static final BoundingBox FIJI = new BoundingBox(-21.0, 176.0, -12.0, -178.0);
+
+    @Test
+    public void formatTest() {
+        assertEquals("City of Esslingen [bbox=48.7,9.25,48.77,9.35]",
+                BoundingBox.appendTo("City of Esslingen", List.of(ESSLINGEN)));
+        assertEquals("[bbox=48.7,9.25,48.77,9.35;-21.0,176.0,-12.0,-178.0]",
+                BoundingBox.appendTo(null, List.of(ESSLINGEN, FIJI)));
+        assertEquals("City of Esslingen", BoundingBox.appendTo("City of Esslingen", List.of()));
+    }
+
+    @Test
+    public void formatReplacesPreviousTagTest() {
+        var once = BoundingBox.appendTo("City of Esslingen", List.of(FIJI));
+        var twice = BoundingBox.appendTo(once, List.of(ESSLINGEN));
+
+        assertEquals("City of Esslingen [bbox=48.7,9.25,48.77,9.35]", twice);
+    }
+
+    @Test
+    public void parseTest() {
+        var text = BoundingBox.appendTo("Somewhere", List.of(ESSLINGEN, FIJI));
+
+        assertEquals(List.of(ESSLINGEN, FIJI), BoundingBox.parseAll(text));
+        assertTrue(BoundingBox.parseAll("Somewhere").isEmpty());
+        assertTrue(BoundingBox.parseAll(null).isEmpty());
+    }
+
+    @Test
+    public void parseSkipsInvalidBoxesTest() {
+        var boxes = BoundingBox.parseAll("[bbox=1,2,3;a,b,c,d;48.77,9.25,48.70,9.35;0,0,91,1;0,-181,1,1;48.7,9.25,48.77,9.35]");
+        assertEquals(List.of(ESSLINGEN), boxes);
+    }
+
+    @Test
+    public void intersectsTest() {
+        assertTrue(ESSLINGEN.intersects(new BoundingBox(48.75, 9.30, 49.0, 10.0)));
+        assertFalse(ESSLINGEN.intersects(new BoundingBox(48.80, 9.30, 49.0, 10.0)));
+        assertFalse(ESSLINGEN.intersects(FIJI));
+    }
+
+    @Test
+    public void intersectsAcrossAntimeridianTest() {
+        assertTrue(FIJI.crossesAntimeridian());
+        assertFalse(ESSLINGEN.crossesAntimeridian());
+
+        // East and west of the antimeridian.
+        assertTrue(FIJI.intersects(new BoundingBox(-18.2, 178.3, -18.1, 178.5)));
+        assertTrue(FIJI.intersects(new BoundingBox(-16.0, -179.5, -15.0, -179.0)));
+        assertTrue(new BoundingBox(-18.2, 178.3, -18.1, 178.5).intersects(FIJI));
+
+        // Between the two ends of the box, which is not part of it.
+        assertFalse(FIJI.intersects(new BoundingBox(-18.0, 0.0, -17.0, 1.0)));
+
+        // Two boxes crossing the antimeridian.
+        assertTrue(FIJI.intersects(new BoundingBox(-20.0, 179.0, -19.0, -179.0)));
+    }
+
+    @Test
+    public void splitAtAntimeridianTest() {
+        assertEquals(List.of(ESSLINGEN), ESSLINGEN.splitAtAntimeridian());
+        assertEquals(List.of(
+                new BoundingBox(-21.0, 176.0, -12.0, 180.0),
+                new BoundingBox(-21.0, -180.0, -12.0, -178.0)
+        ), FIJI.splitAtAntimeridian());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.model.CompactGeoPath;
+import de.hsesslingen.keim.efs.middleware.model.Coordinates;
+import de.hsesslingen.keim.efs.middleware.model.Leg;
+
+/**
+ * @author keim
+ */
+public class CompactGeoPathTest {
+
+    /**
+     * The example from the reference documentation of the encoded polyline
+     * algorithm.
+     */
+    private static final String REFERENCE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+    @Test
+    public void decodeReferenceTest() {
+        var path = CompactGeoPath.decode(REFERENCE);
+
+        assertEquals(3, path.size());
+        assertEquals(38.5, path.getLat(0), 1e-9);
+        assertEquals(-120.2, path.getLon(0), 1e-9);
+        assertEquals(40.7, path.getLat(1), 1e-9);
+        assertEquals(-120.95, path.getLon(1), 1e-9);
+        assertEquals(43.252, path.getLat(2), 1e-9);
+        assertEquals(-126.453, path.getLon(2), 1e-9);
+    }
+
+    @Test
+    public void encodeReferenceTest() {
+        var path = CompactGeoPath.of(new double[]{38.5, -120.2, 40.7, -120.95, 43.252, -126.453});
+        assertEquals(REFERENCE, path.encode());
+    }
+
+    @Test
+    public void roundTripTest() {
+        var coordinates = new ArrayList<Coordinates>();
+
+        for (int i = 0; i < 1000; i++) {
+            coordinates.add(new Coordinates(48.74 + i * 0.00013, 9.30 - i * 0.00007));
+        }
+
+        var decoded = CompactGeoPath.decode(CompactGeoPath.fromCoordinates(coordinates).encode());
+
+        assertEquals(coordinates.size(), decoded.size());
+        for (int i = 0; i < coordinates.size(); i++) {
+            assertEquals(coordinates.get(i).getLat(), decoded.getLat(i), 1e-5);
+            assertEquals(coordinates.get(i).getLon(), decoded.getLon(i), 1e-5);
+        }
+    }
+
+    @Test
+    public void emptyTest() {
+        assertTrue(CompactGeoPath.decode("").isEmpty());
+        assertTrue(CompactGeoPath.decode(null).isEmpty());
+        assertEquals("", CompactGeoPath.EMPTY.encode());
+    }
+
+    @Test
+    public void incompleteCoordinatesAreSkippedTest() {
+        var coordinates = new ArrayList<Coordinates>();
+        coordinates.add(new Coordinates(38.5, -120.2));
+        coordinates.add(new Coordinates(null, -120.5));
+        coordinates.add(null);
+        coordinates.add(new Coordinates(40.7, -120.95));
+        coordinates.add(new Coordinates(41.0, null));
+        coordinates.add(new Coordinates(43.252, -126.453));
+
+        var path = CompactGeoPath.fromCoordinates(coordinates);
+
+        assertEquals(3, path.size());
+        assertEquals(REFERENCE, path.encode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedTest() {
+        CompactGeoPath.decode(REFERENCE.substring(0, 3));
+    }
+
+    @Test
+    public void legEncodeGeoPathTest() {
+        var subLeg = new Leg().setGeoPath(List.of(new Coordinates(48.0, 9.0), new Coordinates(48.1, 9.1)));
+        var leg = new Leg()
+                .setGeoPath(List.of(new Coordinates(38.5, -120.2), new Coordinates(40.7, -120.95), new Coordinates(43.252, -126.453)))
+                .setSubLegs(List.of(subLeg));
+
+        leg.encodeGeoPath();
+
+        assertNull(leg.getGeoPath());
+        assertEquals(REFERENCE, leg.getEncodedGeoPath());
+        assertNull(subLeg.getGeoPath());
+        assertEquals(2, subLeg.getCompactGeoPath().size());
+        assertEquals(3, leg.getCompactGeoPath().size());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
+
+/**
+ * @author keim
+ */
+public class ICoordinatesTest {
+
+    private static String parse(String value) {
+        return ICoordinates.parseLatLon(value, (lat, lon) -> lat + "|" + lon, () -> null);
+    }
+
+    @Test
+    public void parseTest() {
+        assertEquals("48.1|9.3", parse("48.1,9.3"));
+        assertEquals("48.1|9.3", parse(" 48.1 , 9.3 "));
+        assertEquals("-0.0|5.0", parse("-0.0,+5"));
+        assertEquals("10.0|0.5", parse("1e1,.5"));
+    }
+
+    @Test
+    public void parseInvalidTest() {
+        assertNull(parse(null));
+        assertNull(parse(""));
+        assertNull(parse("48.1"));
+        assertNull(parse("48.1,"));
+        assertNull(parse("48.1,9.3,1"));
+        assertNull(parse("a,b"));
+        assertNull(parse("NaN,1"));
+    }
+
+    @Test
+    public void parseMatchesDoubleValueOfTest() {
+        var random = new Random(7);
+
+        for (int i = 0; i < 10000; i++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lon = random.nextDouble() * 360 - 180;
+            var latString = i % 2 == 0 ? Double.toString(lat) : String.format(Locale.ROOT, "%.6f", lat);
+
+            var coordinates = ICoordinates.parse(latString + "," + lon);
+
+            assertEquals(Double.valueOf(latString), coordinates.getLat());
+            assertEquals(Double.valueOf(lon), coordinates.getLon());
+        }
+    }
+
+    @Test
+    public void parseAndValidateTest() {
+        assertEquals(Boolean.TRUE, ICoordinates.parseAndValidate("90,180", (lat, lon) -> true, () -> false));
+        assertEquals(Boolean.FALSE, ICoordinates.parseAndValidate("90.1,180", (lat, lon) -> true, () -> false));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.provider;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.middleware.provider.AsyncPlacesApi;
+import de.hsesslingen.keim.efs.middleware.provider.IAsyncPlacesService;
+import de.hsesslingen.keim.efs.middleware.provider.IPlacesService;
+import de.hsesslingen.keim.efs.middleware.provider.PlacesApi;
+import middleware.provider.credentials.TestCredential;
+
+/**
+ * Tests the asynchronous completion of endpoints whose service implements an
+ * asynchronous service interface, using the {@link AsyncPlacesApi}.
+ *
+ * @author keim
+ */
+public class AsyncPlacesApiTest {
+
+    private static final String SEARCH_PATH = "/api/places/search";
+
+    private CompletableFuture<List<Place>> future;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        IAsyncPlacesService<TestCredential> service = (query, areaCenter, radiusMeter, limitTo, credentials) -> future;
+
+        mockMvc = standaloneSetup(new AsyncPlacesApi(), service);
+    }
+
+    private static MockMvc standaloneSetup(Object api, IPlacesService<TestCredential> service) {
+        ReflectionTestUtils.setField(api, "service", service);
+        ReflectionTestUtils.setField(api, "mapper", new ObjectMapper().findAndRegisterModules());
+
+        return MockMvcBuilders.standaloneSetup(api).build();
+    }
+
+    @Test
+    public void pendingFutureCompletesAsynchronouslyTest() throws Exception {
+        future = new CompletableFuture<>();
+
+        var result = mockMvc.perform(get(SEARCH_PATH).param("query", "station"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        future.complete(List.of(Place.fromCoordinates(48.74, 9.30).setName("Station")));
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("Station")));
+    }
+
+    @Test
+    public void exceptionallyCompletedFutureTest() throws Exception {
+        future = new CompletableFuture<>();
+
+        var result = mockMvc.perform(get(SEARCH_PATH).param("query", "station"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        future.completeExceptionally(new ResponseStatusException(HttpStatus.CONFLICT));
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void completedFutureTest() throws Exception {
+        future = CompletableFuture.completedFuture(List.of(Place.fromCoordinates(48.74, 9.30).setName("Station")));
+
+        var result = mockMvc.perform(get(SEARCH_PATH).param("query", "station"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("Station")));
+    }
+
+    @Test
+    public void synchronousServiceIsAnsweredDirectlyTest() throws Exception {
+        IPlacesService<TestCredential> service = (query, areaCenter, radiusMeter, limitTo, credentials)
+                -> List.of(Place.fromCoordinates(48.74, 9.30).setName("Station"));
+
+        standaloneSetup(new PlacesApi(), service).perform(get(SEARCH_PATH).param("query", "station"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("Station")));
+    }
+}
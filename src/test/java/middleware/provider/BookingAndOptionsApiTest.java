@@ -24,11 +24,15 @@
 package middleware.provider;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 import static java.time.ZonedDateTime.now;
 
@@ -47,13 +51,17 @@ import de.hsesslingen.keim.efs.middleware.model.NewBooking;
 import de.hsesslingen.keim.efs.middleware.model.Leg;
 import de.hsesslingen.keim.efs.middleware.model.Place;
 import static de.hsesslingen.keim.efs.middleware.model.Place.fromCoordinates;
+import static de.hsesslingen.keim.efs.middleware.provider.IOptionsApi.APPLICATION_NDJSON_VALUE;
 import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
 import static de.hsesslingen.keim.efs.mobility.service.Mode.BICYCLE;
 import java.time.LocalDateTime;
 import middleware.MiddlewareTestApplication;
 import middleware.MiddlewareTestBase;
 import middleware.provider.credentials.TestCredential;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
 import org.springframework.test.context.ActiveProfiles;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -82,6 +90,19 @@ public class BookingAndOptionsApiTest extends MiddlewareTestBase {
                 .andDo(print());
     }
 
+    @Test
+    public void getOptionsStreamTest_200() throws Exception {
+        var result = mockMvc.perform(get(OPTIONS_PATH).param("from", "1.234,2.345").accept(APPLICATION_NDJSON_VALUE)
+                .header("x-credentials", CredentialsUtils.toJsonString(getDummyCredentials())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_NDJSON_VALUE))
+                .andDo(print());
+    }
+
     @Test
     public void getOptionsTestIso_200() throws Exception {
         // Testing incomplete zoned date time decplarations...
@@ -114,6 +135,28 @@ public class BookingAndOptionsApiTest extends MiddlewareTestBase {
                 .andDo(print());
     }
 
+    @Test
+    public void getBookingsTest_304() throws Exception {
+        var etag = mockMvc.perform(get(BOOKINGS_PATH).header(TOKEN_HEADER, TOKEN_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(ETAG))
+                .andReturn().getResponse().getHeader(ETAG);
+
+        mockMvc.perform(get(BOOKINGS_PATH).header(TOKEN_HEADER, TOKEN_VALUE).header(IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                .andDo(print());
+    }
+
+    @Test
+    public void getBookingEventsTest_200() throws Exception {
+        mockMvc.perform(get(BOOKINGS_PATH + "/events").header(TOKEN_HEADER, TOKEN_VALUE))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(TEXT_EVENT_STREAM))
+                .andDo(print());
+    }
+
     @Test
     public void getBookingByStateTest_400() throws Exception {
         mockMvc.perform(get(BOOKINGS_PATH).param("state", "UNKNOWN").header(TOKEN_HEADER, TOKEN_VALUE))
@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.hsesslingen.keim.efs.middleware.model.BookingEvent;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.middleware.provider.BookingApi;
+import de.hsesslingen.keim.efs.middleware.provider.BookingEventHub;
+import de.hsesslingen.keim.efs.middleware.provider.IBookingApi;
+import de.hsesslingen.keim.efs.middleware.provider.IBookingEventPublisher;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.ICredentialsDeserializer;
+import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
+import middleware.provider.credentials.TestCredential;
+
+/**
+ * Tests the delivery of booking events published using the
+ * {@link IBookingEventPublisher} to the subscribers of the booking events
+ * endpoint.
+ *
+ * @author keim
+ */
+public class BookingEventHubTest {
+
+    private static final String EVENTS_PATH = "/api" + IBookingApi.EVENTS_PATH;
+
+    private final BookingEventHub<TestCredential> hub = new BookingEventHub<>();
+    private final IBookingEventPublisher<TestCredential> publisher = hub;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(hub, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(hub, "heartbeatInterval", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(hub, "sendThreads", 2);
+        ReflectionTestUtils.setField(hub, "maxPendingEvents", 10);
+        ReflectionTestUtils.setField(hub, "sendTimeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.invokeMethod(hub, "init");
+
+        var api = new BookingApi();
+        ReflectionTestUtils.setField(api, "service", new TestBookingAndOptionsService());
+        ReflectionTestUtils.setField(api, "eventHub", hub);
+        ReflectionTestUtils.setField(api, "mapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(api, "deserializer", new ICredentialsDeserializer<TestCredential>() {
+            @Override
+            public TestCredential parseCredentials(String credentials) {
+                return parseToken(credentials);
+            }
+
+            @Override
+            public TestCredential parseToken(String token) {
+                return token == null ? null : new TestCredential(token, null);
+            }
+        });
+
+        mockMvc = MockMvcBuilders.standaloneSetup(api).build();
+    }
+
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(hub, "shutdown");
+    }
+
+    private MockHttpServletResponse subscribe(String user) throws Exception {
+        return mockMvc.perform(get(EVENTS_PATH).header(TOKEN_HEADER, user))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    private static BookingEvent event(String bookingId) {
+        return new BookingEvent().setBookingId(bookingId).setState(BookingState.BOOKED);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static String content(MockHttpServletResponse response) {
+        try {
+            return response.getContentAsString();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    public void eventsAreDeliveredToRecipientsOnlyTest() throws Exception {
+        var alice = subscribe("alice");
+        var bob = subscribe("bob");
+
+        assertEquals(2, publisher.getSubscriberCount());
+
+        publisher.publish(event("booking-a"), credentials -> "alice".equals(credentials.getId()));
+        publisher.publish(event("booking-b"), credentials -> "bob".equals(credentials.getId()));
+        publisher.publish(event("booking-all"), credentials -> true);
+
+        // Events are sent to each subscriber in order, so nothing else arrives after the last one.
+        await(() -> content(alice).contains("booking-all") && content(bob).contains("booking-all"));
+
+        assertTrue(content(alice).contains("event:" + IBookingApi.BOOKING_EVENT_NAME));
+        assertTrue(content(alice).contains("booking-a"));
+        assertFalse(content(alice).contains("booking-b"));
+
+        assertTrue(content(bob).contains("booking-b"));
+        assertFalse(content(bob).contains("booking-a"));
+    }
+
+    @Test
+    public void failingRecipientsFilterTest() throws Exception {
+        var alice = subscribe("alice");
+
+        publisher.publish(event("booking-a"), credentials -> {
+            throw new IllegalStateException("Filter failed.");
+        });
+        publisher.publish(event("booking-b"), credentials -> true);
+
+        await(() -> content(alice).contains("booking-b"));
+
+        assertFalse(content(alice).contains("booking-a"));
+        assertTrue(content(alice).contains("booking-b"));
+        assertEquals(1, publisher.getSubscriberCount());
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.provider;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.hsesslingen.keim.efs.middleware.model.Booking;
+import de.hsesslingen.keim.efs.middleware.model.BookingAction;
+import de.hsesslingen.keim.efs.middleware.model.BookingState;
+import de.hsesslingen.keim.efs.middleware.model.NewBooking;
+import de.hsesslingen.keim.efs.middleware.provider.BookingApi;
+import de.hsesslingen.keim.efs.middleware.provider.ETagResponseAdvice;
+import de.hsesslingen.keim.efs.middleware.provider.IBookingService;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.ICredentialsDeserializer;
+import static de.hsesslingen.keim.efs.mobility.requests.MiddlewareRequest.TOKEN_HEADER;
+import middleware.provider.credentials.TestCredential;
+
+/**
+ * Tests conditional requests for single bookings of a booking service that
+ * supplies versions of its bookings.
+ *
+ * @author keim
+ */
+public class BookingVersionTest {
+
+    private static final String BOOKING_PATH = "/api/bookings/{id}";
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private String version = "1";
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        var mapper = new ObjectMapper().findAndRegisterModules();
+
+        var etags = new ETagResponseAdvice();
+        ReflectionTestUtils.setField(etags, "enabled", true);
+        ReflectionTestUtils.setField(etags, "mapper", mapper);
+
+        var api = new BookingApi();
+        ReflectionTestUtils.setField(api, "service", new VersionedBookingService());
+        ReflectionTestUtils.setField(api, "etags", etags);
+        ReflectionTestUtils.setField(api, "mapper", mapper);
+        ReflectionTestUtils.setField(api, "deserializer", new ICredentialsDeserializer<TestCredential>() {
+            @Override
+            public TestCredential parseCredentials(String credentials) {
+                return parseToken(credentials);
+            }
+
+            @Override
+            public TestCredential parseToken(String token) {
+                return token == null ? null : new TestCredential(token, null);
+            }
+        });
+
+        mockMvc = MockMvcBuilders.standaloneSetup(api).setControllerAdvice(etags).build();
+    }
+
+    @Test
+    public void versionIsUsedAsETagTest() throws Exception {
+        mockMvc.perform(get(BOOKING_PATH, "b1").header(TOKEN_HEADER, "user"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, "\"1\""))
+                .andExpect(jsonPath("$.id", is("b1")));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void unchangedBookingIsNotLoadedTest() throws Exception {
+        mockMvc.perform(get(BOOKING_PATH, "b1").header(TOKEN_HEADER, "user").header(IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void changedBookingIsLoadedTest() throws Exception {
+        version = "2";
+
+        mockMvc.perform(get(BOOKING_PATH, "b1").header(TOKEN_HEADER, "user").header(IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, "\"2\""))
+                .andExpect(jsonPath("$.id", is("b1")));
+
+        assertEquals(1, loads.get());
+    }
+
+    private class VersionedBookingService implements IBookingService<TestCredential> {
+
+        @Override
+        public String getBookingVersion(String id, TestCredential credentials) {
+            return version;
+        }
+
+        @Override
+        public Booking getBookingById(String id, TestCredential credentials) {
+            loads.incrementAndGet();
+            return new Booking().setId(id);
+        }
+
+        @Override
+        public List<Booking> getBookings(BookingState state, TestCredential credentials) {
+            return List.of();
+        }
+
+        @Override
+        public Booking createNewBooking(NewBooking newBooking, String optionReference, TestCredential credentials) {
+            return null;
+        }
+
+        @Override
+        public Booking modifyBooking(String id, Booking booking, TestCredential credentials) {
+            return null;
+        }
+
+        @Override
+        public Booking performAction(String bookingId, BookingAction action, String secret, TestCredential credentials) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.model.Leg;
+import de.hsesslingen.keim.efs.middleware.model.Option;
+import de.hsesslingen.keim.efs.middleware.model.Place;
+import de.hsesslingen.keim.efs.middleware.provider.CachingOptionsService;
+import de.hsesslingen.keim.efs.middleware.provider.IOptionsService;
+import de.hsesslingen.keim.efs.middleware.provider.config.OptionsCacheProperties;
+import de.hsesslingen.keim.efs.middleware.provider.config.OptionsCacheProperties.CredentialScope;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import de.hsesslingen.keim.efs.mobility.service.Mode;
+import middleware.provider.credentials.TestCredential;
+
+/**
+ * @author keim
+ */
+public class CachingOptionsServiceTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private ZonedDateTime validUntil = null;
+
+    private final IOptionsService<TestCredential> delegate = (from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials) -> {
+        calls.incrementAndGet();
+        var option = new Option("provider", new Leg(from, startTime), true);
+        option.setValidUntil(validUntil);
+        return List.of(option);
+    };
+
+    private static CachingOptionsService<TestCredential> cache(IOptionsService<TestCredential> delegate, CredentialScope scope) {
+        var properties = new OptionsCacheProperties();
+        properties.setEnabled(true);
+        properties.setCredentialScope(scope);
+        return new CachingOptionsService<>(delegate, properties);
+    }
+
+    private static List<Option> query(CachingOptionsService<TestCredential> service, double lat, TestCredential credentials) {
+        return service.getOptions(Place.fromCoordinates(lat, 9.30), null, null, null, 500, true, Set.of(Mode.BICYCLE), null, false, credentials);
+    }
+
+    @Test
+    public void nearbyRequestsShareEntryTest() {
+        var service = cache(delegate, CredentialScope.credentials);
+        var credentials = new TestCredential("id", "key");
+
+        var first = query(service, 48.740001, credentials);
+        var second = query(service, 48.740002, credentials);
+
+        assertEquals(1, calls.get());
+        assertSame(first, second);
+
+        query(service, 48.76, credentials);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void credentialScopeTest() {
+        var perUser = cache(delegate, CredentialScope.credentials);
+        query(perUser, 48.74, new TestCredential("a", "key"));
+        query(perUser, 48.74, new TestCredential("b", "key"));
+        assertEquals(2, calls.get());
+
+        var shared = cache(delegate, CredentialScope.none);
+        query(shared, 48.74, new TestCredential("a", "key"));
+        query(shared, 48.74, new TestCredential("b", "key"));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void credentialsWithoutEqualsAreNotCachedTest() {
+        IOptionsService<PlainCredential> plainDelegate = (from, to, startTime, endTime, radiusMeter, sharingAllowed, modesAllowed, limitTo, includeGeoPaths, credentials) -> {
+            calls.incrementAndGet();
+            return List.of();
+        };
+
+        var properties = new OptionsCacheProperties();
+        properties.setEnabled(true);
+        var service = new CachingOptionsService<>(plainDelegate, properties);
+
+        // Both are equal according to the equals method of AbstractCredentials.
+        service.getOptions(Place.fromCoordinates(48.74, 9.30), null, null, null, 500, true, null, null, false, new PlainCredential("a"));
+        service.getOptions(Place.fromCoordinates(48.74, 9.30), null, null, null, 500, true, null, null, false, new PlainCredential("b"));
+
+        assertEquals(2, calls.get());
+        assertEquals(0, service.size());
+    }
+
+    @Test
+    public void expiredOptionsAreNotCachedTest() {
+        var service = cache(delegate, CredentialScope.credentials);
+        validUntil = ZonedDateTime.now().minusMinutes(1);
+
+        query(service, 48.74, null);
+        query(service, 48.74, null);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void streamingStopsAtSinkTest() {
+        var service = cache(delegate, CredentialScope.credentials);
+        var received = new AtomicInteger();
+
+        service.streamOptions(Place.fromCoordinates(48.74, 9.30), null, null, null, null, null, null, null, null, null, option -> received.incrementAndGet() < 1);
+        service.streamOptions(Place.fromCoordinates(48.74, 9.30), null, null, null, null, null, null, null, null, null, option -> received.incrementAndGet() < 1);
+
+        assertEquals(1, calls.get());
+        assertEquals(2, received.get());
+    }
+
+    private static class PlainCredential extends AbstractCredentials {
+
+        private final String id;
+
+        PlainCredential(String id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.provider.credentials;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.provider.credentials.AbstractCredentials;
+import de.hsesslingen.keim.efs.middleware.provider.credentials.CredentialsDebugFormatter;
+
+/**
+ * @author keim
+ */
+public class CredentialsDebugFormatterTest {
+
+	private static class EmptyCredential extends AbstractCredentials {
+	}
+
+	@Test
+	public void formatsDeclaredFieldsTest() {
+		var creds = new TestCredential("id_001", null);
+
+		assertEquals(
+				"Parsed credentials with following values: id=id_001, demoLoginKey=null",
+				CredentialsDebugFormatter.format(creds, String::valueOf)
+		);
+	}
+
+	@Test
+	public void appliesValueMapperTest() {
+		var creds = new TestCredential("id_001", "loginkey_001");
+
+		assertEquals(
+				"Parsed credentials with following values: id=***, demoLoginKey=***",
+				CredentialsDebugFormatter.format(creds, value -> "***")
+		);
+	}
+
+	@Test
+	public void formatsEmptyAndNullCredentialsTest() {
+		assertEquals(
+				"Parsed credentials with following values: (no values parsed)",
+				CredentialsDebugFormatter.format(new EmptyCredential(), String::valueOf)
+		);
+		assertEquals("Credentials object is null.", CredentialsDebugFormatter.format(null, String::valueOf));
+	}
+}
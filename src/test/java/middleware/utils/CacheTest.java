@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.utils.Cache;
+
+/**
+ * @author keim
+ */
+public class CacheTest {
+
+    @Test
+    public void getSetRemoveTest() {
+        var cache = new Cache<String, String>();
+
+        cache.set("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a").get());
+        assertEquals("2", cache.get("b").get());
+
+        cache.set("a", "3");
+        assertEquals("3", cache.get("a").get());
+
+        cache.remove("a");
+        assertFalse(cache.get("a").isPresent());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(3, cache.getHitCount());
+    }
+
+    @Test
+    public void expiryOnReadTest() throws InterruptedException {
+        var cache = new Cache<String, String>(Duration.ofHours(1));
+
+        cache.set("short", "1", Duration.ofMillis(10));
+        cache.set("long", "2");
+
+        Thread.sleep(50);
+
+        assertFalse(cache.get("short").isPresent());
+        assertTrue(cache.get("long").isPresent());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void maxSizeTest() {
+        var cache = new Cache<Integer, Integer>(null, 100);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.set(i, i);
+            // Keep the first key recently used.
+            cache.get(0);
+        }
+
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.get(0).isPresent());
+        assertTrue(cache.get(999).isPresent());
+    }
+
+    @Test
+    public void maxWeightTest() {
+        var cache = new Cache<Integer, String>(null, 100, (k, v) -> v.length());
+
+        for (int i = 0; i < 100; i++) {
+            cache.set(i, "0123456789");
+        }
+
+        assertTrue(cache.getWeight() <= 100);
+    }
+
+    @Test
+    public void computeIfAbsentSingleFlightTest() throws InterruptedException {
+        var cache = new Cache<String, String>();
+        var loads = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+
+        for (int i = 0; i < 8; i++) {
+            var thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                assertEquals("value", cache.computeIfAbsent("key", k -> {
+                    loads.incrementAndGet();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException ex) {
+                    }
+                    return "value";
+                }));
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals("value", cache.get("key").get());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.model.Coordinates;
+import de.hsesslingen.keim.efs.middleware.model.ICoordinates;
+import de.hsesslingen.keim.efs.middleware.model.PrimitiveCoordinates;
+import de.hsesslingen.keim.efs.middleware.utils.DistanceUtils;
+
+/**
+ * @author keim
+ */
+public class DistanceUtilsTest {
+
+    private static final double LAT = 48.74;
+    private static final double LON = 9.30;
+
+    private static List<Coordinates> randomCoordinates(int count) {
+        var random = new Random(42);
+        var result = new ArrayList<Coordinates>(count);
+
+        for (int i = 0; i < count; i++) {
+            result.add(new Coordinates(LAT - 0.5 + random.nextDouble(), LON - 0.5 + random.nextDouble()));
+        }
+
+        return result;
+    }
+
+    @Test
+    public void primitiveDistanceMatchesBoxedTest() {
+        var a = new Coordinates(LAT, LON);
+        var b = new Coordinates(52.52, 13.40);
+
+        double expected = ICoordinates.distanceKmBetween(a, b);
+        assertEquals(expected, ICoordinates.distanceKmBetween(LAT, LON, 52.52, 13.40), 0.0);
+        assertEquals(expected, PrimitiveCoordinates.of(a).distanceKmTo(PrimitiveCoordinates.of(b)), 0.0);
+    }
+
+    @Test
+    public void kernelsTest() {
+        var coordinates = randomCoordinates(500);
+        var latLon = DistanceUtils.toLatLonArray(coordinates);
+
+        var exact = DistanceUtils.distancesKm(LAT, LON, latLon, new double[500]);
+        var approximate = DistanceUtils.approximateDistancesKm(LAT, LON, latLon, new double[500]);
+        var within = new boolean[500];
+        int count = DistanceUtils.withinRadius(LAT, LON, 20, latLon, within);
+
+        int expectedCount = 0;
+        for (int i = 0; i < 500; i++) {
+            var c = coordinates.get(i);
+            double expected = ICoordinates.distanceKmBetween(LAT, LON, c.getLat(), c.getLon());
+
+            assertEquals(expected, exact[i], 1e-9);
+            assertEquals(expected, approximate[i], expected * 0.01);
+            assertEquals(expected <= 20, within[i]);
+            expectedCount += expected <= 20 ? 1 : 0;
+        }
+
+        assertEquals(expectedCount, count);
+    }
+
+    @Test
+    public void sortByDistanceTest() {
+        var coordinates = randomCoordinates(200);
+        coordinates.add(0, new Coordinates(null, null));
+
+        var sorted = DistanceUtils.sortByDistance(LAT, LON, coordinates);
+
+        assertEquals(coordinates.size(), sorted.size());
+        assertNull(sorted.get(sorted.size() - 1).getLat());
+
+        double previous = 0;
+        for (var c : sorted.subList(0, sorted.size() - 1)) {
+            double distance = ICoordinates.distanceKmBetween(LAT, LON, c.getLat(), c.getLon());
+            assertTrue(distance >= previous - 1e-4);
+            previous = distance;
+        }
+    }
+}
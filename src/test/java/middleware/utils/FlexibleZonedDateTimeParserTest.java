@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020 Hochschule Esslingen
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE. 
+ */
+package middleware.utils;
+
+import static de.hsesslingen.keim.efs.middleware.utils.FlexibleZonedDateTimeParser.tryParseZonedDateTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.junit.Test;
+
+import de.hsesslingen.keim.efs.middleware.utils.FlexibleZonedDateTimeParser;
+
+/**
+ * @author keim
+ */
+public class FlexibleZonedDateTimeParserTest {
+
+    @Test
+    public void formatsTest() {
+        var zone = ZoneId.systemDefault();
+
+        assertEquals(Instant.ofEpochMilli(1600000000000L).atZone(zone), tryParseZonedDateTime("1600000000000"));
+        assertEquals(OffsetDateTime.parse("2020-03-11T15:00:00+01:00").toZonedDateTime(), tryParseZonedDateTime("2020-03-11T15:00:00+01:00"));
+        assertEquals(OffsetDateTime.parse("2020-03-11T15:00:00Z").toZonedDateTime(), tryParseZonedDateTime("2020-03-11T15:00:00Z"));
+        assertEquals(ZonedDateTime.parse("2020-03-11T15:00+01:00[Europe/Berlin]"), tryParseZonedDateTime("2020-03-11T15:00+01:00[Europe/Berlin]"));
+        assertEquals(LocalDateTime.parse("2020-03-11T15:00").atZone(zone), tryParseZonedDateTime("2020-03-11T15:00"));
+        assertEquals(LocalDate.parse("2020-03-11").atStartOfDay(zone), tryParseZonedDateTime("2020-03-11"));
+        assertEquals(LocalTime.parse("15:00").atDate(LocalDate.now()).atZone(zone), tryParseZonedDateTime("15:00"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void invalidTest() {
+        tryParseZonedDateTime("2020-13-11");
+    }
+
+    @Test
+    public void cacheTest() {
+        FlexibleZonedDateTimeParser.setCacheSize(10);
+
+        try {
+            var first = tryParseZonedDateTime("2020-03-11T15:00:00+01:00");
+            assertSame(first, tryParseZonedDateTime("2020-03-11T15:00:00+01:00"));
+        } finally {
+            FlexibleZonedDateTimeParser.setCacheSize(0);
+        }
+    }
+}